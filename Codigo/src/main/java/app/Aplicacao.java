@@ -13,6 +13,8 @@ import service.KeyService;
 import service.CadastroAplicacaoService;
 import service.AppTokenService;
 import util.AuthFilter;
+import cache.BarramentoInvalidacao;
+import dao.ContadorRegistrosDAO;
 
 public class Aplicacao {
 
@@ -38,6 +40,11 @@ public class Aplicacao {
     			+ "                                                                                       \n"
     			+ "                                                                                       ");
     	
+        // Invalidação dos caches entre os nós (LISTEN/NOTIFY)
+        BarramentoInvalidacao.iniciar();
+        // Correção periódica dos contadores de registros por tabela
+        ContadorRegistrosDAO.iniciarReconciliacao();
+        
         port(80);
         staticFiles.location("/public");
         
@@ -45,6 +52,7 @@ public class Aplicacao {
             response.header("Access-Control-Allow-Origin", "*");
             response.header("Access-Control-Allow-Methods", "GET,PUT,POST,DELETE,OPTIONS");
             response.header("Access-Control-Allow-Headers", "Content-Type,Authorization,X-Requested-With,Content-Length,Accept,Origin");
+            response.header("Access-Control-Expose-Headers", "X-Next-Cursor");
         });
         
         // ROTAS PÚBLICAS (ANTES DO FILTRO DE AUTENTICAÇÃO)
@@ -98,11 +106,14 @@ public class Aplicacao {
         // === ROTAS REGISTROS ===
         get("/api/registros", (request, response) -> registroService.listar(request, response));
         get("/api/registros/count", (request, response) -> registroService.contarPorAplicacao(request, response));
+        get("/api/registros/count/tabelas", (request, response) -> registroService.contarPorTabela(request, response));
         get("/api/registros/:id", (request, response) -> registroService.buscarPorId(request, response));
         get("/api/registros/aplicacao/:idAplicacao", (request, response) -> registroService.buscarPorAplicacao(request, response));
+        get("/api/registros/exportar/:idAplicacao", (request, response) -> registroService.exportar(request, response));
         get("/api/registros/tabela/:tabela", (request, response) -> registroService.buscarPorTabela(request, response));
         post("/api/registros/buscar", (request, response) -> registroService.buscarComFiltro(request, response));
         post("/api/registros", (request, response) -> registroService.inserir(request, response));
+        post("/api/registros/lote/:idAplicacao/:tabela", (request, response) -> registroService.inserirLote(request, response));
         put("/api/registros/:id", (request, response) -> registroService.atualizar(request, response));
         delete("/api/registros/:id", (request, response) -> registroService.excluir(request, response));
         
@@ -130,6 +141,7 @@ public class Aplicacao {
         // === ROTA PARA GERAR OS ENDPOINTS ===
         before("/api/generateEndpoints/:idAplicacao", AuthFilter.authenticate);
         post("/api/generateEndpoints/:idAplicacao", (request, response) -> geradorEndpointsService.generateEndpoints(request, response));
+        post("/api/aplicacoes/:id/armazenamento", (request, response) -> geradorEndpointsService.alterarArmazenamento(request, response));
         
         // === ROTAS GENÉRICAS PARA EXECUTAR ENDPOINTS DINÂMICOS ===
         // USAR AUTENTICAÇÃO POR TOKEN DE APLICAÇÃO AO INVÉS DO TOKEN DE USUÁRIO
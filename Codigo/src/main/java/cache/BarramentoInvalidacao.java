@@ -0,0 +1,206 @@
+package cache;
+
+import dao.AlocadorIds;
+import dao.PoolConexoes;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import util.Configuracao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+// BARRAMENTO DE INVALIDAÇÃO DOS CACHES ENTRE OS NÓS DO FLEXBASE (POSTGRES LISTEN/NOTIFY)
+// QUEM ALTERA ENDPOINTS, KEYS OU APLICAÇÕES CHAMA UM DOS MÉTODOS ABAIXO DEPOIS DE GRAVAR NO BANCO:
+// O CACHE LOCAL É LIMPO NA HORA E OS OUTROS NÓS RECEBEM O EVENTO PELO NOTIFY
+// CADA NÓ ESCUTA EM UMA CONEXÃO DEDICADA; AO (RE)CONECTAR LIMPA TUDO, POIS EVENTOS PODEM TER SE PERDIDO SEM CONEXÃO
+//
+// FORMATO DO EVENTO: <nó de origem>|<tipo>:<ids>
+//   R:<aplicacao>              ROTAS/ENDPOINTS DA APLICAÇÃO ALTERADOS
+//   E:<aplicacao>:<endpoint>   ENDPOINT EXCLUÍDO
+//   K:<key>                    KEY OU PERMISSÕES DA KEY ALTERADAS
+//   A:<aplicacao>              DADOS OU SCHEMA DA APLICAÇÃO ALTERADOS
+//   X:<aplicacao>              APLICAÇÃO EXCLUÍDA
+//   I:<aplicacao>:<id>:<tabela> CHAVE GRAVADA EM UMA TABELA REFERENCIADA (ENTRA NOS FILTROS DE REFERÊNCIA)
+//   F:<aplicacao>              ESCRITA SEM CHAVES CONHECIDAS: DESCARTA OS FILTROS DE REFERÊNCIA DA APLICAÇÃO
+public class BarramentoInvalidacao {
+    private static final String CANAL = "flexbase_invalidacao";
+    private static final int ESPERA_NOTIFICACAO_MS = 10000;
+    private static final long INTERVALO_VERIFICACAO_MS = 30000;
+    private static final long ESPERA_RECONEXAO_MAXIMA_MS = 30000;
+
+    // IDENTIFICA ESTE PROCESSO; O NÓ IGNORA OS PRÓPRIOS EVENTOS (JÁ APLICADOS LOCALMENTE)
+    private static final String NO = UUID.randomUUID().toString().substring(0, 8);
+
+    private static volatile boolean ativo;
+    private static volatile Thread ouvinte;
+
+    // INICIA O CONSUMIDOR (CHAMADO NO main); invalidacao.ativo=false MANTÉM SÓ A INVALIDAÇÃO LOCAL
+    public static synchronized void iniciar() {
+        if (ouvinte != null || !Configuracao.getBoolean("invalidacao.ativo", true)) {
+            return;
+        }
+        ativo = true;
+        ouvinte = new Thread(BarramentoInvalidacao::escutar, "barramento-invalidacao");
+        ouvinte.setDaemon(true);
+        ouvinte.start();
+    }
+
+    public static synchronized void parar() {
+        ativo = false;
+        if (ouvinte != null) {
+            ouvinte.interrupt();
+            ouvinte = null;
+        }
+    }
+
+    public static void rotas(int idAplicacao) {
+        publicar("R:" + idAplicacao);
+    }
+
+    public static void endpointExcluido(int idAplicacao, int idEndpoint) {
+        publicar("E:" + idAplicacao + ":" + idEndpoint);
+    }
+
+    public static void key(int idKey) {
+        publicar("K:" + idKey);
+    }
+
+    public static void aplicacao(int idAplicacao) {
+        publicar("A:" + idAplicacao);
+    }
+
+    public static void aplicacaoExcluida(int idAplicacao) {
+        publicar("X:" + idAplicacao);
+    }
+
+    public static void chaveGravada(int idAplicacao, String tabela, long id) {
+        publicar("I:" + idAplicacao + ":" + id + ":" + tabela);
+    }
+
+    public static void filtrosReferencia(int idAplicacao) {
+        publicar("F:" + idAplicacao);
+    }
+
+    private static void publicar(String evento) {
+        aplicar(evento);
+        if (!ativo) {
+            return;
+        }
+        try (Connection conexao = PoolConexoes.getInstancia().obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement("SELECT pg_notify(?, ?)")) {
+            stmt.setString(1, CANAL);
+            stmt.setString(2, NO + "|" + evento);
+            stmt.execute();
+        } catch (SQLException e) {
+            // OS OUTROS NÓS FICAM COM O CACHE ANTIGO ATÉ A PRÓXIMA RECONEXÃO OU ALTERAÇÃO
+            System.err.println("Erro ao publicar invalidação " + evento + ": " + e.getMessage());
+        }
+    }
+
+    private static void escutar() {
+        long espera = 1000;
+        while (ativo) {
+            try (Connection conexao = PoolConexoes.getInstancia().abrirConexaoDedicada();
+                 Statement stmt = conexao.createStatement()) {
+                stmt.execute("LISTEN " + CANAL);
+                // O QUE MUDOU ENQUANTO ESTÁVAMOS SEM ESCUTAR NÃO CHEGA MAIS: DESCARTA TUDO
+                invalidarTudo();
+                espera = 1000;
+
+                PGConnection pg = conexao.unwrap(PGConnection.class);
+                long ultimaVerificacao = System.currentTimeMillis();
+                while (ativo) {
+                    PGNotification[] notificacoes = pg.getNotifications(ESPERA_NOTIFICACAO_MS);
+                    if (notificacoes != null) {
+                        for (PGNotification notificacao : notificacoes) {
+                            receber(notificacao.getParameter());
+                        }
+                    }
+                    // SEM TRÁFEGO UMA CONEXÃO CAÍDA PODE PASSAR DESPERCEBIDA: UM SELECT 1 FORÇA O ERRO
+                    if (System.currentTimeMillis() - ultimaVerificacao > INTERVALO_VERIFICACAO_MS) {
+                        stmt.execute("SELECT 1");
+                        ultimaVerificacao = System.currentTimeMillis();
+                    }
+                }
+            } catch (SQLException e) {
+                if (!ativo) {
+                    return;
+                }
+                System.err.println("Barramento de invalidação desconectado, tentando novamente em " + espera + "ms: " + e.getMessage());
+                try {
+                    Thread.sleep(espera);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+                espera = Math.min(espera * 2, ESPERA_RECONEXAO_MAXIMA_MS);
+            }
+        }
+    }
+
+    private static void receber(String mensagem) {
+        int separador = mensagem.indexOf('|');
+        if (separador < 0 || mensagem.substring(0, separador).equals(NO)) {
+            return;
+        }
+        aplicar(mensagem.substring(separador + 1));
+    }
+
+    private static void aplicar(String evento) {
+        try {
+            // NO MÁXIMO 4 PARTES: O NOME DA TABELA, SEMPRE POR ÚLTIMO, PODE CONTER ":"
+            String[] partes = evento.split(":", 4);
+            switch (partes[0]) {
+                case "R":
+                    CacheRotas.invalidar(Integer.parseInt(partes[1]));
+                    break;
+                case "E":
+                    int idAplicacaoEndpoint = Integer.parseInt(partes[1]);
+                    CacheRotas.invalidar(idAplicacaoEndpoint);
+                    CacheConsultas.remover(Integer.parseInt(partes[2]));
+                    // ASSOCIAÇÕES DO ENDPOINT COM AS KEYS SAEM EM CASCATA
+                    CacheKeys.invalidarAplicacao(idAplicacaoEndpoint);
+                    break;
+                case "K":
+                    CacheKeys.invalidar(Integer.parseInt(partes[1]));
+                    break;
+                case "A":
+                    CacheAplicacoes.invalidar(Integer.parseInt(partes[1]));
+                    CacheSchemas.remover(Integer.parseInt(partes[1]));
+                    CacheFiltrosReferencia.invalidarAplicacao(Integer.parseInt(partes[1]));
+                    break;
+                case "I":
+                    CacheFiltrosReferencia.registrar(Integer.parseInt(partes[1]), partes[3], Long.parseLong(partes[2]));
+                    break;
+                case "F":
+                    CacheFiltrosReferencia.invalidarAplicacao(Integer.parseInt(partes[1]));
+                    break;
+                case "X":
+                    int idAplicacao = Integer.parseInt(partes[1]);
+                    CacheAplicacoes.invalidar(idAplicacao);
+                    CacheSchemas.remover(idAplicacao);
+                    CacheFiltrosReferencia.invalidarAplicacao(idAplicacao);
+                    CacheRotas.invalidar(idAplicacao);
+                    CacheConsultas.removerPorAplicacao(idAplicacao);
+                    CacheKeys.invalidarAplicacao(idAplicacao);
+                    AlocadorIds.getInstancia().descartar(idAplicacao);
+                    break;
+                default:
+                    System.err.println("Evento de invalidação desconhecido: " + evento);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Evento de invalidação inválido: " + evento);
+        }
+    }
+
+    private static void invalidarTudo() {
+        CacheRotas.invalidarTudo();
+        CacheConsultas.limpar();
+        CacheKeys.invalidarTudo();
+        CacheAplicacoes.invalidarTudo();
+        CacheSchemas.limpar();
+        CacheFiltrosReferencia.limpar();
+    }
+}
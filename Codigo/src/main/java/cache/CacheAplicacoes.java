@@ -0,0 +1,48 @@
+package cache;
+
+import dao.AplicacaoDAO;
+import model.Aplicacao;
+import util.Configuracao;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// CACHE DAS APLICAÇÕES (tb_aplicacao + CÓDIGO DA KEY BASE, COM O schemaBanco JÁ CONVERTIDO PARA JsonNode)
+// LIMITADO A cache.aplicacoes.tamanho ENTRADAS; INVALIDADO PELO BarramentoInvalidacao QUANDO A APLICAÇÃO MUDA
+// CADA CHAMADA RECEBE UMA CÓPIA, ENTÃO QUEM ALTERA A APLICAÇÃO ANTES DE GRAVAR NÃO MEXE NO CACHE;
+// O schemaBanco É COMPARTILHADO ENTRE AS CÓPIAS E NÃO DEVE SER MODIFICADO (PARA TROCAR, USE setSchemaBanco)
+public class CacheAplicacoes {
+    private static final CacheLRU<Integer, Aplicacao> aplicacoes =
+        new CacheLRU<>(Configuracao.getInt("cache.aplicacoes.tamanho", 1000));
+
+    // INCREMENTADA A CADA INVALIDAÇÃO; EVITA GUARDAR UMA APLICAÇÃO LIDA ANTES DE UMA ALTERAÇÃO
+    private static final AtomicLong geracao = new AtomicLong();
+
+    public static Aplicacao buscarPorId(int idAplicacao) {
+        Aplicacao aplicacao = aplicacoes.obter(idAplicacao);
+        if (aplicacao == null) {
+            long geracaoInicial = geracao.get();
+            aplicacao = new AplicacaoDAO().buscarPorId(idAplicacao);
+            if (aplicacao == null) {
+                return null;
+            }
+            if (geracao.get() == geracaoInicial) {
+                aplicacoes.guardar(idAplicacao, aplicacao);
+                // INVALIDADA ENQUANTO GUARDAVA: NÃO DEIXA A VERSÃO ANTIGA NO CACHE
+                if (geracao.get() != geracaoInicial) {
+                    aplicacoes.remover(idAplicacao);
+                }
+            }
+        }
+        return new Aplicacao(aplicacao);
+    }
+
+    public static void invalidar(int idAplicacao) {
+        geracao.incrementAndGet();
+        aplicacoes.remover(idAplicacao);
+    }
+
+    public static void invalidarTudo() {
+        geracao.incrementAndGet();
+        aplicacoes.limpar();
+    }
+}
@@ -0,0 +1,69 @@
+package cache;
+
+import model.Endpoint;
+import util.ConsultaCompilada;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// CACHE DAS QUERIES COMPILADAS, POR ID DO ENDPOINT
+// A ENTRADA É RECOMPILADA SE A QUERY, A ROTA OU A MARCAÇÃO DE GERADO DO ENDPOINT MUDAR
+public class CacheConsultas {
+    private static final Pattern PARAMETRO_ROTA = Pattern.compile("\\{([^}]+)\\}");
+
+    private static final Map<Integer, Entrada> consultas = new ConcurrentHashMap<>();
+
+    public static ConsultaCompilada obter(Endpoint endpoint) {
+        Entrada entrada = consultas.get(endpoint.getId());
+        if (entrada != null && entrada.corresponde(endpoint)) {
+            return entrada.consulta;
+        }
+
+        Set<String> parametrosRota = new HashSet<>();
+        if (endpoint.getRota() != null) {
+            Matcher matcher = PARAMETRO_ROTA.matcher(endpoint.getRota());
+            while (matcher.find()) {
+                parametrosRota.add(matcher.group(1));
+            }
+        }
+
+        entrada = new Entrada(endpoint, ConsultaCompilada.compilar(endpoint.getQuery(), parametrosRota, endpoint.isGerado()));
+        consultas.put(endpoint.getId(), entrada);
+        return entrada.consulta;
+    }
+
+    public static void remover(int idEndpoint) {
+        consultas.remove(idEndpoint);
+    }
+
+    public static void removerPorAplicacao(int idAplicacao) {
+        consultas.values().removeIf(entrada -> entrada.idAplicacao == idAplicacao);
+    }
+
+    public static void limpar() {
+        consultas.clear();
+    }
+
+    private static class Entrada {
+        private final int idAplicacao;
+        private final String rota;
+        private final boolean gerado;
+        private final ConsultaCompilada consulta;
+
+        private Entrada(Endpoint endpoint, ConsultaCompilada consulta) {
+            this.idAplicacao = endpoint.getIdAplicacao();
+            this.rota = endpoint.getRota();
+            this.gerado = endpoint.isGerado();
+            this.consulta = consulta;
+        }
+
+        private boolean corresponde(Endpoint endpoint) {
+            return consulta.getSqlOriginal().equals(endpoint.getQuery()) && gerado == endpoint.isGerado()
+                && (rota == null ? endpoint.getRota() == null : rota.equals(endpoint.getRota()));
+        }
+    }
+}
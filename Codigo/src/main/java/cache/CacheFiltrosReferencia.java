@@ -0,0 +1,135 @@
+package cache;
+
+import dao.ReferenciaDAO;
+import util.Configuracao;
+import util.FiltroBloom;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// CACHE NEGATIVO DAS REFERÊNCIAS: UM FILTRO DE BLOOM POR (APLICAÇÃO, TABELA ALVO) COM AS CHAVES LÓGICAS EXISTENTES
+// UM ID QUE O FILTRO NÃO CONTÉM É RECUSADO SEM IR AO BANCO; OS DEMAIS SÃO CONFIRMADOS NA CONSULTA DE REFERÊNCIAS
+// O FILTRO NÃO PODE PERDER INSERÇÕES (SENÃO RECUSARIA REFERÊNCIAS VÁLIDAS): AS INSERÇÕES DESTE NÓ E AS DOS OUTROS
+// (VIA BarramentoInvalidacao) SÃO REGISTRADAS; ESCRITAS QUE NÃO DÁ PARA ACOMPANHAR DESCARTAM OS FILTROS DA APLICAÇÃO
+// E, COMO GARANTIA CONTRA ESCRITAS FORA DO FLEXBASE, CADA FILTRO É RECONSTRUÍDO APÓS referencias.filtro.validadeMs
+// EXCLUSÕES NÃO SAEM DO FILTRO: O ID EXCLUÍDO SÓ DEIXA DE SER RECUSADO DE CARA E CAI NA CONFIRMAÇÃO
+public class CacheFiltrosReferencia {
+    private static final boolean ATIVO = Configuracao.getBoolean("referencias.filtro.ativo", true);
+    private static final int BITS_POR_ID = Configuracao.getInt("referencias.filtro.bitsPorId", 10);
+    private static final long VALIDADE_MS = Configuracao.getLong("referencias.filtro.validadeMs", 300000L);
+    // FOLGA PARA AS INSERÇÕES ATÉ A PRÓXIMA RECONSTRUÇÃO
+    private static final long CAPACIDADE_MINIMA = 1024;
+
+    private static final Map<String, Entrada> filtros = new ConcurrentHashMap<>();
+    // CONSTRUÇÃO EM SEGUNDO PLANO: ENQUANTO O FILTRO NÃO FICA PRONTO AS REFERÊNCIAS VÃO TODAS PARA O BANCO
+    private static final ExecutorService construtor = Executors.newSingleThreadExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "filtros-referencia");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // true SÓ QUANDO O ID CERTAMENTE NÃO EXISTE; false QUANDO PODE EXISTIR OU O FILTRO AINDA NÃO ESTÁ PRONTO
+    public static boolean certamenteAusente(int idAplicacao, String tabela, String campoChave, long id) {
+        if (!ATIVO) {
+            return false;
+        }
+
+        String chave = chave(idAplicacao, tabela);
+        Entrada entrada = filtros.get(chave);
+        if (entrada == null || !entrada.campo.equals(campoChave) || entrada.isVencida()) {
+            entrada = construir(chave, idAplicacao, tabela, campoChave, entrada);
+        }
+
+        FiltroBloom filtro = entrada.filtro;
+        return filtro != null && !filtro.talvezContenha(id);
+    }
+
+    // ID GRAVADO EM tabela (CHAMADO PELO BARRAMENTO, NESTE NÓ E NOS DEMAIS)
+    public static void registrar(int idAplicacao, String tabela, long id) {
+        Entrada entrada = filtros.get(chave(idAplicacao, tabela));
+        if (entrada != null) {
+            entrada.adicionar(id);
+        }
+    }
+
+    public static void invalidarAplicacao(int idAplicacao) {
+        String prefixo = idAplicacao + ":";
+        filtros.keySet().removeIf(chave -> chave.startsWith(prefixo));
+    }
+
+    public static void limpar() {
+        filtros.clear();
+    }
+
+    private static Entrada construir(String chave, int idAplicacao, String tabela, String campoChave, Entrada antiga) {
+        Entrada nova = new Entrada(campoChave);
+        boolean trocou = antiga == null ? filtros.putIfAbsent(chave, nova) == null : filtros.replace(chave, antiga, nova);
+        if (!trocou) {
+            // OUTRA THREAD JÁ COMEÇOU A RECONSTRUÇÃO
+            Entrada atual = filtros.get(chave);
+            return atual != null ? atual : nova;
+        }
+
+        construtor.execute(() -> {
+            try {
+                ReferenciaDAO referenciaDAO = new ReferenciaDAO();
+                long total = referenciaDAO.contarChaves(idAplicacao, tabela, campoChave);
+                FiltroBloom filtro = new FiltroBloom(Math.max(total * 2, CAPACIDADE_MINIMA), BITS_POR_ID);
+                referenciaDAO.listarChaves(idAplicacao, tabela, campoChave, filtro::adicionar);
+                nova.publicar(filtro);
+            } catch (SQLException e) {
+                // SEM FILTRO A ENTRADA SÓ RESPONDE "TALVEZ" ATÉ VENCER E SER RECONSTRUÍDA
+                System.err.println("Erro ao construir filtro de referências " + chave + ": " + e.getMessage());
+            }
+        });
+        return nova;
+    }
+
+    private static String chave(int idAplicacao, String tabela) {
+        return idAplicacao + ":" + tabela;
+    }
+
+    private static class Entrada {
+        private final String campo;
+        private final long criadaEm = System.currentTimeMillis();
+        private volatile FiltroBloom filtro;
+        // INSERÇÕES QUE CHEGAM DURANTE A CONSTRUÇÃO (PODEM TER FICADO FORA DA LEITURA DO BANCO)
+        private final List<Long> pendentes = new ArrayList<>();
+
+        private Entrada(String campo) {
+            this.campo = campo;
+        }
+
+        private boolean isVencida() {
+            FiltroBloom atual = filtro;
+            return System.currentTimeMillis() - criadaEm > VALIDADE_MS || (atual != null && atual.isSaturado());
+        }
+
+        private void adicionar(long id) {
+            FiltroBloom atual = filtro;
+            if (atual == null) {
+                synchronized (this) {
+                    if (filtro == null) {
+                        pendentes.add(id);
+                        return;
+                    }
+                    atual = filtro;
+                }
+            }
+            atual.adicionar(id);
+        }
+
+        private synchronized void publicar(FiltroBloom novo) {
+            for (Long id : pendentes) {
+                novo.adicionar(id);
+            }
+            pendentes.clear();
+            filtro = novo;
+        }
+    }
+}
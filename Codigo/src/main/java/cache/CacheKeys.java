@@ -0,0 +1,108 @@
+package cache;
+
+import dao.KeyDAO;
+import model.Key;
+import util.ConjuntoInteiros;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// CACHE DAS KEYS E DOS ENDPOINTS QUE CADA KEY PODE EXECUTAR (tb_key_endpoint)
+// CARREGADO DO BANCO NA PRIMEIRA CONSULTA E INVALIDADO PELOS SERVICES QUE ALTERAM KEYS OU PERMISSÕES
+// AS KEYS DEVOLVIDAS SÃO COMPARTILHADAS: SÓ LEITURA, QUEM FOR ALTERAR DEVE BUSCAR NO KeyDAO
+public class CacheKeys {
+    private static final Map<Integer, Key> keysPorId = new ConcurrentHashMap<>();
+    private static final Map<String, Key> keysPorCodigo = new ConcurrentHashMap<>();
+    private static final Map<Integer, ConjuntoInteiros> permissoes = new ConcurrentHashMap<>();
+
+    // INCREMENTADA A CADA INVALIDAÇÃO; EVITA GUARDAR UM VALOR CARREGADO ANTES DE UMA ALTERAÇÃO
+    private static final AtomicLong geracao = new AtomicLong();
+
+    public static Key buscarPorId(int idKey) {
+        Key key = keysPorId.get(idKey);
+        if (key != null) {
+            return key;
+        }
+
+        long geracaoInicial = geracao.get();
+        key = new KeyDAO().buscarPorId(idKey);
+        if (key != null) {
+            guardar(key, geracaoInicial);
+        }
+        return key;
+    }
+
+    public static Key buscarPorCodigo(String codigo) {
+        Key key = keysPorCodigo.get(codigo);
+        if (key != null) {
+            return key;
+        }
+
+        long geracaoInicial = geracao.get();
+        key = new KeyDAO().buscarPorCodigo(codigo);
+        if (key != null) {
+            guardar(key, geracaoInicial);
+        }
+        return key;
+    }
+
+    // A KEY PODE EXECUTAR O ENDPOINT? (CONSULTA EM MEMÓRIA DEPOIS DO PRIMEIRO CARREGAMENTO)
+    public static boolean podeExecutar(int idKey, int idEndpoint) {
+        ConjuntoInteiros endpoints = permissoes.get(idKey);
+        if (endpoints == null) {
+            long geracaoInicial = geracao.get();
+            endpoints = new ConjuntoInteiros(new KeyDAO().buscarEndpointsAssociados(idKey));
+            if (geracao.get() == geracaoInicial) {
+                permissoes.putIfAbsent(idKey, endpoints);
+                if (geracao.get() != geracaoInicial) {
+                    permissoes.remove(idKey, endpoints);
+                }
+            }
+        }
+        return endpoints.contem(idEndpoint);
+    }
+
+    public static void invalidar(int idKey) {
+        geracao.incrementAndGet();
+        Key key = keysPorId.remove(idKey);
+        if (key != null && key.getCodigo() != null) {
+            keysPorCodigo.remove(key.getCodigo());
+        }
+        keysPorCodigo.values().removeIf(k -> k.getId() == idKey);
+        permissoes.remove(idKey);
+    }
+
+    // KEYS E PERMISSÕES DE TODA A APLICAÇÃO (EX.: ENDPOINT OU APLICAÇÃO EXCLUÍDOS)
+    public static void invalidarAplicacao(int idAplicacao) {
+        geracao.incrementAndGet();
+        keysPorId.values().removeIf(k -> k.getIdAplicacao() == idAplicacao);
+        keysPorCodigo.values().removeIf(k -> k.getIdAplicacao() == idAplicacao);
+        // AS PERMISSÕES NÃO GUARDAM A APLICAÇÃO DA KEY: DESCARTA TODAS (RECARREGAM SOB DEMANDA)
+        permissoes.clear();
+    }
+
+    public static void invalidarTudo() {
+        geracao.incrementAndGet();
+        keysPorId.clear();
+        keysPorCodigo.clear();
+        permissoes.clear();
+    }
+
+    private static void guardar(Key key, long geracaoInicial) {
+        if (geracao.get() != geracaoInicial) {
+            return;
+        }
+        keysPorId.put(key.getId(), key);
+        if (key.getCodigo() != null) {
+            keysPorCodigo.put(key.getCodigo(), key);
+        }
+        // INVALIDADA ENQUANTO GUARDAVA: NÃO DEIXA A VERSÃO ANTIGA NO CACHE
+        if (geracao.get() != geracaoInicial) {
+            keysPorId.remove(key.getId(), key);
+            if (key.getCodigo() != null) {
+                keysPorCodigo.remove(key.getCodigo(), key);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+// MAPA LIMITADO QUE DESCARTA O ITEM USADO HÁ MAIS TEMPO QUANDO PASSA DE capacidade
+// THREAD-SAFE; AS OPERAÇÕES SÃO CURTAS (SÓ HASH E PONTEIROS), ENTÃO UMA TRAVA ÚNICA BASTA
+public class CacheLRU<K, V> {
+    private final int capacidade;
+    private final LinkedHashMap<K, V> itens;
+
+    public CacheLRU(int capacidade) {
+        this.capacidade = Math.max(1, capacidade);
+        // accessOrder = true: get() MOVE O ITEM PARA O FIM DA LISTA
+        this.itens = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> maisAntigo) {
+                return size() > CacheLRU.this.capacidade;
+            }
+        };
+    }
+
+    public synchronized V obter(K chave) {
+        return itens.get(chave);
+    }
+
+    public synchronized void guardar(K chave, V valor) {
+        itens.put(chave, valor);
+    }
+
+    public synchronized V remover(K chave) {
+        return itens.remove(chave);
+    }
+
+    public synchronized void removerSe(Predicate<K> condicao) {
+        itens.keySet().removeIf(condicao);
+    }
+
+    public synchronized void limpar() {
+        itens.clear();
+    }
+
+    public synchronized int tamanho() {
+        return itens.size();
+    }
+}
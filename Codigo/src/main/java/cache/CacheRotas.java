@@ -0,0 +1,49 @@
+package cache;
+
+import dao.EndpointDAO;
+import util.TabelaRotas;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// CACHE DAS TABELAS DE ROTAS COMPILADAS, UMA POR APLICAÇÃO
+// CARREGADA DO BANCO NA PRIMEIRA CHAMADA E DESCARTADA QUANDO OS ENDPOINTS DA APLICAÇÃO MUDAM
+public class CacheRotas {
+    private static final Map<Integer, TabelaRotas> tabelas = new ConcurrentHashMap<>();
+
+    // INCREMENTADA A CADA INVALIDAÇÃO; EVITA GUARDAR UMA TABELA CARREGADA ANTES DE UMA ALTERAÇÃO
+    private static final AtomicLong geracao = new AtomicLong();
+
+    public static TabelaRotas obter(int idAplicacao) {
+        TabelaRotas tabela = tabelas.get(idAplicacao);
+        if (tabela != null) {
+            return tabela;
+        }
+
+        long geracaoInicial = geracao.get();
+        tabela = new TabelaRotas(new EndpointDAO().buscarPorAplicacao(idAplicacao));
+
+        if (geracao.get() == geracaoInicial) {
+            TabelaRotas existente = tabelas.putIfAbsent(idAplicacao, tabela);
+            if (existente != null) {
+                return existente;
+            }
+            // INVALIDADA ENQUANTO GUARDAVA: NÃO DEIXA A VERSÃO ANTIGA NO CACHE
+            if (geracao.get() != geracaoInicial) {
+                tabelas.remove(idAplicacao, tabela);
+            }
+        }
+        return tabela;
+    }
+
+    public static void invalidar(int idAplicacao) {
+        geracao.incrementAndGet();
+        tabelas.remove(idAplicacao);
+    }
+
+    public static void invalidarTudo() {
+        geracao.incrementAndGet();
+        tabelas.clear();
+    }
+}
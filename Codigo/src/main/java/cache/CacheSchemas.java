@@ -0,0 +1,48 @@
+package cache;
+
+import model.Aplicacao;
+import util.SchemaCompilado;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// CACHE DOS SCHEMAS COMPILADOS, POR APLICAÇÃO
+// A ENTRADA É RECOMPILADA QUANDO O schemaBanco DA APLICAÇÃO É OUTRA INSTÂNCIA (APLICAÇÃO RECARREGADA DO BANCO)
+public class CacheSchemas {
+    private static final Map<Integer, Entrada> schemas = new ConcurrentHashMap<>();
+
+    // null SE A APLICAÇÃO NÃO TEM SCHEMA
+    public static SchemaCompilado obter(Aplicacao aplicacao) {
+        if (aplicacao.getSchemaBanco() == null) {
+            return null;
+        }
+
+        Entrada entrada = schemas.get(aplicacao.getId());
+        if (entrada != null && entrada.origem == aplicacao.getSchemaBanco()) {
+            return entrada.schema;
+        }
+
+        entrada = new Entrada(aplicacao.getSchemaBanco(), SchemaCompilado.compilar(aplicacao.getSchemaBanco()));
+        schemas.put(aplicacao.getId(), entrada);
+        return entrada.schema;
+    }
+
+    public static void remover(int idAplicacao) {
+        schemas.remove(idAplicacao);
+    }
+
+    public static void limpar() {
+        schemas.clear();
+    }
+
+    private static class Entrada {
+        // O JsonNode DE ORIGEM É COMPARTILHADO PELAS CÓPIAS DO CacheAplicacoes: BASTA COMPARAR A REFERÊNCIA
+        private final Object origem;
+        private final SchemaCompilado schema;
+
+        private Entrada(Object origem, SchemaCompilado schema) {
+            this.origem = origem;
+            this.schema = schema;
+        }
+    }
+}
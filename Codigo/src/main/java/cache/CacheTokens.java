@@ -0,0 +1,44 @@
+package cache;
+
+import util.ClaimsToken;
+import util.Configuracao;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+// TOKENS JWT JÁ VERIFICADOS: O MESMO TOKEN REENVIADO PELO CLIENTE NÃO PASSA DE NOVO PELO HMAC
+// A CHAVE É O SHA-256 DO TOKEN (O TOKEN EM SI NÃO FICA GUARDADO) E UM ITEM EXPIRADO NUNCA É DEVOLVIDO
+public class CacheTokens {
+    private static final CacheLRU<String, ClaimsToken> tokens =
+        new CacheLRU<>(Configuracao.getInt("jwt.cacheTamanho", 10000));
+
+    public static ClaimsToken obter(String token) {
+        String chave = digest(token);
+        ClaimsToken claims = tokens.obter(chave);
+        if (claims != null && claims.isExpirado(System.currentTimeMillis())) {
+            tokens.remover(chave);
+            return null;
+        }
+        return claims;
+    }
+
+    public static void guardar(String token, ClaimsToken claims) {
+        tokens.guardar(digest(token), claims);
+    }
+
+    public static void limpar() {
+        tokens.limpar();
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 É OBRIGATÓRIO EM TODA JVM
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import util.Configuracao;
+
+// ALOCADOR DE IDs LÓGICOS (HI/LO) POR (APLICAÇÃO, TABELA)
+// RESERVA UM BLOCO DE tamanhoBloco IDs NA tb_sequences COM UM ÚNICO UPSERT E ENTREGA OS IDs DA MEMÓRIA SEM TRAVAS
+// UM REINÍCIO DESCARTA O QUE SOBROU DO BLOCO (FICAM BURACOS NA NUMERAÇÃO), MAS NUNCA REPETE UM ID:
+// tb_sequences.proximo_id GUARDA O ÚLTIMO ID JÁ ENTREGUE, O MESMO CONTRATO DA fn_next_id (QUE CONTINUA COMPATÍVEL)
+public class AlocadorIds extends DAO {
+    private static final AlocadorIds instancia = new AlocadorIds();
+
+    private final int tamanhoBloco = Math.max(1, Configuracao.getInt("ids.tamanhoBloco", 100));
+    private final ConcurrentHashMap<String, Alocacao> alocacoes = new ConcurrentHashMap<>();
+    // CONEXÃO PRÓPRIA, FORA DO POOL: QUEM PEDE UM ID JÁ PODE ESTAR SEGURANDO UMA CONEXÃO DO POOL (ENDPOINT, CARGA EM LOTE),
+    // E UM SEGUNDO EMPRÉSTIMO DEIXARIA TODAS AS THREADS SEGURANDO UMA CONEXÃO E ESPERANDO OUTRA ATÉ O TEMPO ESGOTAR.
+    // A RESERVA TAMBÉM NÃO PODE ENTRAR NA TRANSAÇÃO DE QUEM PEDE: UM ROLLBACK DESFARIA NA tb_sequences UM BLOCO
+    // QUE A MEMÓRIA CONTINUARIA ENTREGANDO. EM AUTOCOMMIT, CADA RESERVA É CONFIRMADA SOZINHA
+    private Connection conexaoReserva;
+
+    public static AlocadorIds getInstancia() {
+        return instancia;
+    }
+
+    private AlocadorIds() {
+        super();
+    }
+
+    public long proximoId(int idAplicacao, String tabela) throws SQLException {
+        Alocacao alocacao = alocacoes.computeIfAbsent(chave(idAplicacao, tabela), k -> new Alocacao());
+
+        while (true) {
+            Bloco bloco = alocacao.bloco;
+            if (bloco != null) {
+                long id = bloco.proximo.getAndIncrement();
+                if (id <= bloco.ultimo) {
+                    return id;
+                }
+            }
+
+            // BLOCO ESGOTADO: SÓ UMA THREAD RESERVA O PRÓXIMO, AS DEMAIS ESPERAM E USAM O NOVO BLOCO
+            synchronized (alocacao) {
+                if (alocacao.bloco == bloco) {
+                    alocacao.bloco = reservarBloco(idAplicacao, tabela);
+                }
+            }
+        }
+    }
+
+    // DESCARTA OS BLOCOS EM MEMÓRIA DA APLICAÇÃO (EX.: APLICAÇÃO EXCLUÍDA)
+    public void descartar(int idAplicacao) {
+        String prefixo = idAplicacao + ":";
+        alocacoes.keySet().removeIf(chave -> chave.startsWith(prefixo));
+    }
+
+    // UMA RESERVA POR VEZ NA CONEXÃO PRÓPRIA (É UM ÚNICO UPSERT A CADA tamanhoBloco IDs)
+    private synchronized Bloco reservarBloco(int idAplicacao, String tabela) throws SQLException {
+        try {
+            return reservarBloco(conexaoReserva(), idAplicacao, tabela);
+        } catch (SQLException e) {
+            // CONEXÃO PERDIDA (EX.: BANCO REINICIADO): TENTA UMA VEZ COM UMA NOVA
+            fecharConexaoReserva();
+            return reservarBloco(conexaoReserva(), idAplicacao, tabela);
+        }
+    }
+
+    private Bloco reservarBloco(Connection conexao, int idAplicacao, String tabela) throws SQLException {
+        String query = "INSERT INTO tb_sequences (id_aplicacao, tabela, proximo_id) VALUES (?, ?, ?) "
+            + "ON CONFLICT (id_aplicacao, tabela) DO UPDATE SET proximo_id = tb_sequences.proximo_id + EXCLUDED.proximo_id "
+            + "RETURNING proximo_id";
+        try (PreparedStatement stmt = conexao.prepareStatement(query)) {
+            stmt.setInt(1, idAplicacao);
+            stmt.setString(2, tabela);
+            stmt.setLong(3, tamanhoBloco);
+            ResultSet rs = stmt.executeQuery();
+
+            if (!rs.next()) {
+                throw new SQLException("Não foi possível reservar IDs para " + tabela);
+            }
+            long ultimo = rs.getLong(1);
+            return new Bloco(ultimo - tamanhoBloco + 1, ultimo);
+        }
+    }
+
+    private Connection conexaoReserva() throws SQLException {
+        if (conexaoReserva == null) {
+            conexaoReserva = PoolConexoes.getInstancia().abrirConexaoDedicada();
+        }
+        return conexaoReserva;
+    }
+
+    private void fecharConexaoReserva() {
+        if (conexaoReserva != null) {
+            try {
+                conexaoReserva.close();
+            } catch (SQLException e) {
+                // JÁ ESTAVA PERDIDA
+            }
+            conexaoReserva = null;
+        }
+    }
+
+    private static String chave(int idAplicacao, String tabela) {
+        return idAplicacao + ":" + tabela;
+    }
+
+    private static class Alocacao {
+        private volatile Bloco bloco;
+    }
+
+    // IDs DE proximo ATÉ ultimo (INCLUSIVE)
+    private static class Bloco {
+        private final AtomicLong proximo;
+        private final long ultimo;
+
+        private Bloco(long primeiro, long ultimo) {
+            this.proximo = new AtomicLong(primeiro);
+            this.ultimo = ultimo;
+        }
+    }
+}
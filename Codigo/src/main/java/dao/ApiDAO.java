@@ -1,44 +1,46 @@
 package dao;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import filterDTO.ApiFilterDTO;
+import model.Usuario;
 
 public class ApiDAO extends DAO {
 	public ApiDAO() {
 		super();
-		conectar();
-	}
-
-	public void finalize() {
-		close();
 	}
 	
 
-	public ResultSet entrar(ApiFilterDTO filtro) {
-		ResultSet rs = null;
-		
+	// RETORNA O USUÁRIO SE EMAIL E SENHA CONFEREM, OU null CASO CONTRÁRIO
+	public Usuario entrar(ApiFilterDTO filtro) {
 		if (filtro == null || filtro.getEmail() == null || filtro.getSenha() == null) {
 			return null;
 		}
 		
-		try {
-			String senhaMD5 = toMD5(filtro.getSenha());
-			
-			String sql = "SELECT id, nome, email, administrador, pontos, descricao, foto FROM tb_usuarios WHERE email = ? AND senha = ?";
-			PreparedStatement st = conexao.prepareStatement(sql);
+		String sql = "SELECT id, nome, sobrenome, email FROM tb_usuarios WHERE email = ? AND senha = ?";
+		try (Connection conexao = obterConexao();
+			 PreparedStatement st = conexao.prepareStatement(sql)) {
 			st.setString(1, filtro.getEmail());
-			st.setString(2, senhaMD5);
-			
-			rs = st.executeQuery();
+			st.setString(2, toMD5(filtro.getSenha()));
 			
+			try (ResultSet rs = st.executeQuery()) {
+				if (rs.next()) {
+					Usuario usuario = new Usuario();
+					usuario.setId(rs.getInt("id"));
+					usuario.setNome(rs.getString("nome"));
+					usuario.setSobrenome(rs.getString("sobrenome"));
+					usuario.setEmail(rs.getString("email"));
+					return usuario;
+				}
+			}
 		} catch (SQLException e) {
 			System.err.println("Erro ao executar consulta de login: " + e.getMessage());
 		} catch (Exception e) {
 			System.err.println("Erro ao criptografar senha: " + e.getMessage());
 		}
 		
-		return rs;
+		return null;
 	}
 }
@@ -2,23 +2,29 @@ package dao;
 
 import model.Aplicacao;
 import filterDTO.AplicacaoFilterDTO;
+import util.Json;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.List;
 import java.util.ArrayList;
 
 public class AplicacaoDAO extends DAO {
+    // NOME DO DONO NA MESMA CONSULTA DAS LISTAGENS (NULL SE O USUÁRIO NÃO EXISTE)
+    private static final String COLUNA_NOME_USUARIO =
+        "CASE WHEN u.id IS NULL THEN NULL ELSE CONCAT(u.nome, ' ', u.sobrenome) END AS nome_usuario";
+
     public AplicacaoDAO() {
         super();
-        conectar();
     }
 
     public boolean inserir(Aplicacao aplicacao) {
         String query = "SELECT * FROM fn_create_aplicacao_with_base_key(?, ?, ?, ?, ?::jsonb)";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setString(1, aplicacao.getNome());
             stmt.setString(2, aplicacao.getReadme());
             stmt.setInt(3, aplicacao.getIdUsuario());
@@ -42,8 +48,8 @@ public class AplicacaoDAO extends DAO {
     public Aplicacao buscarPorId(int id) {
         String query = "SELECT a.*, k.codigo as codigo_key_base FROM tb_aplicacao a " +
                       "LEFT JOIN tb_keys k ON a.id_key_base = k.id WHERE a.id = ?";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
 
@@ -60,8 +66,7 @@ public class AplicacaoDAO extends DAO {
                 String schemaJson = rs.getString("schema_banco");
                 if (schemaJson != null) {
                     try {
-                        com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                        aplicacao.setSchemaBanco(mapper.readTree(schemaJson));
+                        aplicacao.setSchemaBanco(Json.lerArvore(schemaJson));
                     } catch (Exception e) {
                         e.printStackTrace();
                     }
@@ -76,11 +81,11 @@ public class AplicacaoDAO extends DAO {
     }
 
     public List<Aplicacao> listarTodos() {
-        String query = "SELECT a.*, k.codigo as codigo_key_base FROM tb_aplicacao a " +
-                      "LEFT JOIN tb_keys k ON a.id_key_base = k.id";
+        String query = "SELECT a.*, k.codigo as codigo_key_base, " + COLUNA_NOME_USUARIO + " FROM tb_aplicacao a " +
+                      "LEFT JOIN tb_keys k ON a.id_key_base = k.id LEFT JOIN tb_usuarios u ON u.id = a.id_usuario";
         List<Aplicacao> aplicacoes = new ArrayList<>();
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
@@ -92,12 +97,12 @@ public class AplicacaoDAO extends DAO {
                 aplicacao.setNomeBanco(rs.getString("nome_banco"));
                 aplicacao.setIdKeyBase(rs.getInt("id_key_base"));
                 aplicacao.setCodigoKeyBase(rs.getString("codigo_key_base"));
+                aplicacao.setNomeUsuario(rs.getString("nome_usuario"));
                 
                 String schemaJson = rs.getString("schema_banco");
                 if (schemaJson != null) {
                     try {
-                        com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                        aplicacao.setSchemaBanco(mapper.readTree(schemaJson));
+                        aplicacao.setSchemaBanco(Json.lerArvore(schemaJson));
                     } catch (Exception e) {
                         e.printStackTrace();
                     }
@@ -112,11 +117,11 @@ public class AplicacaoDAO extends DAO {
     }
 
     public List<Aplicacao> buscarPorUsuario(int idUsuario) {
-        String query = "SELECT a.*, k.codigo as codigo_key_base FROM tb_aplicacao a " +
-                      "LEFT JOIN tb_keys k ON a.id_key_base = k.id WHERE a.id_usuario = ?";
+        String query = "SELECT a.*, k.codigo as codigo_key_base, " + COLUNA_NOME_USUARIO + " FROM tb_aplicacao a " +
+                      "LEFT JOIN tb_keys k ON a.id_key_base = k.id LEFT JOIN tb_usuarios u ON u.id = a.id_usuario WHERE a.id_usuario = ?";
         List<Aplicacao> aplicacoes = new ArrayList<>();
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setInt(1, idUsuario);
             ResultSet rs = stmt.executeQuery();
 
@@ -129,12 +134,12 @@ public class AplicacaoDAO extends DAO {
                 aplicacao.setNomeBanco(rs.getString("nome_banco"));
                 aplicacao.setIdKeyBase(rs.getInt("id_key_base"));
                 aplicacao.setCodigoKeyBase(rs.getString("codigo_key_base"));
+                aplicacao.setNomeUsuario(rs.getString("nome_usuario"));
                 
                 String schemaJson = rs.getString("schema_banco");
                 if (schemaJson != null) {
                     try {
-                        com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                        aplicacao.setSchemaBanco(mapper.readTree(schemaJson));
+                        aplicacao.setSchemaBanco(Json.lerArvore(schemaJson));
                     } catch (Exception e) {
                         e.printStackTrace();
                     }
@@ -149,8 +154,8 @@ public class AplicacaoDAO extends DAO {
     }
 
     public List<Aplicacao> buscarComFiltro(AplicacaoFilterDTO filtro) {
-        StringBuilder query = new StringBuilder("SELECT a.*, k.codigo as codigo_key_base FROM tb_aplicacao a " +
-                                              "LEFT JOIN tb_keys k ON a.id_key_base = k.id WHERE 1=1");
+        StringBuilder query = new StringBuilder("SELECT a.*, k.codigo as codigo_key_base, " + COLUNA_NOME_USUARIO + " FROM tb_aplicacao a " +
+                                              "LEFT JOIN tb_keys k ON a.id_key_base = k.id LEFT JOIN tb_usuarios u ON u.id = a.id_usuario WHERE 1=1");
         List<Object> parametros = new ArrayList<>();
 
         if (filtro.getId() != null) {
@@ -171,8 +176,8 @@ public class AplicacaoDAO extends DAO {
         }
 
         List<Aplicacao> aplicacoes = new ArrayList<>();
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query.toString());
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query.toString())) {
             for (int i = 0; i < parametros.size(); i++) {
                 stmt.setObject(i + 1, parametros.get(i));
             }
@@ -187,12 +192,12 @@ public class AplicacaoDAO extends DAO {
                 aplicacao.setNomeBanco(rs.getString("nome_banco"));
                 aplicacao.setIdKeyBase(rs.getInt("id_key_base"));
                 aplicacao.setCodigoKeyBase(rs.getString("codigo_key_base"));
+                aplicacao.setNomeUsuario(rs.getString("nome_usuario"));
                 
                 String schemaJson = rs.getString("schema_banco");
                 if (schemaJson != null) {
                     try {
-                        com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                        aplicacao.setSchemaBanco(mapper.readTree(schemaJson));
+                        aplicacao.setSchemaBanco(Json.lerArvore(schemaJson));
                     } catch (Exception e) {
                         e.printStackTrace();
                     }
@@ -208,8 +213,8 @@ public class AplicacaoDAO extends DAO {
 
     public boolean atualizar(Aplicacao aplicacao) {
         String query = "UPDATE tb_aplicacao SET nome = ?, readme = ?, nome_banco = ?, schema_banco = ?::jsonb WHERE id = ?";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setString(1, aplicacao.getNome());
             stmt.setString(2, aplicacao.getReadme());
             stmt.setString(3, aplicacao.getNomeBanco());
@@ -222,14 +227,84 @@ public class AplicacaoDAO extends DAO {
         }
     }
 
+    // OS REGISTROS SAEM COM A PARTIÇÃO DA APLICAÇÃO (DROP TABLE), SEM O DELETE EM CASCATA LINHA A LINHA
+    // A PARTIÇÃO É DESANEXADA ANTES (DETACH ... CONCURRENTLY): UM DROP DELA AINDA ANEXADA TRAVARIA A tb_registros
+    // INTEIRA (ACCESS EXCLUSIVE) E PARARIA AS LEITURAS E GRAVAÇÕES DE TODAS AS APLICAÇÕES
     public boolean excluir(int id) {
+        String particao = RegistroDAO.nomeParticao(id);
         String query = "DELETE FROM tb_aplicacao WHERE id = ?";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             Statement ddl = conexao.createStatement();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
+            boolean desanexada = desanexarParticao(conexao, particao);
+
+            // O POOL FAZ O ROLLBACK NA DEVOLUÇÃO SE A TRANSAÇÃO NÃO FOR CONFIRMADA
+            conexao.setAutoCommit(false);
+            if (desanexada) {
+                // FORA DA tb_registros, O DROP SÓ TRAVA A PRÓPRIA PARTIÇÃO
+                ddl.execute("DROP TABLE IF EXISTS " + particao);
+            }
             stmt.setInt(1, id);
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() == 0) {
+                conexao.rollback();
+                reanexarParticao(conexao, particao, id);
+                return false;
+            }
+            conexao.commit();
+            return true;
         } catch (SQLException e) {
             e.printStackTrace();
+            reanexarParticao(particao, id);
+            return false;
+        }
+    }
+
+    // O DETACH JÁ FOI CONFIRMADO SOZINHO: SE A EXCLUSÃO NÃO ACONTECEU, A PARTIÇÃO VOLTA PARA A tb_registros
+    // (SEM ELA A APLICAÇÃO NÃO VÊ OS PRÓPRIOS REGISTROS E TODA INSERÇÃO FALHA)
+    private void reanexarParticao(String particao, int idAplicacao) {
+        try (Connection conexao = obterConexao()) {
+            reanexarParticao(conexao, particao, idAplicacao);
+        } catch (SQLException e) {
+            System.err.println("Erro ao anexar de novo a partição " + particao + ": " + e.getMessage());
+        }
+    }
+
+    // SÓ SE A TABELA AINDA EXISTE (APLICAÇÃO INEXISTENTE NÃO GANHA PARTIÇÃO NOVA); fn_garantir_particao_registros FAZ O ATTACH
+    private void reanexarParticao(Connection conexao, String particao, int idAplicacao) {
+        String query = "SELECT fn_garantir_particao_registros(?) WHERE to_regclass(?) IS NOT NULL";
+        try {
+            conexao.setAutoCommit(true);
+            try (PreparedStatement stmt = conexao.prepareStatement(query)) {
+                stmt.setInt(1, idAplicacao);
+                stmt.setString(2, particao);
+                stmt.executeQuery();
+            }
+        } catch (SQLException e) {
+            System.err.println("Erro ao anexar de novo a partição " + particao + ": " + e.getMessage());
+        }
+    }
+
+    // DESANEXA A PARTIÇÃO DA tb_registros SEM BLOQUEAR AS OUTRAS APLICAÇÕES; RETORNA false SE ELA CONTINUA ANEXADA
+    // O CONCURRENTLY NÃO RODA DENTRO DE TRANSAÇÃO: A CONEXÃO DO POOL JÁ VEM EM AUTOCOMMIT
+    private boolean desanexarParticao(Connection conexao, String particao) {
+        String query = "SELECT inhdetachpending FROM pg_inherits "
+            + "WHERE inhrelid = to_regclass(?) AND inhparent = 'tb_registros'::regclass";
+        try (PreparedStatement stmt = conexao.prepareStatement(query);
+             Statement ddl = conexao.createStatement()) {
+            stmt.setString(1, particao);
+            ResultSet rs = stmt.executeQuery();
+
+            if (!rs.next()) {
+                // NÃO ESTÁ ANEXADA (OU NEM EXISTE): O DROP TABLE IF EXISTS RESOLVE
+                return true;
+            }
+            // UM DETACH CONCURRENTLY INTERROMPIDO (EX.: EXCLUSÃO ANTERIOR QUE FALHOU) PRECISA SER FINALIZADO
+            String modo = rs.getBoolean(1) ? " FINALIZE" : " CONCURRENTLY";
+            ddl.execute("ALTER TABLE tb_registros DETACH PARTITION " + particao + modo);
+            return true;
+        } catch (SQLException e) {
+            // EX.: POSTGRESQL ANTERIOR AO 14; A PARTIÇÃO FICA ANEXADA E OS REGISTROS SAEM PELO DELETE EM CASCATA
+            System.err.println("Erro ao desanexar a partição " + particao + ": " + e.getMessage());
             return false;
         }
     }
@@ -0,0 +1,162 @@
+package dao;
+
+import util.Configuracao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// CONTADORES DE REGISTROS POR (APLICAÇÃO, TABELA) EM tb_contadores_registros
+// OS GATILHOS DE tb_registros MANTÊM OS TOTAIS NA MESMA TRANSAÇÃO DE CADA GRAVAÇÃO (VER fn_contar_registros)
+// A RECONCILIAÇÃO PERIÓDICA CORRIGE O QUE ESCAPOU DOS GATILHOS (ESCRITAS DIRETAS NAS PARTIÇÕES, BASE MIGRADA SEM TOTAIS)
+public class ContadorRegistrosDAO extends DAO {
+    // 0 DESATIVA A RECONCILIAÇÃO PERIÓDICA
+    private static final long INTERVALO_RECONCILIACAO_MS = Configuracao.getLong("contadores.reconciliacao.intervaloMs", 3600000L);
+    // A CORREÇÃO VAI PARA UMA FATIA FIXA; A SOMA DAS FATIAS É O QUE IMPORTA
+    private static final int FATIA_RECONCILIACAO = 0;
+
+    private static ScheduledExecutorService agendador;
+
+    public ContadorRegistrosDAO() {
+        super();
+    }
+
+    public static synchronized void iniciarReconciliacao() {
+        if (agendador != null || INTERVALO_RECONCILIACAO_MS <= 0) {
+            return;
+        }
+        agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "contadores-reconciliacao");
+            thread.setDaemon(true);
+            return thread;
+        });
+        agendador.scheduleWithFixedDelay(() -> {
+            try {
+                int corrigidos = new ContadorRegistrosDAO().reconciliarTodas();
+                if (corrigidos > 0) {
+                    System.out.println("Contadores de registros corrigidos: " + corrigidos);
+                }
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, INTERVALO_RECONCILIACAO_MS, INTERVALO_RECONCILIACAO_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public long contarPorAplicacao(int idAplicacao) {
+        String query = "SELECT COALESCE(SUM(total), 0) FROM tb_contadores_registros WHERE id_aplicacao = ?";
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
+            stmt.setInt(1, idAplicacao);
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    // TOTAL DE CADA TABELA DA APLICAÇÃO (TABELAS SEM REGISTROS NÃO APARECEM), EM ORDEM DE NOME
+    public Map<String, Long> contarPorTabela(int idAplicacao) {
+        String query = "SELECT tabela, SUM(total) FROM tb_contadores_registros WHERE id_aplicacao = ? "
+            + "GROUP BY tabela HAVING SUM(total) <> 0 ORDER BY tabela";
+        Map<String, Long> totais = new LinkedHashMap<>();
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
+            stmt.setInt(1, idAplicacao);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                totais.put(rs.getString(1), rs.getLong(2));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return totais;
+    }
+
+    // RECONCILIA CADA APLICAÇÃO EM SEPARADO; RETORNA QUANTOS CONTADORES FORAM CORRIGIDOS
+    public int reconciliarTodas() {
+        List<Integer> aplicacoes = new ArrayList<>();
+        try (Connection conexao = obterConexao();
+             Statement stmt = conexao.createStatement()) {
+            ResultSet rs = stmt.executeQuery("SELECT id FROM tb_aplicacao ORDER BY id");
+            while (rs.next()) {
+                aplicacoes.add(rs.getInt(1));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 0;
+        }
+
+        int corrigidos = 0;
+        for (int idAplicacao : aplicacoes) {
+            corrigidos += reconciliar(idAplicacao);
+        }
+        return corrigidos;
+    }
+
+    // A CONTAGEM REAL E A SOMA DOS CONTADORES SÃO LIDAS NO MESMO SNAPSHOT (REPEATABLE READ): A DIFERENÇA ENTRE ELAS
+    // É A DERIVA NAQUELE INSTANTE. GRAVAÇÕES POSTERIORES AO SNAPSHOT JÁ SOMAM NOS CONTADORES PELOS GATILHOS,
+    // ENTÃO A DIFERENÇA ENTRA COMO INCREMENTO (NUNCA COMO VALOR ABSOLUTO) E NÃO APAGA O QUE FOI CONTADO NO MEIO TEMPO
+    public int reconciliar(int idAplicacao) {
+        String diferencas = "SELECT COALESCE(r.tabela, c.tabela), COALESCE(r.total, 0) - COALESCE(c.total, 0) "
+            + "FROM (SELECT tabela, COUNT(*) AS total FROM tb_registros WHERE id_aplicacao = ? GROUP BY tabela) r "
+            + "FULL JOIN (SELECT tabela, SUM(total) AS total FROM tb_contadores_registros WHERE id_aplicacao = ? GROUP BY tabela) c "
+            + "ON c.tabela = r.tabela "
+            + "WHERE COALESCE(r.total, 0) <> COALESCE(c.total, 0)";
+        String corrigir = "INSERT INTO tb_contadores_registros (id_aplicacao, tabela, fatia, total) VALUES (?, ?, ?, ?) "
+            + "ON CONFLICT (id_aplicacao, tabela, fatia) DO UPDATE SET total = tb_contadores_registros.total + EXCLUDED.total";
+
+        Map<String, Long> deriva = new LinkedHashMap<>();
+        try (Connection conexao = obterConexao()) {
+            // O POOL FAZ O ROLLBACK NA DEVOLUÇÃO SE A TRANSAÇÃO NÃO FOR CONFIRMADA
+            conexao.setAutoCommit(false);
+            try (Statement isolamento = conexao.createStatement();
+                 PreparedStatement stmt = conexao.prepareStatement(diferencas)) {
+                // SÓ PARA ESTA TRANSAÇÃO: A CONEXÃO VOLTA AO POOL COM O NÍVEL PADRÃO
+                isolamento.execute("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ");
+                stmt.setInt(1, idAplicacao);
+                stmt.setInt(2, idAplicacao);
+                ResultSet rs = stmt.executeQuery();
+
+                while (rs.next()) {
+                    deriva.put(rs.getString(1), rs.getLong(2));
+                }
+            }
+            conexao.commit();
+            if (deriva.isEmpty()) {
+                return 0;
+            }
+
+            // FORA DO SNAPSHOT (READ COMMITTED): O INCREMENTO ESPERA OS GATILHOS CONCORRENTES EM VEZ DE FALHAR POR SERIALIZAÇÃO
+            conexao.setAutoCommit(true);
+            try (PreparedStatement stmt = conexao.prepareStatement(corrigir)) {
+                for (Map.Entry<String, Long> tabela : deriva.entrySet()) {
+                    stmt.setInt(1, idAplicacao);
+                    stmt.setString(2, tabela.getKey());
+                    stmt.setInt(3, FATIA_RECONCILIACAO);
+                    stmt.setLong(4, tabela.getValue());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            return deriva.size();
+        } catch (SQLException e) {
+            // EX.: APLICAÇÃO EXCLUÍDA DURANTE A RECONCILIAÇÃO (CHAVE ESTRANGEIRA DO CONTADOR)
+            System.err.println("Erro ao reconciliar contadores da aplicação " + idAplicacao + ": " + e.getMessage());
+            return 0;
+        }
+    }
+}
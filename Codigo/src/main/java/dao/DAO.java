@@ -5,46 +5,13 @@ import java.security.*;
 import java.math.*;
 
 public class DAO {
-	protected static Connection conexao;
 	
 	public DAO() {
-		conexao = null;
 	}
 	
-	public boolean conectar() {
-		String driverName = "org.postgresql.Driver";                    
-		String serverName = "localhost";
-		String mydatabase = "db_flexbase";                 
-		int porta = 5432;
-		String url = "jdbc:postgresql://" + serverName + ":" + porta +"/" + mydatabase;
-		String username = "postgres";
-		String password = "postgres";
-		boolean status = false;
-
-		try {
-			Class.forName(driverName);
-			conexao = DriverManager.getConnection(url, username, password);
-			status = (conexao == null);
-			System.out.println("CONECTADO AO POSTGRESQL");
-		} catch (ClassNotFoundException e) { 
-			System.err.println("Conexão NÃO efetuada com o postgres -- Driver não encontrado -- " + e.getMessage());
-		} catch (SQLException e) {
-			System.err.println("Conexão NÃO efetuada com o postgres -- " + e.getMessage());
-		}
-
-		return status;
-	}
-	
-	public boolean close() {
-		boolean status = false;
-		
-		try {
-			conexao.close();
-			status = true;
-		} catch (SQLException e) {
-			System.err.println(e.getMessage());
-		}
-		return status;
+	// PEGA UMA CONEXÃO DO POOL; QUEM CHAMA DEVE FECHAR (try-with-resources) PARA DEVOLVÊ-LA
+	protected Connection obterConexao() throws SQLException {
+		return PoolConexoes.getInstancia().obterConexao();
 	}
 	
 	public static String toMD5(String senha) throws Exception {
@@ -3,6 +3,7 @@ package dao;
 import model.Endpoint;
 import filterDTO.EndpointFilterDTO;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -10,41 +11,72 @@ import java.util.List;
 import java.util.ArrayList;
 
 public class EndpointDAO extends DAO {
+    // LISTAGENS JÁ TRAZEM O NOME DA APLICAÇÃO, SEM UMA BUSCA POR ENDPOINT NA MONTAGEM DA RESPOSTA
+    private static final String SELECT_COM_APLICACAO = "SELECT e.id, e.id_aplicacao, e.rota, e.query, e.metodo, e.gerado, a.nome AS nome_aplicacao "
+        + "FROM tb_endpoints e LEFT JOIN tb_aplicacao a ON a.id = e.id_aplicacao";
+
     public EndpointDAO() {
         super();
-        conectar();
     }
 
     public boolean inserir(Endpoint endpoint) {
-        String query = "INSERT INTO tb_endpoints (id_aplicacao, rota, query, metodo) VALUES (?, ?, ?, ?)";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao()) {
+            return inserir(conexao, endpoint);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private boolean inserir(Connection conexao, Endpoint endpoint) throws SQLException {
+        String query = "INSERT INTO tb_endpoints (id_aplicacao, rota, query, metodo, gerado) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setInt(1, endpoint.getIdAplicacao());
             stmt.setString(2, endpoint.getRota());
             stmt.setString(3, endpoint.getQuery());
             stmt.setInt(4, endpoint.getMetodo());
+            stmt.setBoolean(5, endpoint.isGerado());
             return stmt.executeUpdate() > 0;
+        }
+    }
+
+    // ENDPOINT GERADO A PARTIR DO schema_banco: ATUALIZA A QUERY DA MESMA ROTA E MÉTODO SE JÁ EXISTIR (SENÃO INSERE)
+    // GERAR DE NOVO TROCA AS QUERIES EM VEZ DE DUPLICAR OS ENDPOINTS (NA ROTA REPETIDA VALERIA SÓ O PRIMEIRO)
+    // O ENDPOINT PASSA A SER MARCADO COMO GERADO (TAMBÉM OS SALVOS ANTES DA MARCAÇÃO, AO GERAR DE NOVO)
+    public boolean salvarGerado(Endpoint endpoint) {
+        try (Connection conexao = obterConexao()) {
+            return salvarGerado(conexao, endpoint);
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
         }
     }
 
+    // NA CONEXÃO (E NA TRANSAÇÃO) DE QUEM CHAMA: EX.: A TROCA DE MODO DE ARMAZENAMENTO EM TabelasNativasDAO
+    public boolean salvarGerado(Connection conexao, Endpoint endpoint) throws SQLException {
+        endpoint.setGerado(true);
+        String query = "UPDATE tb_endpoints SET query = ?, gerado = TRUE WHERE id_aplicacao = ? AND rota = ? AND metodo = ?";
+        try (PreparedStatement stmt = conexao.prepareStatement(query)) {
+            stmt.setString(1, endpoint.getQuery());
+            stmt.setInt(2, endpoint.getIdAplicacao());
+            stmt.setString(3, endpoint.getRota());
+            stmt.setInt(4, endpoint.getMetodo());
+            if (stmt.executeUpdate() > 0) {
+                return true;
+            }
+        }
+        return inserir(conexao, endpoint);
+    }
+
     public Endpoint buscarPorId(int id) {
         String query = "SELECT * FROM tb_endpoints WHERE id = ?";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
-                return new Endpoint(
-                    rs.getInt("id"),
-                    rs.getInt("id_aplicacao"),
-                    rs.getString("rota"),
-                    rs.getString("query"),
-                    rs.getInt("metodo")
-                );
+                return mapearEndpoint(rs);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -53,43 +85,26 @@ public class EndpointDAO extends DAO {
     }
 
     public List<Endpoint> listarTodos() {
-        String query = "SELECT * FROM tb_endpoints";
-        List<Endpoint> endpoints = new ArrayList<>();
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
-            ResultSet rs = stmt.executeQuery();
+        return listarComAplicacao(SELECT_COM_APLICACAO + " ORDER BY e.id", new ArrayList<>());
+    }
 
-            while (rs.next()) {
-                endpoints.add(new Endpoint(
-                    rs.getInt("id"),
-                    rs.getInt("id_aplicacao"),
-                    rs.getString("rota"),
-                    rs.getString("query"),
-                    rs.getInt("metodo")
-                ));
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return endpoints;
+    // ENDPOINTS DAS APLICAÇÕES DO USUÁRIO: O FILTRO DE DONO FICA NO SQL, NÃO NA MONTAGEM DA RESPOSTA
+    public List<Endpoint> listarPorUsuario(int idUsuario) {
+        List<Object> parametros = new ArrayList<>();
+        parametros.add(idUsuario);
+        return listarComAplicacao(SELECT_COM_APLICACAO + " WHERE a.id_usuario = ? ORDER BY e.id", parametros);
     }
 
     public List<Endpoint> buscarPorAplicacao(int idAplicacao) {
         String query = "SELECT * FROM tb_endpoints WHERE id_aplicacao = ?";
         List<Endpoint> endpoints = new ArrayList<>();
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setInt(1, idAplicacao);
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
-                endpoints.add(new Endpoint(
-                    rs.getInt("id"),
-                    rs.getInt("id_aplicacao"),
-                    rs.getString("rota"),
-                    rs.getString("query"),
-                    rs.getInt("metodo")
-                ));
+                endpoints.add(mapearEndpoint(rs));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -98,42 +113,42 @@ public class EndpointDAO extends DAO {
     }
 
     public List<Endpoint> buscarComFiltro(EndpointFilterDTO filtro) {
-        StringBuilder query = new StringBuilder("SELECT * FROM tb_endpoints WHERE 1=1");
+        StringBuilder query = new StringBuilder(SELECT_COM_APLICACAO + " WHERE 1=1");
         List<Object> parametros = new ArrayList<>();
 
         if (filtro.getId() != null) {
-            query.append(" AND id = ?");
+            query.append(" AND e.id = ?");
             parametros.add(filtro.getId());
         }
         if (filtro.getIdAplicacao() != null) {
-            query.append(" AND id_aplicacao = ?");
+            query.append(" AND e.id_aplicacao = ?");
             parametros.add(filtro.getIdAplicacao());
         }
         if (filtro.getRota() != null && !filtro.getRota().isEmpty()) {
-            query.append(" AND rota ILIKE ?");
+            query.append(" AND e.rota ILIKE ?");
             parametros.add("%" + filtro.getRota() + "%");
         }
         if (filtro.getMetodo() != null) {
-            query.append(" AND metodo = ?");
+            query.append(" AND e.metodo = ?");
             parametros.add(filtro.getMetodo());
         }
 
+        return listarComAplicacao(query.toString(), parametros);
+    }
+
+    private List<Endpoint> listarComAplicacao(String query, List<Object> parametros) {
         List<Endpoint> endpoints = new ArrayList<>();
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query.toString());
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             for (int i = 0; i < parametros.size(); i++) {
                 stmt.setObject(i + 1, parametros.get(i));
             }
             
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) {
-                endpoints.add(new Endpoint(
-                    rs.getInt("id"),
-                    rs.getInt("id_aplicacao"),
-                    rs.getString("rota"),
-                    rs.getString("query"),
-                    rs.getInt("metodo")
-                ));
+                Endpoint endpoint = mapearEndpoint(rs);
+                endpoint.setNomeAplicacao(rs.getString("nome_aplicacao"));
+                endpoints.add(endpoint);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -143,8 +158,8 @@ public class EndpointDAO extends DAO {
 
     public boolean atualizar(Endpoint endpoint) {
         String query = "UPDATE tb_endpoints SET rota = ?, query = ?, metodo = ? WHERE id = ?";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setString(1, endpoint.getRota());
             stmt.setString(2, endpoint.getQuery());
             stmt.setInt(3, endpoint.getMetodo());
@@ -158,8 +173,8 @@ public class EndpointDAO extends DAO {
 
     public boolean excluir(int id) {
         String query = "DELETE FROM tb_endpoints WHERE id = ?";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setInt(1, id);
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
@@ -170,8 +185,8 @@ public class EndpointDAO extends DAO {
 
     public boolean excluirPorAplicacao(int idAplicacao) {
         String query = "DELETE FROM tb_endpoints WHERE id_aplicacao = ?";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setInt(1, idAplicacao);
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
@@ -179,4 +194,16 @@ public class EndpointDAO extends DAO {
             return false;
         }
     }
+
+    private Endpoint mapearEndpoint(ResultSet rs) throws SQLException {
+        Endpoint endpoint = new Endpoint(
+            rs.getInt("id"),
+            rs.getInt("id_aplicacao"),
+            rs.getString("rota"),
+            rs.getString("query"),
+            rs.getInt("metodo")
+        );
+        endpoint.setGerado(rs.getBoolean("gerado"));
+        return endpoint;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+package dao;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.List;
+
+// GRAVAÇÃO EM LOTE DE DOCUMENTOS DE UMA TABELA DE APLICAÇÃO NA tb_registros, TODA NUMA ÚNICA TRANSAÇÃO
+// CADA BLOCO VAI NUM ÚNICO INSERT (unnest DO ARRAY DE DOCUMENTOS): UMA IDA AO BANCO POR BLOCO, NÃO POR LINHA
+// SEM confirmar() O close() DESFAZ TUDO O QUE FOI GRAVADO (O POOL FAZ O ROLLBACK NA DEVOLUÇÃO)
+public class GravacaoLote implements AutoCloseable {
+    private static final String QUERY = "INSERT INTO tb_registros (tabela, valor, id_aplicacao) "
+        + "SELECT ?, v::jsonb, ? FROM unnest(?::text[]) AS d(v)";
+
+    private final Connection conexao;
+    private final PreparedStatement stmt;
+    private long gravados;
+
+    GravacaoLote(Connection conexao, int idAplicacao, String tabela) throws SQLException {
+        this.conexao = conexao;
+        try {
+            conexao.setAutoCommit(false);
+            this.stmt = conexao.prepareStatement(QUERY);
+            stmt.setString(1, tabela);
+            stmt.setInt(2, idAplicacao);
+        } catch (SQLException e) {
+            conexao.close();
+            throw e;
+        }
+    }
+
+    // GRAVA O BLOCO (DOCUMENTOS JÁ SERIALIZADOS) DENTRO DA TRANSAÇÃO; RETORNA AS LINHAS INSERIDAS
+    public int gravar(List<String> valoresJson) throws SQLException {
+        if (valoresJson.isEmpty()) {
+            return 0;
+        }
+        Array array = conexao.createArrayOf("text", valoresJson.toArray(new String[0]));
+        stmt.setArray(3, array);
+        int linhas = stmt.executeUpdate();
+        array.free();
+        gravados += linhas;
+        return linhas;
+    }
+
+    // REFERÊNCIAS DO BLOCO CONFERIDAS NA CONEXÃO DA PRÓPRIA CARGA, SEM EMPRESTAR OUTRA DO POOL (VER ReferenciaDAO)
+    // DENTRO DA TRANSAÇÃO A CONSULTA ENXERGA TAMBÉM OS DOCUMENTOS GRAVADOS PELOS BLOCOS ANTERIORES
+    // O SAVEPOINT ISOLA UMA FALHA DA CONSULTA, QUE SENÃO ABORTARIA A TRANSAÇÃO E A CARGA INTEIRA
+    public List<long[]> buscarReferenciasInexistentes(int idAplicacao, List<String> tabelas, List<String> campos, List<Long[]> ids) throws SQLException {
+        Savepoint savepoint = conexao.setSavepoint();
+        try {
+            List<long[]> inexistentes = new ReferenciaDAO().buscarInexistentes(conexao, idAplicacao, tabelas, campos, ids);
+            conexao.releaseSavepoint(savepoint);
+            return inexistentes;
+        } catch (SQLException e) {
+            conexao.rollback(savepoint);
+            throw e;
+        }
+    }
+
+    public void confirmar() throws SQLException {
+        conexao.commit();
+    }
+
+    public long getGravados() {
+        return gravados;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            stmt.close();
+        } finally {
+            conexao.close();
+        }
+    }
+}
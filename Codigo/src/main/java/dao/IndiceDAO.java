@@ -0,0 +1,146 @@
+package dao;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// ÍNDICES DE EXPRESSÃO SOBRE A PARTIÇÃO DA APLICAÇÃO NA tb_registros PARA AS TABELAS GERADAS
+// CADA ÍNDICE É PARCIAL (tabela FIXA) E COBRE A CHAVE LÓGICA (valor->>'pk')::BIGINT
+// FICAM NA PARTIÇÃO tb_registros_<aplicacao>: CONCURRENTLY NÃO RODA NA TABELA PARTICIONADA E O ÍNDICE SÓ COBRE A APLICAÇÃO
+public class IndiceDAO extends DAO {
+    // LIMITE DE TAMANHO DE IDENTIFICADOR NO POSTGRESQL
+    private static final int TAMANHO_MAXIMO_NOME = 63;
+    private static final String PREFIXO = "idx_reg_";
+
+    public IndiceDAO() {
+        super();
+    }
+
+    // CRIA O ÍNDICE SE AINDA NÃO EXISTIR; CONCURRENTLY PARA NÃO TRAVAR ESCRITAS NA tb_registros
+    // RETORNA O NOME DO ÍNDICE OU null SE NÃO FOI POSSÍVEL CRIÁ-LO
+    public String garantirIndiceChave(int idAplicacao, String tabela, String campoChave) {
+        String nome = nomeIndice(idAplicacao, tabela, campoChave);
+        // CREATE INDEX CONCURRENTLY NÃO PODE RODAR DENTRO DE TRANSAÇÃO: A CONEXÃO DO POOL JÁ VEM EM AUTOCOMMIT
+        try (Connection conexao = obterConexao();
+             Statement stmt = conexao.createStatement()) {
+            // A PARTIÇÃO JÁ VEM DA CRIAÇÃO DA APLICAÇÃO; SE FALTAR, É CRIADA AQUI (VAZIA)
+            String particao = garantirParticao(conexao, idAplicacao);
+            String query = "CREATE INDEX CONCURRENTLY IF NOT EXISTS " + nome
+                + " ON " + particao + " (((valor->>" + literal(campoChave) + ")::BIGINT))"
+                + " WHERE tabela = " + literal(tabela);
+            // UM CONCURRENTLY QUE FALHOU DEIXA O ÍNDICE INVÁLIDO COM O MESMO NOME, E O IF NOT EXISTS O ACEITARIA
+            if (indiceInvalido(conexao, nome)) {
+                stmt.execute("DROP INDEX CONCURRENTLY IF EXISTS " + nome);
+            }
+            stmt.execute(query);
+            return nome;
+        } catch (SQLException e) {
+            // EX.: REGISTROS ANTIGOS COM CHAVE NÃO NUMÉRICA; OS ENDPOINTS CONTINUAM FUNCIONANDO, SÓ SEM O ÍNDICE
+            System.err.println("Erro ao criar índice " + nome + ": " + e.getMessage());
+            excluirIndice(nome);
+            return null;
+        }
+    }
+
+    // REMOVE OS ÍNDICES DA APLICAÇÃO QUE NÃO ESTÃO EM nomesMantidos (TABELAS REMOVIDAS OU CHAVE TROCADA)
+    public int removerIndicesObsoletos(int idAplicacao, Set<String> nomesMantidos) {
+        int removidos = 0;
+        for (String nome : listarIndices(idAplicacao)) {
+            if (!nomesMantidos.contains(nome) && excluirIndice(nome)) {
+                removidos++;
+            }
+        }
+        return removidos;
+    }
+
+    public List<String> listarIndices(int idAplicacao) {
+        // O PREFIXO TERMINA EM "_": idx_reg_1_ NÃO CASA COM OS ÍNDICES DA APLICAÇÃO 12
+        String prefixo = PREFIXO + idAplicacao + "_";
+        String query = "SELECT indexname FROM pg_indexes WHERE schemaname = current_schema() "
+            + "AND tablename = ? AND left(indexname, ?) = ?";
+        List<String> nomes = new ArrayList<>();
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
+            stmt.setString(1, RegistroDAO.nomeParticao(idAplicacao));
+            stmt.setInt(2, prefixo.length());
+            stmt.setString(3, prefixo);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                nomes.add(rs.getString("indexname"));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return nomes;
+    }
+
+    public boolean excluirIndice(String nome) {
+        try (Connection conexao = obterConexao();
+             Statement stmt = conexao.createStatement()) {
+            stmt.execute("DROP INDEX CONCURRENTLY IF EXISTS " + nome);
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Erro ao remover índice " + nome + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    // NOME DA PARTIÇÃO DA APLICAÇÃO, CRIADA SE AINDA NÃO EXISTIR (VER fn_garantir_particao_registros)
+    private String garantirParticao(Connection conexao, int idAplicacao) throws SQLException {
+        try (PreparedStatement stmt = conexao.prepareStatement("SELECT fn_garantir_particao_registros(?)")) {
+            stmt.setInt(1, idAplicacao);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getString(1) : RegistroDAO.nomeParticao(idAplicacao);
+        }
+    }
+
+    private boolean indiceInvalido(Connection conexao, String nome) throws SQLException {
+        String query = "SELECT NOT i.indisvalid FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid "
+            + "WHERE c.relname = ? AND c.relnamespace = current_schema()::regnamespace";
+        try (PreparedStatement stmt = conexao.prepareStatement(query)) {
+            stmt.setString(1, nome);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    // NOME DETERMINÍSTICO: idx_reg_<aplicacao>_<tabela>_<campo>, COM HASH QUANDO PASSA DO LIMITE OU TEM CARACTERES ESPECIAIS
+    public static String nomeIndice(int idAplicacao, String tabela, String campoChave) {
+        String base = PREFIXO + idAplicacao + "_" + tabela + "_" + campoChave;
+        String sanitizado = base.toLowerCase().replaceAll("[^a-z0-9_]", "_");
+        if (sanitizado.equals(base) && sanitizado.length() <= TAMANHO_MAXIMO_NOME) {
+            return sanitizado;
+        }
+        // SUFIXO COM HASH DO NOME ORIGINAL EVITA COLISÃO ENTRE NOMES QUE SANITIZAM IGUAL
+        String sufixo = "_" + hash(base);
+        int tamanhoBase = Math.min(sanitizado.length(), TAMANHO_MAXIMO_NOME - sufixo.length());
+        return sanitizado.substring(0, tamanhoBase) + sufixo;
+    }
+
+    private static String literal(String valor) {
+        return "'" + valor.replace("'", "''") + "'";
+    }
+
+    private static String hash(String valor) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            byte[] digest = md.digest(valor.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 4; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(valor.hashCode());
+        }
+    }
+}
@@ -3,6 +3,7 @@ package dao;
 import model.Key;
 import filterDTO.KeyFilterDTO;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -13,13 +14,12 @@ import java.util.ArrayList;
 public class KeyDAO extends DAO {
     public KeyDAO() {
         super();
-        conectar();
     }
 
     public boolean inserir(Key key) {
         String query = "INSERT INTO tb_keys (codigo, id_aplicacao, nome, descricao, ativo) VALUES (?, ?, ?, ?, ?) RETURNING id";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setString(1, key.getCodigo());
             stmt.setInt(2, key.getIdAplicacao());
             stmt.setString(3, key.getNome());
@@ -40,8 +40,8 @@ public class KeyDAO extends DAO {
 
     public Key buscarPorId(int id) {
         String query = "SELECT * FROM tb_keys WHERE id = ?";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
 
@@ -69,8 +69,8 @@ public class KeyDAO extends DAO {
 
     public Key buscarPorCodigo(String codigo) {
         String query = "SELECT * FROM tb_keys WHERE codigo = ?";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setString(1, codigo);
             ResultSet rs = stmt.executeQuery();
 
@@ -99,8 +99,8 @@ public class KeyDAO extends DAO {
     public List<Key> buscarPorAplicacao(int idAplicacao) {
         String query = "SELECT * FROM tb_keys WHERE id_aplicacao = ? ORDER BY data_criacao DESC";
         List<Key> keys = new ArrayList<>();
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setInt(1, idAplicacao);
             ResultSet rs = stmt.executeQuery();
 
@@ -154,8 +154,8 @@ public class KeyDAO extends DAO {
         query.append(" ORDER BY data_criacao DESC");
 
         List<Key> keys = new ArrayList<>();
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query.toString());
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query.toString())) {
             for (int i = 0; i < parametros.size(); i++) {
                 stmt.setObject(i + 1, parametros.get(i));
             }
@@ -185,8 +185,8 @@ public class KeyDAO extends DAO {
 
     public boolean atualizar(Key key) {
         String query = "UPDATE tb_keys SET nome = ?, descricao = ?, ativo = ? WHERE id = ?";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setString(1, key.getNome());
             stmt.setString(2, key.getDescricao());
             stmt.setBoolean(3, key.isAtivo());
@@ -200,8 +200,8 @@ public class KeyDAO extends DAO {
 
     public boolean excluir(int id) {
         String query = "DELETE FROM tb_keys WHERE id = ?";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setInt(1, id);
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
@@ -213,8 +213,8 @@ public class KeyDAO extends DAO {
     public List<Integer> buscarEndpointsAssociados(int idKey) {
         String query = "SELECT id_endpoint FROM tb_key_endpoint WHERE id_key = ?";
         List<Integer> endpoints = new ArrayList<>();
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setInt(1, idKey);
             ResultSet rs = stmt.executeQuery();
 
@@ -229,8 +229,8 @@ public class KeyDAO extends DAO {
 
     public boolean associarEndpoint(int idKey, int idEndpoint) {
         String query = "INSERT INTO tb_key_endpoint (id_key, id_endpoint) VALUES (?, ?) ON CONFLICT DO NOTHING";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setInt(1, idKey);
             stmt.setInt(2, idEndpoint);
             return stmt.executeUpdate() >= 0; // ON CONFLICT pode retornar 0
@@ -242,8 +242,8 @@ public class KeyDAO extends DAO {
 
     public boolean desassociarEndpoint(int idKey, int idEndpoint) {
         String query = "DELETE FROM tb_key_endpoint WHERE id_key = ? AND id_endpoint = ?";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setInt(1, idKey);
             stmt.setInt(2, idEndpoint);
             return stmt.executeUpdate() > 0;
@@ -254,27 +254,32 @@ public class KeyDAO extends DAO {
     }
 
     public boolean atualizarEndpointsAssociados(int idKey, List<Integer> endpointsIds) {
-        try {
+        String deleteQuery = "DELETE FROM tb_key_endpoint WHERE id_key = ?";
+        String insertQuery = "INSERT INTO tb_key_endpoint (id_key, id_endpoint) VALUES (?, ?)";
+        try (Connection conexao = obterConexao()) {
+            // Remoção e inserção na mesma transação para a key nunca ficar sem permissões no meio do caminho
+            conexao.setAutoCommit(false);
+
             // Primeiro remove todas as associações existentes
-            String deleteQuery = "DELETE FROM tb_key_endpoint WHERE id_key = ?";
-            PreparedStatement deleteStmt = conexao.prepareStatement(deleteQuery);
-            deleteStmt.setInt(1, idKey);
-            deleteStmt.executeUpdate();
+            try (PreparedStatement deleteStmt = conexao.prepareStatement(deleteQuery)) {
+                deleteStmt.setInt(1, idKey);
+                deleteStmt.executeUpdate();
+            }
 
             // Depois adiciona as novas associações
             if (endpointsIds != null && !endpointsIds.isEmpty()) {
-                String insertQuery = "INSERT INTO tb_key_endpoint (id_key, id_endpoint) VALUES (?, ?)";
-                PreparedStatement insertStmt = conexao.prepareStatement(insertQuery);
-                
-                for (Integer endpointId : endpointsIds) {
-                    insertStmt.setInt(1, idKey);
-                    insertStmt.setInt(2, endpointId);
-                    insertStmt.addBatch();
+                try (PreparedStatement insertStmt = conexao.prepareStatement(insertQuery)) {
+                    for (Integer endpointId : endpointsIds) {
+                        insertStmt.setInt(1, idKey);
+                        insertStmt.setInt(2, endpointId);
+                        insertStmt.addBatch();
+                    }
+                    
+                    insertStmt.executeBatch();
                 }
-                
-                insertStmt.executeBatch();
             }
             
+            conexao.commit();
             return true;
         } catch (SQLException e) {
             e.printStackTrace();
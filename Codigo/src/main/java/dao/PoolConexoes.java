@@ -0,0 +1,294 @@
+package dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import util.Configuracao;
+
+// POOL DE CONEXÕES COMPARTILHADO POR TODOS OS DAOs
+// CADA OPERAÇÃO PEGA UMA CONEXÃO EMPRESTADA E DEVOLVE NO close() (USAR SEMPRE COM try-with-resources)
+public class PoolConexoes {
+    private static final String DRIVER = "org.postgresql.Driver";
+
+    // CONEXÕES QUE FICARAM OCIOSAS POR MENOS TEMPO QUE ISSO NÃO SÃO REVALIDADAS NO EMPRÉSTIMO
+    private static final long VALIDAR_APOS_OCIOSO_MS = 500;
+    private static final int TIMEOUT_VALIDACAO_S = 5;
+    private static final long INTERVALO_MANUTENCAO_MS = 30000;
+
+    private static volatile PoolConexoes instancia;
+
+    private final String url;
+    private final Properties propriedades;
+    private final int tamanhoMaximo;
+    private final int minimoOciosas;
+    private final long tempoEsperaMs;
+    private final long tempoMaximoOciosoMs;
+    private final long tempoMaximoVidaMs;
+    private final long limiteVazamentoMs;
+
+    // LIMITA O NÚMERO DE CONEXÕES EMPRESTADAS AO MESMO TEMPO
+    private final Semaphore permissoes;
+    // LIFO: A CONEXÃO MAIS RECENTE É REUTILIZADA PRIMEIRO E AS ANTIGAS ENVELHECEM ATÉ SEREM DESCARTADAS
+    private final ConcurrentLinkedDeque<ConexaoFisica> ociosas = new ConcurrentLinkedDeque<>();
+    private final Set<ConexaoFisica> emprestadas = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService manutencao;
+    private volatile boolean fechado;
+
+    public static PoolConexoes getInstancia() {
+        if (instancia == null) {
+            synchronized (PoolConexoes.class) {
+                if (instancia == null) {
+                    instancia = new PoolConexoes();
+                }
+            }
+        }
+        return instancia;
+    }
+
+    private PoolConexoes() {
+        try {
+            Class.forName(DRIVER);
+        } catch (ClassNotFoundException e) {
+            System.err.println("Driver do PostgreSQL não encontrado -- " + e.getMessage());
+        }
+
+        // CONFIGURAÇÃO EXTERNA (flexbase.properties / -D / FLEXBASE_*), VER util.Configuracao
+        this.url = Configuracao.getString("db.url", "jdbc:postgresql://localhost:5432/db_flexbase");
+        this.propriedades = new Properties();
+        this.propriedades.setProperty("user", Configuracao.getString("db.usuario", "postgres"));
+        this.propriedades.setProperty("password", Configuracao.getString("db.senha", "postgres"));
+        this.propriedades.setProperty("ApplicationName", "FlexBase");
+        this.tamanhoMaximo = Configuracao.getInt("pool.tamanhoMaximo", 20);
+        this.minimoOciosas = Configuracao.getInt("pool.minimoOciosas", 2);
+        this.tempoEsperaMs = Configuracao.getLong("pool.tempoEsperaMs", 30000);
+        this.tempoMaximoOciosoMs = Configuracao.getLong("pool.tempoMaximoOciosoMs", 10 * 60 * 1000);
+        this.tempoMaximoVidaMs = Configuracao.getLong("pool.tempoMaximoVidaMs", 30 * 60 * 1000);
+        this.limiteVazamentoMs = Configuracao.getLong("pool.limiteVazamentoMs", 60000);
+        this.permissoes = new Semaphore(tamanhoMaximo, true);
+
+        this.manutencao = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "pool-conexoes-manutencao");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.manutencao.scheduleWithFixedDelay(this::executarManutencao,
+            INTERVALO_MANUTENCAO_MS, INTERVALO_MANUTENCAO_MS, TimeUnit.MILLISECONDS);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(this::fechar, "pool-conexoes-shutdown"));
+    }
+
+    // EMPRESTA UMA CONEXÃO DO POOL (ESPERA ATÉ tempoEsperaMs SE TODAS ESTIVEREM EM USO)
+    public Connection obterConexao() throws SQLException {
+        if (fechado) {
+            throw new SQLException("Pool de conexões encerrado");
+        }
+
+        try {
+            if (!permissoes.tryAcquire(tempoEsperaMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Tempo esgotado aguardando conexão livre no pool (" + tamanhoMaximo + " em uso)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompido aguardando conexão do pool", e);
+        }
+
+        try {
+            ConexaoFisica conexao;
+            while ((conexao = ociosas.pollFirst()) != null) {
+                if (expirada(conexao) || !valida(conexao)) {
+                    fecharFisicamente(conexao);
+                    continue;
+                }
+                return emprestar(conexao);
+            }
+            return emprestar(criarConexao());
+        } catch (SQLException | RuntimeException e) {
+            permissoes.release();
+            throw e;
+        }
+    }
+
+    // CONEXÃO FORA DO POOL, PARA QUEM PRECISA SEGURAR UMA SESSÃO O TEMPO TODO (EX.: LISTEN DO BARRAMENTO DE INVALIDAÇÃO)
+    // NÃO CONTA NO LIMITE DO POOL; QUEM ABRE É RESPONSÁVEL POR FECHAR
+    public Connection abrirConexaoDedicada() throws SQLException {
+        return DriverManager.getConnection(url, propriedades);
+    }
+
+    public int getConexoesEmUso() {
+        return emprestadas.size();
+    }
+
+    public int getConexoesOciosas() {
+        return ociosas.size();
+    }
+
+    public void fechar() {
+        fechado = true;
+        manutencao.shutdownNow();
+        ConexaoFisica conexao;
+        while ((conexao = ociosas.pollFirst()) != null) {
+            fecharFisicamente(conexao);
+        }
+    }
+
+    private ConexaoFisica criarConexao() throws SQLException {
+        return new ConexaoFisica(DriverManager.getConnection(url, propriedades));
+    }
+
+    private Connection emprestar(ConexaoFisica conexao) {
+        conexao.emprestadaEm = System.currentTimeMillis();
+        conexao.vazamentoReportado = false;
+        conexao.origemEmprestimo = limiteVazamentoMs > 0 ? new Exception("Conexão emprestada aqui") : null;
+        emprestadas.add(conexao);
+
+        return (Connection) Proxy.newProxyInstance(
+            PoolConexoes.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            new ConexaoEmprestada(conexao));
+    }
+
+    // CHAMADO PELO close() DA CONEXÃO EMPRESTADA
+    private void devolver(ConexaoFisica conexao) {
+        emprestadas.remove(conexao);
+        try {
+            if (fechado || conexao.fisica.isClosed() || expirada(conexao)) {
+                fecharFisicamente(conexao);
+                return;
+            }
+
+            // DESFAZ TRANSAÇÃO ABERTA PARA A PRÓXIMA OPERAÇÃO RECEBER A CONEXÃO LIMPA
+            if (!conexao.fisica.getAutoCommit()) {
+                conexao.fisica.rollback();
+                conexao.fisica.setAutoCommit(true);
+            }
+            conexao.fisica.clearWarnings();
+            conexao.devolvidaEm = System.currentTimeMillis();
+            ociosas.offerFirst(conexao);
+        } catch (SQLException e) {
+            fecharFisicamente(conexao);
+        } finally {
+            permissoes.release();
+        }
+    }
+
+    private boolean expirada(ConexaoFisica conexao) {
+        return tempoMaximoVidaMs > 0 && System.currentTimeMillis() - conexao.criadaEm > tempoMaximoVidaMs;
+    }
+
+    private boolean valida(ConexaoFisica conexao) {
+        if (System.currentTimeMillis() - conexao.devolvidaEm < VALIDAR_APOS_OCIOSO_MS) {
+            return true;
+        }
+        try {
+            return conexao.fisica.isValid(TIMEOUT_VALIDACAO_S);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void fecharFisicamente(ConexaoFisica conexao) {
+        try {
+            conexao.fisica.close();
+        } catch (SQLException e) {
+            System.err.println("Erro ao fechar conexão do pool: " + e.getMessage());
+        }
+    }
+
+    // REMOVE CONEXÕES OCIOSAS HÁ MUITO TEMPO OU VELHAS DEMAIS E REPORTA POSSÍVEIS VAZAMENTOS
+    private void executarManutencao() {
+        try {
+            long agora = System.currentTimeMillis();
+
+            for (ConexaoFisica conexao : ociosas) {
+                boolean ociosaDemais = agora - conexao.devolvidaEm > tempoMaximoOciosoMs && ociosas.size() > minimoOciosas;
+                if ((ociosaDemais || expirada(conexao)) && ociosas.remove(conexao)) {
+                    fecharFisicamente(conexao);
+                }
+            }
+
+            if (limiteVazamentoMs > 0) {
+                for (ConexaoFisica conexao : emprestadas) {
+                    if (!conexao.vazamentoReportado && agora - conexao.emprestadaEm > limiteVazamentoMs) {
+                        conexao.vazamentoReportado = true;
+                        System.err.println("Possível vazamento de conexão: emprestada há " + (agora - conexao.emprestadaEm) + "ms sem ser devolvida");
+                        if (conexao.origemEmprestimo != null) {
+                            conexao.origemEmprestimo.printStackTrace();
+                        }
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static class ConexaoFisica {
+        private final Connection fisica;
+        private final long criadaEm;
+        private volatile long devolvidaEm;
+        private volatile long emprestadaEm;
+        private volatile Exception origemEmprestimo;
+        private volatile boolean vazamentoReportado;
+
+        private ConexaoFisica(Connection fisica) {
+            this.fisica = fisica;
+            this.criadaEm = System.currentTimeMillis();
+            this.devolvidaEm = criadaEm;
+        }
+    }
+
+    // PROXY ENTREGUE AOS DAOs: REPASSA TUDO PARA A CONEXÃO REAL, MAS close() DEVOLVE AO POOL
+    private class ConexaoEmprestada implements InvocationHandler {
+        private final ConexaoFisica conexao;
+        private boolean devolvida;
+
+        private ConexaoEmprestada(ConexaoFisica conexao) {
+            this.conexao = conexao;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            switch (metodo.getName()) {
+                case "close":
+                    if (!devolvida) {
+                        devolvida = true;
+                        devolver(conexao);
+                    }
+                    return null;
+                case "isClosed":
+                    return devolvida || conexao.fisica.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConexaoEmprestada[" + conexao.fisica + "]";
+                default:
+                    break;
+            }
+
+            if (devolvida) {
+                throw new SQLException("Conexão já devolvida ao pool");
+            }
+
+            try {
+                return metodo.invoke(conexao.fisica, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package dao;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+// CONFERE DE UMA VEZ SE OS IDs REFERENCIADOS POR UM DOCUMENTO EXISTEM NAS TABELAS ALVO
+// UM SELECT POR REQUISIÇÃO (OU POR BLOCO DE UMA CARGA EM LOTE): UM RAMO (unnest DOS IDs x tb_registros) POR CAMPO DE REFERÊNCIA, UNIDOS COM UNION ALL
+// TAMBÉM LÊ AS CHAVES EXISTENTES DE UMA TABELA PARA MONTAR OS FILTROS DE BLOOM (VER CacheFiltrosReferencia)
+public class ReferenciaDAO extends DAO {
+    private static final int TAMANHO_LOTE = 10000;
+
+    public ReferenciaDAO() {
+        super();
+    }
+
+    // tabelas/campos/ids SÃO LISTAS PARALELAS, UMA POSIÇÃO POR GRUPO (CAMPO DE REFERÊNCIA)
+    // RETORNA {grupo, id} DE CADA ID QUE NÃO EXISTE (LISTA VAZIA SE TODOS EXISTEM)
+    public List<long[]> buscarInexistentes(int idAplicacao, List<String> tabelas, List<String> campos, List<Long[]> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try (Connection conexao = obterConexao()) {
+            return buscarInexistentes(conexao, idAplicacao, tabelas, campos, ids);
+        }
+    }
+
+    // MESMA CONSULTA NA CONEXÃO DE QUEM JÁ SEGURA UMA (EX.: CARGA EM LOTE), SEM EMPRESTAR OUTRA DO POOL
+    public List<long[]> buscarInexistentes(Connection conexao, int idAplicacao, List<String> tabelas, List<String> campos, List<Long[]> ids) throws SQLException {
+        List<long[]> inexistentes = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return inexistentes;
+        }
+
+        // APLICAÇÃO, TABELA E CAMPO VÃO COMO LITERAIS PARA O PLANEJADOR CASAR OS ÍNDICES PARCIAIS DA CHAVE (VER IndiceDAO)
+        StringBuilder query = new StringBuilder();
+        for (int i = 0; i < ids.size(); i++) {
+            if (i > 0) {
+                query.append(" UNION ALL ");
+            }
+            query.append("SELECT ").append(i).append(" AS grupo, r.id FROM unnest(?::bigint[]) AS r(id)")
+                .append(" WHERE NOT EXISTS (SELECT 1 FROM tb_registros t WHERE t.id_aplicacao = ").append(idAplicacao)
+                .append(" AND t.tabela = ").append(literal(tabelas.get(i)))
+                .append(" AND (t.valor->>").append(literal(campos.get(i))).append(")::BIGINT = r.id)");
+        }
+
+        try (PreparedStatement stmt = conexao.prepareStatement(query.toString())) {
+            for (int i = 0; i < ids.size(); i++) {
+                Array array = conexao.createArrayOf("bigint", ids.get(i));
+                stmt.setArray(i + 1, array);
+            }
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                inexistentes.add(new long[] { rs.getInt("grupo"), rs.getLong("id") });
+            }
+            return inexistentes;
+        }
+    }
+
+    public long contarChaves(int idAplicacao, String tabela, String campo) throws SQLException {
+        String query = "SELECT COUNT(*) FROM tb_registros WHERE " + filtroChaves(idAplicacao, tabela, campo);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    // ENTREGA AS CHAVES NUMÉRICAS DA TABELA UMA A UMA, LIDAS EM LOTES (CURSOR), SEM MONTAR A LISTA EM MEMÓRIA
+    public void listarChaves(int idAplicacao, String tabela, String campo, LongConsumer consumidor) throws SQLException {
+        String query = "SELECT (valor->>" + literal(campo) + ")::BIGINT FROM tb_registros WHERE " + filtroChaves(idAplicacao, tabela, campo);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
+            // O DRIVER SÓ USA CURSOR COM AUTOCOMMIT DESLIGADO (O POOL RELIGA NA DEVOLUÇÃO)
+            conexao.setAutoCommit(false);
+            stmt.setFetchSize(TAMANHO_LOTE);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                consumidor.accept(rs.getLong(1));
+            }
+            conexao.commit();
+        }
+    }
+
+    // SÓ VALORES QUE CABEM EM BIGINT: UM VALOR TEXTUAL NO CAMPO NÃO DERRUBA A LEITURA
+    private static String filtroChaves(int idAplicacao, String tabela, String campo) {
+        return "id_aplicacao = " + idAplicacao + " AND tabela = " + literal(tabela)
+            + " AND valor->>" + literal(campo) + " ~ '^-?[0-9]{1,18}$'";
+    }
+
+    private static String literal(String valor) {
+        return "'" + valor.replace("'", "''") + "'";
+    }
+}
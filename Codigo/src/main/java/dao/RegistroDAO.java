@@ -2,7 +2,10 @@ package dao;
 
 import model.Registro;
 import filterDTO.RegistroFilterDTO;
+import util.Configuracao;
 
+import java.io.IOException;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -10,17 +13,26 @@ import java.util.List;
 import java.util.ArrayList;
 
 public class RegistroDAO extends DAO {
+    // LEITURAS JÁ TRAZEM O NOME DA APLICAÇÃO, SEM UMA BUSCA POR REGISTRO NA MONTAGEM DA RESPOSTA
+    private static final String SELECT_REGISTROS = "SELECT r.id, r.tabela, r.valor, r.id_aplicacao, a.nome AS nome_aplicacao "
+        + "FROM tb_registros r LEFT JOIN tb_aplicacao a ON a.id = r.id_aplicacao";
+    private static final int TAMANHO_LOTE_EXPORTACAO = Math.max(1, Configuracao.getInt("exportacao.tamanhoLoteLeitura", 1000));
+
     public RegistroDAO() {
         super();
-        conectar();
+    }
+
+    // tb_registros É PARTICIONADA POR id_aplicacao: CADA APLICAÇÃO TEM A SUA PARTIÇÃO (AS CONSULTAS CONTINUAM NA tb_registros)
+    public static String nomeParticao(int idAplicacao) {
+        return "tb_registros_" + idAplicacao;
     }
 
     public boolean inserir(Registro registro) {
         String query = "INSERT INTO tb_registros (tabela, valor, id_aplicacao) VALUES (?, ?::jsonb, ?)";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setString(1, registro.getTabela());
-            stmt.setString(2, registro.getValor() != null ? registro.getValor().toString() : null);
+            stmt.setString(2, registro.getValorJson());
             stmt.setInt(3, registro.getIdAplicacao());
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
@@ -29,30 +41,21 @@ public class RegistroDAO extends DAO {
         }
     }
 
+    // CARGA EM LOTE: A CONEXÃO FICA COM A GRAVAÇÃO ATÉ O close() (VER GravacaoLote)
+    public GravacaoLote abrirGravacaoLote(int idAplicacao, String tabela) throws SQLException {
+        return new GravacaoLote(obterConexao(), idAplicacao, tabela);
+    }
+
+    // SÓ PELO id A CONSULTA PROCURA EM TODAS AS PARTIÇÕES; QUEM CONHECE A APLICAÇÃO USA buscarPorId(idAplicacao, id)
     public Registro buscarPorId(int id) {
-        String query = "SELECT * FROM tb_registros WHERE id = ?";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        String query = SELECT_REGISTROS + " WHERE r.id = ?";
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
-                Registro registro = new Registro();
-                registro.setId(rs.getInt("id"));
-                registro.setTabela(rs.getString("tabela"));
-                registro.setIdAplicacao(rs.getInt("id_aplicacao"));
-                
-                String valorJson = rs.getString("valor");
-                if (valorJson != null) {
-                    try {
-                        com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                        registro.setValor(mapper.readTree(valorJson));
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                }
-                
-                return registro;
+                return mapearRegistro(rs);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -60,30 +63,56 @@ public class RegistroDAO extends DAO {
         return null;
     }
 
-    public List<Registro> listarTodos() {
-        String query = "SELECT * FROM tb_registros";
+    // LÊ SÓ A PARTIÇÃO DA APLICAÇÃO (CHAVE PRIMÁRIA (id_aplicacao, id))
+    public Registro buscarPorId(int idAplicacao, int id) {
+        String query = SELECT_REGISTROS + " WHERE r.id_aplicacao = ? AND r.id = ?";
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
+            stmt.setInt(1, idAplicacao);
+            stmt.setInt(2, id);
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+                return mapearRegistro(rs);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    // LISTAGENS PAGINADAS POR CURSOR: REGISTROS COM id > aposId, EM ORDEM DE id, NO MÁXIMO limite LINHAS
+    public List<Registro> listarTodos(long aposId, int limite) {
+        String query = SELECT_REGISTROS + " WHERE r.id > ? ORDER BY r.id LIMIT ?";
         List<Registro> registros = new ArrayList<>();
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
+            stmt.setLong(1, aposId);
+            stmt.setInt(2, limite);
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
-                Registro registro = new Registro();
-                registro.setId(rs.getInt("id"));
-                registro.setTabela(rs.getString("tabela"));
-                registro.setIdAplicacao(rs.getInt("id_aplicacao"));
-                
-                String valorJson = rs.getString("valor");
-                if (valorJson != null) {
-                    try {
-                        com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                        registro.setValor(mapper.readTree(valorJson));
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                }
-                
-                registros.add(registro);
+                registros.add(mapearRegistro(rs));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return registros;
+    }
+
+    // REGISTROS DAS APLICAÇÕES DO USUÁRIO: O FILTRO DE DONO FICA NO SQL, NÃO NA MONTAGEM DA RESPOSTA
+    public List<Registro> listarPorUsuario(int idUsuario, long aposId, int limite) {
+        String query = SELECT_REGISTROS + " WHERE a.id_usuario = ? AND r.id > ? ORDER BY r.id LIMIT ?";
+        List<Registro> registros = new ArrayList<>();
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
+            stmt.setInt(1, idUsuario);
+            stmt.setLong(2, aposId);
+            stmt.setInt(3, limite);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                registros.add(mapearRegistro(rs));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -92,30 +121,34 @@ public class RegistroDAO extends DAO {
     }
 
     public List<Registro> buscarPorAplicacao(int idAplicacao) {
-        String query = "SELECT * FROM tb_registros WHERE id_aplicacao = ?";
+        String query = SELECT_REGISTROS + " WHERE r.id_aplicacao = ?";
         List<Registro> registros = new ArrayList<>();
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setInt(1, idAplicacao);
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
-                Registro registro = new Registro();
-                registro.setId(rs.getInt("id"));
-                registro.setTabela(rs.getString("tabela"));
-                registro.setIdAplicacao(rs.getInt("id_aplicacao"));
-                
-                String valorJson = rs.getString("valor");
-                if (valorJson != null) {
-                    try {
-                        com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                        registro.setValor(mapper.readTree(valorJson));
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                }
-                
-                registros.add(registro);
+                registros.add(mapearRegistro(rs));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return registros;
+    }
+
+    public List<Registro> buscarPorAplicacao(int idAplicacao, long aposId, int limite) {
+        String query = SELECT_REGISTROS + " WHERE r.id_aplicacao = ? AND r.id > ? ORDER BY r.id LIMIT ?";
+        List<Registro> registros = new ArrayList<>();
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
+            stmt.setInt(1, idAplicacao);
+            stmt.setLong(2, aposId);
+            stmt.setInt(3, limite);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                registros.add(mapearRegistro(rs));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -123,31 +156,18 @@ public class RegistroDAO extends DAO {
         return registros;
     }
 
-    public List<Registro> buscarPorTabela(String tabela) {
-        String query = "SELECT * FROM tb_registros WHERE tabela = ?";
+    public List<Registro> buscarPorTabela(String tabela, long aposId, int limite) {
+        String query = SELECT_REGISTROS + " WHERE r.tabela = ? AND r.id > ? ORDER BY r.id LIMIT ?";
         List<Registro> registros = new ArrayList<>();
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setString(1, tabela);
+            stmt.setLong(2, aposId);
+            stmt.setInt(3, limite);
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
-                Registro registro = new Registro();
-                registro.setId(rs.getInt("id"));
-                registro.setTabela(rs.getString("tabela"));
-                registro.setIdAplicacao(rs.getInt("id_aplicacao"));
-                
-                String valorJson = rs.getString("valor");
-                if (valorJson != null) {
-                    try {
-                        com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                        registro.setValor(mapper.readTree(valorJson));
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                }
-                
-                registros.add(registro);
+                registros.add(mapearRegistro(rs));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -155,48 +175,64 @@ public class RegistroDAO extends DAO {
         return registros;
     }
 
-    public List<Registro> buscarComFiltro(RegistroFilterDTO filtro) {
-        StringBuilder query = new StringBuilder("SELECT * FROM tb_registros WHERE 1=1");
+    // EXPORTAÇÃO: ENTREGA OS REGISTROS DA APLICAÇÃO (OU SÓ DE tabela) UM A UM, LIDOS EM LOTES (CURSOR)
+    // SEM MONTAR A LISTA EM MEMÓRIA: O CONSUMO DE HEAP NÃO DEPENDE DO TAMANHO DA APLICAÇÃO
+    public void percorrerPorAplicacao(int idAplicacao, String tabela, ConsumidorRegistro consumidor) throws SQLException, IOException {
+        String query = "SELECT id, tabela, valor FROM tb_registros WHERE id_aplicacao = ?"
+            + (tabela != null ? " AND tabela = ?" : "") + " ORDER BY id";
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
+            stmt.setInt(1, idAplicacao);
+            if (tabela != null) {
+                stmt.setString(2, tabela);
+            }
+            // O DRIVER SÓ USA CURSOR COM AUTOCOMMIT DESLIGADO (O POOL RELIGA NA DEVOLUÇÃO)
+            conexao.setAutoCommit(false);
+            stmt.setFetchSize(TAMANHO_LOTE_EXPORTACAO);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Registro registro = new Registro();
+                    registro.setId(rs.getInt("id"));
+                    registro.setTabela(rs.getString("tabela"));
+                    registro.setIdAplicacao(idAplicacao);
+                    registro.setValorJson(rs.getString("valor"));
+                    consumidor.aceitar(registro);
+                }
+            }
+            conexao.commit();
+        }
+    }
+
+    public List<Registro> buscarComFiltro(RegistroFilterDTO filtro, long aposId, int limite) {
+        StringBuilder query = new StringBuilder(SELECT_REGISTROS + " WHERE 1=1");
         List<Object> parametros = new ArrayList<>();
 
         if (filtro.getId() != null) {
-            query.append(" AND id = ?");
+            query.append(" AND r.id = ?");
             parametros.add(filtro.getId());
         }
         if (filtro.getTabela() != null && !filtro.getTabela().isEmpty()) {
-            query.append(" AND tabela = ?");
+            query.append(" AND r.tabela = ?");
             parametros.add(filtro.getTabela());
         }
         if (filtro.getIdAplicacao() != null) {
-            query.append(" AND id_aplicacao = ?");
+            query.append(" AND r.id_aplicacao = ?");
             parametros.add(filtro.getIdAplicacao());
         }
+        query.append(" AND r.id > ? ORDER BY r.id LIMIT ?");
+        parametros.add(aposId);
+        parametros.add(limite);
 
         List<Registro> registros = new ArrayList<>();
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query.toString());
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query.toString())) {
             for (int i = 0; i < parametros.size(); i++) {
                 stmt.setObject(i + 1, parametros.get(i));
             }
             
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) {
-                Registro registro = new Registro();
-                registro.setId(rs.getInt("id"));
-                registro.setTabela(rs.getString("tabela"));
-                registro.setIdAplicacao(rs.getInt("id_aplicacao"));
-                
-                String valorJson = rs.getString("valor");
-                if (valorJson != null) {
-                    try {
-                        com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                        registro.setValor(mapper.readTree(valorJson));
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                }
-                
-                registros.add(registro);
+                registros.add(mapearRegistro(rs));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -204,13 +240,15 @@ public class RegistroDAO extends DAO {
         return registros;
     }
 
+    // O REGISTRO CONTINUA NA MESMA APLICAÇÃO: id_aplicacao SÓ LOCALIZA A PARTIÇÃO
     public boolean atualizar(Registro registro) {
-        String query = "UPDATE tb_registros SET tabela = ?, valor = ?::jsonb WHERE id = ?";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        String query = "UPDATE tb_registros SET tabela = ?, valor = ?::jsonb WHERE id_aplicacao = ? AND id = ?";
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setString(1, registro.getTabela());
-            stmt.setString(2, registro.getValor() != null ? registro.getValor().toString() : null);
-            stmt.setInt(3, registro.getId());
+            stmt.setString(2, registro.getValorJson());
+            stmt.setInt(3, registro.getIdAplicacao());
+            stmt.setInt(4, registro.getId());
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
             e.printStackTrace();
@@ -218,11 +256,12 @@ public class RegistroDAO extends DAO {
         }
     }
 
-    public boolean excluir(int id) {
-        String query = "DELETE FROM tb_registros WHERE id = ?";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
-            stmt.setInt(1, id);
+    public boolean excluir(int idAplicacao, int id) {
+        String query = "DELETE FROM tb_registros WHERE id_aplicacao = ? AND id = ?";
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
+            stmt.setInt(1, idAplicacao);
+            stmt.setInt(2, id);
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
             e.printStackTrace();
@@ -232,8 +271,8 @@ public class RegistroDAO extends DAO {
 
     public boolean excluirPorAplicacao(int idAplicacao) {
         String query = "DELETE FROM tb_registros WHERE id_aplicacao = ?";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setInt(1, idAplicacao);
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
@@ -242,36 +281,24 @@ public class RegistroDAO extends DAO {
         }
     }
     
-    public int contarPorAplicacao(int idAplicacao) {
-        String query = "SELECT COUNT(*) FROM tb_registros WHERE id_aplicacao = ?";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
-            stmt.setInt(1, idAplicacao);
-            ResultSet rs = stmt.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return 0;
+    // IDs LÓGICOS VÊM EM BLOCOS RESERVADOS NA tb_sequences (VER AlocadorIds); SEM FALLBACK PARA NÃO REPETIR ID
+    public long obterProximoId(int idAplicacao, String tabela) throws SQLException {
+        return AlocadorIds.getInstancia().proximoId(idAplicacao, tabela);
     }
-    
-    public long obterProximoId(int idAplicacao, String tabela) {
-        String query = "SELECT fn_next_id(?, ?)";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
-            stmt.setInt(1, idAplicacao);
-            stmt.setString(2, tabela);
-            ResultSet rs = stmt.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getLong(1);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return 1; // Fallback para 1 se houver erro
+
+    // O JSON DE valor É GUARDADO COMO TEXTO; SÓ VIRA ÁRVORE SE ALGUÉM PRECISAR INSPECIONAR O DOCUMENTO
+    private Registro mapearRegistro(ResultSet rs) throws SQLException {
+        Registro registro = new Registro();
+        registro.setId(rs.getInt("id"));
+        registro.setTabela(rs.getString("tabela"));
+        registro.setIdAplicacao(rs.getInt("id_aplicacao"));
+        registro.setValorJson(rs.getString("valor"));
+        registro.setNomeAplicacao(rs.getString("nome_aplicacao"));
+        return registro;
+    }
+
+    // RECEBE CADA REGISTRO LIDO PELO CURSOR; PODE ESCREVER DIRETO NA RESPOSTA
+    public interface ConsumidorRegistro {
+        void aceitar(Registro registro) throws IOException;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,412 @@
+package dao;
+
+import util.RegraCampo;
+import util.SchemaCompilado;
+import util.TabelaSchema;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import model.Endpoint;
+
+// MODO DE ARMAZENAMENTO "nativo": CADA TABELA DO schema_banco É UMA TABELA POSTGRES NO SCHEMA app_<aplicacao>,
+// COM COLUNAS TIPADAS, CHAVE PRIMÁRIA E CHAVES ESTRANGEIRAS DOS relacionamentos
+// MUDANÇAS NO schema_banco VIRAM ALTER TABLE; A TROCA DE MODO COPIA OS DADOS ENTRE tb_registros E AS TABELAS
+// DDL, CÓPIA, O NOVO schema_banco E OS ENDPOINTS GERADOS NUMA ÚNICA TRANSAÇÃO: SE ALGO FALHA (EX.: VALOR QUE NÃO CONVERTE
+// PARA O TIPO), NADA MUDA
+public class TabelasNativasDAO extends DAO {
+    // LIMITE DE TAMANHO DE IDENTIFICADOR NO POSTGRESQL
+    private static final int TAMANHO_MAXIMO_NOME = 63;
+    // CHAVE PRIMÁRIA DAS TABELAS SEM CHAVE DECLARADA (O MESMO PADRÃO DOS ENDPOINTS GERADOS NO MODO JSONB)
+    public static final String COLUNA_CHAVE_PADRAO = "id";
+
+    // TIPOS NA FORMA DEVOLVIDA POR format_type(): A COMPARAÇÃO COM AS COLUNAS EXISTENTES É DIRETA
+    private static final String TIPO_TEXTO = "text";
+    private static final String TIPO_INTEIRO = "bigint";
+
+    public TabelasNativasDAO() {
+        super();
+    }
+
+    public static String nomeSchema(int idAplicacao) {
+        return "app_" + idAplicacao;
+    }
+
+    // "app_1"."clientes"
+    public static String nomeTabela(int idAplicacao, String tabela) {
+        return identificador(nomeSchema(idAplicacao)) + "." + identificador(tabela);
+    }
+
+    public static String identificador(String nome) {
+        return "\"" + nome.replace("\"", "\"\"") + "\"";
+    }
+
+    // COLUNA DA CHAVE PRIMÁRIA: A PRIMEIRA CHAVE DECLARADA OU, SEM CHAVE, A COLUNA id (PREENCHIDA PELO AlocadorIds)
+    public static String colunaChave(TabelaSchema tabela) {
+        RegraCampo chave = tabela.getChavePrimaria();
+        return chave != null ? chave.getNome() : COLUNA_CHAVE_PADRAO;
+    }
+
+    // COLUNAS DA TABELA NATIVA (NOME -> TIPO), NA ORDEM DOS CAMPOS DO SCHEMA
+    public static Map<String, String> colunas(SchemaCompilado schema, TabelaSchema tabela) {
+        Map<String, String> colunas = new LinkedHashMap<>();
+        if (tabela.getChavePrimaria() == null) {
+            colunas.put(COLUNA_CHAVE_PADRAO, TIPO_INTEIRO);
+        }
+        for (RegraCampo campo : tabela.getCampos()) {
+            colunas.putIfAbsent(campo.getNome(), tipoColuna(schema, campo));
+        }
+        return colunas;
+    }
+
+    // TIPOS DO EDITOR DE BANCO; CHAVES E REFERÊNCIAS A CHAVES SÃO SEMPRE BIGINT (IDs DO AlocadorIds)
+    private static String tipoColuna(SchemaCompilado schema, RegraCampo campo) {
+        if (campo.isChave() || isChaveEstrangeira(schema, campo)) {
+            return TIPO_INTEIRO;
+        }
+        switch (campo.getTipo()) {
+            case "integer":
+                return TIPO_INTEIRO;
+            case "number":
+            case "decimal":
+                return "numeric";
+            case "boolean":
+                return "boolean";
+            case "date":
+                return "date";
+            case "datetime":
+                return "timestamp without time zone";
+            default:
+                // string, text, email, url, criptografia E TIPOS DESCONHECIDOS
+                return TIPO_TEXTO;
+        }
+    }
+
+    // REFERÊNCIA À CHAVE PRIMÁRIA DA TABELA ALVO: VIRA FOREIGN KEY (A OUTROS CAMPOS NÃO HÁ UNICIDADE PARA REFERENCIAR)
+    private static boolean isChaveEstrangeira(SchemaCompilado schema, RegraCampo campo) {
+        if (!campo.isReferencia()) {
+            return false;
+        }
+        TabelaSchema alvo = schema.getTabela(campo.getTabelaReferenciada());
+        return alvo != null && colunaChave(alvo).equals(campo.getCampoReferenciado());
+    }
+
+    // APLICA O schema NAS TABELAS NATIVAS, GRAVA O NOVO schema_banco E OS endpoints GERADOS, NUMA ÚNICA TRANSAÇÃO
+    // schema NATIVO: CRIA/ALTERA AS TABELAS; SE A APLICAÇÃO ESTAVA NO MODO JSONB, MOVE OS DOCUMENTOS DA tb_registros PARA ELAS
+    // schema JSONB COM A APLICAÇÃO NO MODO NATIVO: MOVE AS LINHAS DE VOLTA PARA A tb_registros E REMOVE O SCHEMA app_<id>
+    // NA TROCA DE MODO A ORIGEM DOS DADOS FICA TRAVADA PARA ESCRITA ATÉ O COMMIT: UMA GRAVAÇÃO PELOS ENDPOINTS ANTIGOS
+    // ENTRE A CÓPIA E A REMOVIDA SE PERDERIA; AS LEITURAS CONTINUAM
+    public void aplicar(int idAplicacao, SchemaCompilado schema, boolean eraNativo, String schemaBancoJson,
+                        List<Endpoint> endpoints) throws SQLException {
+        try (Connection conexao = obterConexao();
+             Statement stmt = conexao.createStatement()) {
+            // O POOL FAZ O ROLLBACK NA DEVOLUÇÃO SE A TRANSAÇÃO NÃO FOR CONFIRMADA
+            conexao.setAutoCommit(false);
+
+            if (schema.isNativo() && !eraNativo) {
+                travarParticao(conexao, stmt, idAplicacao);
+            } else if (!schema.isNativo() && eraNativo) {
+                travarTabelas(stmt, idAplicacao, listarTabelas(conexao, idAplicacao));
+            }
+
+            if (schema.isNativo()) {
+                for (TabelaSchema tabela : schema.getTabelas()) {
+                    validarNome(tabela.getNome());
+                    for (RegraCampo campo : tabela.getCampos()) {
+                        validarNome(campo.getNome());
+                    }
+                }
+                stmt.execute("CREATE SCHEMA IF NOT EXISTS " + identificador(nomeSchema(idAplicacao)));
+                for (TabelaSchema tabela : schema.getTabelas()) {
+                    migrarTabela(conexao, stmt, idAplicacao, schema, tabela);
+                }
+                if (!eraNativo) {
+                    for (TabelaSchema tabela : schema.getTabelas()) {
+                        copiarDosDocumentos(conexao, stmt, idAplicacao, schema, tabela);
+                    }
+                }
+                // DEPOIS DA CÓPIA: CADA FOREIGN KEY NOVA CONFERE AS LINHAS QUE JÁ EXISTEM
+                sincronizarChavesEstrangeiras(conexao, stmt, idAplicacao, schema);
+            } else if (eraNativo) {
+                for (String tabela : listarTabelas(conexao, idAplicacao)) {
+                    stmt.executeUpdate("INSERT INTO tb_registros (tabela, valor, id_aplicacao) SELECT " + literal(tabela)
+                        + ", to_jsonb(t), " + idAplicacao + " FROM " + nomeTabela(idAplicacao, tabela) + " t");
+                }
+                stmt.execute("DROP SCHEMA IF EXISTS " + identificador(nomeSchema(idAplicacao)) + " CASCADE");
+            }
+
+            try (PreparedStatement atualizar = conexao.prepareStatement("UPDATE tb_aplicacao SET schema_banco = ?::jsonb WHERE id = ?")) {
+                atualizar.setString(1, schemaBancoJson);
+                atualizar.setInt(2, idAplicacao);
+                atualizar.executeUpdate();
+            }
+            // OS ENDPOINTS DO NOVO MODO VALEM A PARTIR DO MESMO COMMIT QUE MOVE OS DADOS
+            EndpointDAO endpointDAO = new EndpointDAO();
+            for (Endpoint endpoint : endpoints) {
+                endpointDAO.salvarGerado(conexao, endpoint);
+            }
+            conexao.commit();
+        }
+    }
+
+    // APLICAÇÃO EXCLUÍDA: AS TABELAS NATIVAS SAEM JUNTO (NO MODO JSONB O SCHEMA NÃO EXISTE E NADA ACONTECE)
+    public boolean excluirSchema(int idAplicacao) {
+        try (Connection conexao = obterConexao();
+             Statement stmt = conexao.createStatement()) {
+            stmt.execute("DROP SCHEMA IF EXISTS " + identificador(nomeSchema(idAplicacao)) + " CASCADE");
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // CREATE TABLE NA PRIMEIRA VEZ; DEPOIS, ALTER TABLE PARA CADA DIFERENÇA ENTRE O SCHEMA E AS COLUNAS EXISTENTES
+    // TABELAS QUE SAEM DO schema_banco SÃO MANTIDAS (COMO OS DOCUMENTOS DELAS NO MODO JSONB); CAMPOS REMOVIDOS SÃO EXCLUÍDOS
+    private void migrarTabela(Connection conexao, Statement stmt, int idAplicacao, SchemaCompilado schema, TabelaSchema tabela) throws SQLException {
+        String nome = nomeTabela(idAplicacao, tabela.getNome());
+        String chave = colunaChave(tabela);
+        Map<String, String> desejadas = colunas(schema, tabela);
+        Map<String, String> existentes = colunasExistentes(conexao, nome);
+
+        if (existentes.isEmpty()) {
+            StringBuilder ddl = new StringBuilder("CREATE TABLE ").append(nome).append(" (");
+            for (Map.Entry<String, String> coluna : desejadas.entrySet()) {
+                ddl.append(identificador(coluna.getKey())).append(' ').append(coluna.getValue()).append(", ");
+            }
+            ddl.append("PRIMARY KEY (").append(identificador(chave)).append("))");
+            stmt.execute(ddl.toString());
+            return;
+        }
+
+        for (Map.Entry<String, String> coluna : desejadas.entrySet()) {
+            String tipoAtual = existentes.get(coluna.getKey());
+            String colunaSql = identificador(coluna.getKey());
+            if (tipoAtual == null) {
+                stmt.execute("ALTER TABLE " + nome + " ADD COLUMN " + colunaSql + " " + coluna.getValue());
+            } else if (!tipoAtual.equals(coluna.getValue())) {
+                stmt.execute("ALTER TABLE " + nome + " ALTER COLUMN " + colunaSql + " TYPE " + coluna.getValue()
+                    + " USING " + colunaSql + "::" + coluna.getValue());
+            }
+        }
+        for (String coluna : existentes.keySet()) {
+            if (!desejadas.containsKey(coluna)) {
+                stmt.execute("ALTER TABLE " + nome + " DROP COLUMN " + identificador(coluna) + " CASCADE");
+            }
+        }
+
+        // CHAVE PRIMÁRIA TROCADA (OU PERDIDA JUNTO COM A COLUNA REMOVIDA)
+        String[] chaveAtual = chavePrimariaExistente(conexao, nome);
+        if (chaveAtual == null || !chave.equals(chaveAtual[1])) {
+            if (chaveAtual != null) {
+                stmt.execute("ALTER TABLE " + nome + " DROP CONSTRAINT " + identificador(chaveAtual[0]) + " CASCADE");
+            }
+            stmt.execute("ALTER TABLE " + nome + " ADD PRIMARY KEY (" + identificador(chave) + ")");
+        }
+    }
+
+    // PARTIÇÃO DA APLICAÇÃO NA tb_registros (CRIADA SE AINDA NÃO EXISTIR) TRAVADA PARA ESCRITA ATÉ O FIM DA TRANSAÇÃO
+    private void travarParticao(Connection conexao, Statement stmt, int idAplicacao) throws SQLException {
+        try (PreparedStatement garantir = conexao.prepareStatement("SELECT fn_garantir_particao_registros(?)")) {
+            garantir.setInt(1, idAplicacao);
+            garantir.executeQuery();
+        }
+        stmt.execute("LOCK TABLE " + RegistroDAO.nomeParticao(idAplicacao) + " IN EXCLUSIVE MODE");
+    }
+
+    // TABELAS NATIVAS DA APLICAÇÃO TRAVADAS PARA ESCRITA ATÉ O FIM DA TRANSAÇÃO
+    private void travarTabelas(Statement stmt, int idAplicacao, List<String> tabelas) throws SQLException {
+        if (tabelas.isEmpty()) {
+            return;
+        }
+        StringBuilder nomes = new StringBuilder();
+        for (String tabela : tabelas) {
+            if (nomes.length() > 0) {
+                nomes.append(", ");
+            }
+            nomes.append(nomeTabela(idAplicacao, tabela));
+        }
+        stmt.execute("LOCK TABLE " + nomes + " IN EXCLUSIVE MODE");
+    }
+
+    // DOCUMENTOS DA TABELA NA tb_registros VIRAM LINHAS TIPADAS (E SAEM DA tb_registros)
+    // UM ÚNICO COMANDO REMOVE E COPIA: O DELETE ... RETURNING ALIMENTA O INSERT, ENTÃO SÓ SAI O QUE FOI COPIADO
+    private void copiarDosDocumentos(Connection conexao, Statement stmt, int idAplicacao, SchemaCompilado schema, TabelaSchema tabela) throws SQLException {
+        String filtro = " FROM tb_registros r WHERE r.id_aplicacao = " + idAplicacao + " AND r.tabela = " + literal(tabela.getNome());
+        Map<String, String> colunas = colunas(schema, tabela);
+
+        // TABELA SEM CHAVE DECLARADA: A COLUNA id RECEBE UM BLOCO DE IDs RESERVADO NA tb_sequences, COMO NO AlocadorIds
+        // (COM A PARTIÇÃO TRAVADA, A CONTAGEM É A MESMA QUANTIDADE QUE O COMANDO ABAIXO MOVE)
+        long primeiroId = 0;
+        if (tabela.getChavePrimaria() == null) {
+            long quantidade;
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*)" + filtro)) {
+                quantidade = rs.next() ? rs.getLong(1) : 0;
+            }
+            if (quantidade == 0) {
+                return;
+            }
+            primeiroId = reservarIds(conexao, idAplicacao, tabela.getNome(), quantidade);
+        }
+
+        StringBuilder nomes = new StringBuilder();
+        StringBuilder valores = new StringBuilder();
+        for (Map.Entry<String, String> coluna : colunas.entrySet()) {
+            if (nomes.length() > 0) {
+                nomes.append(", ");
+                valores.append(", ");
+            }
+            nomes.append(identificador(coluna.getKey()));
+            if (tabela.getChavePrimaria() == null && COLUNA_CHAVE_PADRAO.equals(coluna.getKey())) {
+                valores.append(primeiroId - 1).append(" + ROW_NUMBER() OVER (ORDER BY r.id)");
+            } else {
+                valores.append("(r.valor->>").append(literal(coluna.getKey())).append(")::").append(coluna.getValue());
+            }
+        }
+        stmt.executeUpdate("WITH movidos AS (DELETE" + filtro + " RETURNING r.id, r.valor) "
+            + "INSERT INTO " + nomeTabela(idAplicacao, tabela.getNome()) + " (" + nomes + ") SELECT " + valores + " FROM movidos r");
+    }
+
+    // MESMO CONTRATO DO AlocadorIds: tb_sequences.proximo_id GUARDA O ÚLTIMO ID JÁ ENTREGUE
+    // RETORNA O PRIMEIRO ID DO BLOCO DE quantidade IDs
+    private long reservarIds(Connection conexao, int idAplicacao, String tabela, long quantidade) throws SQLException {
+        String query = "INSERT INTO tb_sequences (id_aplicacao, tabela, proximo_id) VALUES (?, ?, ?) "
+            + "ON CONFLICT (id_aplicacao, tabela) DO UPDATE SET proximo_id = tb_sequences.proximo_id + EXCLUDED.proximo_id "
+            + "RETURNING proximo_id";
+        try (PreparedStatement stmt = conexao.prepareStatement(query)) {
+            stmt.setInt(1, idAplicacao);
+            stmt.setString(2, tabela);
+            stmt.setLong(3, quantidade);
+            ResultSet rs = stmt.executeQuery();
+
+            if (!rs.next()) {
+                throw new SQLException("Não foi possível reservar IDs para " + tabela);
+            }
+            return rs.getLong(1) - quantidade + 1;
+        }
+    }
+
+    // REMOVE AS FOREIGN KEYS QUE NÃO ESTÃO MAIS NO SCHEMA E CRIA AS NOVAS; AS QUE NÃO MUDARAM FICAM (SEM REVALIDAR AS LINHAS)
+    // O NOME DE CADA UMA VEM DA TABELA, DO CAMPO E DO ALVO: TROCAR O ALVO TROCA O NOME
+    private void sincronizarChavesEstrangeiras(Connection conexao, Statement stmt, int idAplicacao, SchemaCompilado schema) throws SQLException {
+        Map<String, String> desejadas = new LinkedHashMap<>();
+        for (TabelaSchema tabela : schema.getTabelas()) {
+            for (RegraCampo campo : tabela.getReferencias()) {
+                if (!isChaveEstrangeira(schema, campo)) {
+                    continue;
+                }
+                String nome = nomeChaveEstrangeira(tabela.getNome(), campo);
+                desejadas.put(tabela.getNome() + "\u0000" + nome, "ALTER TABLE " + nomeTabela(idAplicacao, tabela.getNome())
+                    + " ADD CONSTRAINT " + identificador(nome) + " FOREIGN KEY (" + identificador(campo.getNome()) + ") REFERENCES "
+                    + nomeTabela(idAplicacao, campo.getTabelaReferenciada()) + " (" + identificador(campo.getCampoReferenciado()) + ")");
+            }
+        }
+
+        Set<String> existentes = new HashSet<>();
+        String query = "SELECT cl.relname, co.conname FROM pg_constraint co JOIN pg_class cl ON cl.oid = co.conrelid "
+            + "JOIN pg_namespace n ON n.oid = cl.relnamespace WHERE co.contype = 'f' AND n.nspname = ?";
+        try (PreparedStatement consulta = conexao.prepareStatement(query)) {
+            consulta.setString(1, nomeSchema(idAplicacao));
+            ResultSet rs = consulta.executeQuery();
+            while (rs.next()) {
+                existentes.add(rs.getString(1) + "\u0000" + rs.getString(2));
+            }
+        }
+
+        for (String existente : existentes) {
+            if (!desejadas.containsKey(existente)) {
+                String[] partes = existente.split("\u0000", 2);
+                stmt.execute("ALTER TABLE " + nomeTabela(idAplicacao, partes[0]) + " DROP CONSTRAINT IF EXISTS " + identificador(partes[1]));
+            }
+        }
+        for (Map.Entry<String, String> desejada : desejadas.entrySet()) {
+            if (!existentes.contains(desejada.getKey())) {
+                stmt.execute(desejada.getValue());
+            }
+        }
+    }
+
+    private Map<String, String> colunasExistentes(Connection conexao, String nomeTabela) throws SQLException {
+        String query = "SELECT a.attname, format_type(a.atttypid, a.atttypmod) FROM pg_attribute a "
+            + "WHERE a.attrelid = to_regclass(?) AND a.attnum > 0 AND NOT a.attisdropped ORDER BY a.attnum";
+        Map<String, String> colunas = new LinkedHashMap<>();
+        try (PreparedStatement stmt = conexao.prepareStatement(query)) {
+            stmt.setString(1, nomeTabela);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                colunas.put(rs.getString(1), rs.getString(2));
+            }
+        }
+        return colunas;
+    }
+
+    // {NOME DA RESTRIÇÃO, COLUNA} DA CHAVE PRIMÁRIA, OU null SE A TABELA NÃO TEM
+    private String[] chavePrimariaExistente(Connection conexao, String nomeTabela) throws SQLException {
+        String query = "SELECT co.conname, a.attname FROM pg_constraint co "
+            + "JOIN pg_attribute a ON a.attrelid = co.conrelid AND a.attnum = co.conkey[1] "
+            + "WHERE co.conrelid = to_regclass(?) AND co.contype = 'p'";
+        try (PreparedStatement stmt = conexao.prepareStatement(query)) {
+            stmt.setString(1, nomeTabela);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? new String[] { rs.getString(1), rs.getString(2) } : null;
+        }
+    }
+
+    private List<String> listarTabelas(Connection conexao, int idAplicacao) throws SQLException {
+        List<String> tabelas = new ArrayList<>();
+        try (PreparedStatement stmt = conexao.prepareStatement("SELECT tablename FROM pg_tables WHERE schemaname = ?")) {
+            stmt.setString(1, nomeSchema(idAplicacao));
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                tabelas.add(rs.getString(1));
+            }
+        }
+        return tabelas;
+    }
+
+    // O POSTGRES TRUNCARIA O NOME EM SILÊNCIO E DUAS TABELAS (OU COLUNAS) PODERIAM VIRAR UMA SÓ
+    private static void validarNome(String nome) throws SQLException {
+        if (nome.isEmpty() || nome.getBytes(StandardCharsets.UTF_8).length > TAMANHO_MAXIMO_NOME) {
+            throw new SQLException("Nome inválido para tabela nativa (1 a " + TAMANHO_MAXIMO_NOME + " bytes): " + nome);
+        }
+    }
+
+    // fk_<hash>_<campo>, DENTRO DO LIMITE DE TAMANHO DE IDENTIFICADOR
+    private static String nomeChaveEstrangeira(String tabela, RegraCampo campo) {
+        String nome = "fk_" + hash(tabela + "." + campo.getNome() + "->" + campo.getTabelaReferenciada() + "." + campo.getCampoReferenciado())
+            + "_" + campo.getNome().toLowerCase().replaceAll("[^a-z0-9_]", "_");
+        return nome.length() <= TAMANHO_MAXIMO_NOME ? nome : nome.substring(0, TAMANHO_MAXIMO_NOME);
+    }
+
+    private static String literal(String valor) {
+        return "'" + valor.replace("'", "''") + "'";
+    }
+
+    private static String hash(String valor) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            byte[] digest = md.digest(valor.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 4; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(valor.hashCode());
+        }
+    }
+}
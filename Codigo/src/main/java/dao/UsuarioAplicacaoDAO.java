@@ -1,24 +1,23 @@
 package dao;
 
 import model.UsuarioAplicacao;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import util.Json;
 import com.fasterxml.jackson.databind.JsonNode;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 
 public class UsuarioAplicacaoDAO extends DAO {
-    private ObjectMapper objectMapper = new ObjectMapper();
     
     public UsuarioAplicacaoDAO() {
         super();
-        conectar();
     }
 
     public UsuarioAplicacao buscarPorUsuarioEAplicacao(Integer idUsuario, Integer idAplicacao) {
         String sql = "SELECT * FROM tb_usuario_aplicacao WHERE id_usuario = ? AND id_aplicacao = ?";
         
-        try (PreparedStatement stmt = conexao.prepareStatement(sql)) {
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(sql)) {
             
             stmt.setInt(1, idUsuario);
             stmt.setInt(2, idAplicacao);
@@ -40,7 +39,8 @@ public class UsuarioAplicacaoDAO extends DAO {
         String sql = "INSERT INTO tb_usuario_aplicacao (id_usuario, id_aplicacao, id_key, dados_usuario) " +
                      "VALUES (?, ?, ?, ?::jsonb) RETURNING *";
         
-        try (PreparedStatement stmt = conexao.prepareStatement(sql)) {
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(sql)) {
             
             stmt.setInt(1, usuarioAplicacao.getIdUsuario());
             stmt.setInt(2, usuarioAplicacao.getIdAplicacao());
@@ -69,7 +69,8 @@ public class UsuarioAplicacaoDAO extends DAO {
         String sql = "SELECT * FROM tb_usuario_aplicacao WHERE id_usuario = ? AND ativo = true";
         List<UsuarioAplicacao> lista = new ArrayList<>();
         
-        try (PreparedStatement stmt = conexao.prepareStatement(sql)) {
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(sql)) {
             
             stmt.setInt(1, idUsuario);
             
@@ -90,7 +91,8 @@ public class UsuarioAplicacaoDAO extends DAO {
         String sql = "SELECT * FROM tb_usuario_aplicacao WHERE id_aplicacao = ? AND ativo = true";
         List<UsuarioAplicacao> lista = new ArrayList<>();
         
-        try (PreparedStatement stmt = conexao.prepareStatement(sql)) {
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(sql)) {
             
             stmt.setInt(1, idAplicacao);
             
@@ -111,7 +113,8 @@ public class UsuarioAplicacaoDAO extends DAO {
         String sql = "SELECT * FROM tb_usuario_aplicacao WHERE id_aplicacao = ?";
         List<UsuarioAplicacao> lista = new ArrayList<>();
         
-        try (PreparedStatement stmt = conexao.prepareStatement(sql)) {
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(sql)) {
             
             stmt.setInt(1, idAplicacao);
             
@@ -131,7 +134,8 @@ public class UsuarioAplicacaoDAO extends DAO {
     public boolean atualizarDados(Integer id, JsonNode dadosUsuario) {
         String sql = "UPDATE tb_usuario_aplicacao SET dados_usuario = ?::jsonb WHERE id = ?";
         
-        try (PreparedStatement stmt = conexao.prepareStatement(sql)) {
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(sql)) {
             
             if (dadosUsuario != null) {
                 stmt.setString(1, dadosUsuario.toString());
@@ -152,7 +156,8 @@ public class UsuarioAplicacaoDAO extends DAO {
     public boolean desativar(Integer id) {
         String sql = "UPDATE tb_usuario_aplicacao SET ativo = false WHERE id = ?";
         
-        try (PreparedStatement stmt = conexao.prepareStatement(sql)) {
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(sql)) {
             
             stmt.setInt(1, id);
             
@@ -168,7 +173,8 @@ public class UsuarioAplicacaoDAO extends DAO {
     public boolean alterarKey(Integer id, Integer novaIdKey) {
         String sql = "UPDATE tb_usuario_aplicacao SET id_key = ? WHERE id = ?";
         
-        try (PreparedStatement stmt = conexao.prepareStatement(sql)) {
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(sql)) {
             
             stmt.setInt(1, novaIdKey);
             stmt.setInt(2, id);
@@ -185,7 +191,8 @@ public class UsuarioAplicacaoDAO extends DAO {
     public boolean alterarStatus(Integer id, boolean ativo) {
         String sql = "UPDATE tb_usuario_aplicacao SET ativo = ? WHERE id = ?";
         
-        try (PreparedStatement stmt = conexao.prepareStatement(sql)) {
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(sql)) {
             
             stmt.setBoolean(1, ativo);
             stmt.setInt(2, id);
@@ -202,7 +209,8 @@ public class UsuarioAplicacaoDAO extends DAO {
     public UsuarioAplicacao buscarPorId(Integer id) {
         String sql = "SELECT * FROM tb_usuario_aplicacao WHERE id = ?";
         
-        try (PreparedStatement stmt = conexao.prepareStatement(sql)) {
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(sql)) {
             
             stmt.setInt(1, id);
             
@@ -238,7 +246,7 @@ public class UsuarioAplicacaoDAO extends DAO {
         String dadosUsuarioJson = rs.getString("dados_usuario");
         if (dadosUsuarioJson != null && !dadosUsuarioJson.trim().isEmpty()) {
             try {
-                JsonNode dadosUsuario = objectMapper.readTree(dadosUsuarioJson);
+                JsonNode dadosUsuario = Json.lerArvore(dadosUsuarioJson);
                 usuarioAplicacao.setDadosUsuario(dadosUsuario);
             } catch (Exception e) {
                 // Se não conseguir fazer parse, deixa como null
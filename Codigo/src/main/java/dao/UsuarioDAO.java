@@ -3,6 +3,7 @@ package dao;
 import model.Usuario;
 import filterDTO.UsuarioFilterDTO;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -12,13 +13,12 @@ import java.util.ArrayList;
 public class UsuarioDAO extends DAO {
     public UsuarioDAO() {
         super();
-        conectar();
     }
 
     public boolean inserir(Usuario usuario) throws Exception {
         String query = "INSERT INTO tb_usuarios (nome, sobrenome, email, senha) VALUES (?, ?, ?, ?)";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setString(1, usuario.getNome());
             stmt.setString(2, usuario.getSobrenome());
             stmt.setString(3, usuario.getEmail());
@@ -32,8 +32,8 @@ public class UsuarioDAO extends DAO {
 
     public Usuario buscarPorId(int id) {
         String query = "SELECT * FROM tb_usuarios WHERE id = ?";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
 
@@ -54,8 +54,8 @@ public class UsuarioDAO extends DAO {
 
     public Usuario buscarPorEmail(String email) {
         String query = "SELECT * FROM tb_usuarios WHERE email = ?";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setString(1, email);
             ResultSet rs = stmt.executeQuery();
 
@@ -77,8 +77,8 @@ public class UsuarioDAO extends DAO {
     public List<Usuario> listarTodos() {
         String query = "SELECT * FROM tb_usuarios";
         List<Usuario> usuarios = new ArrayList<>();
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
@@ -115,8 +115,8 @@ public class UsuarioDAO extends DAO {
         }
 
         List<Usuario> usuarios = new ArrayList<>();
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query.toString());
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query.toString())) {
             for (int i = 0; i < parametros.size(); i++) {
                 stmt.setObject(i + 1, parametros.get(i));
             }
@@ -141,8 +141,8 @@ public class UsuarioDAO extends DAO {
         String query = "UPDATE tb_usuarios SET nome = ?, sobrenome = ?, email = ?" +
                       (usuario.getSenha() != null ? ", senha = ?" : "") + 
                       " WHERE id = ?";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setString(1, usuario.getNome());
             stmt.setString(2, usuario.getSobrenome());
             stmt.setString(3, usuario.getEmail());
@@ -163,8 +163,8 @@ public class UsuarioDAO extends DAO {
 
     public boolean excluir(int id) {
         String query = "DELETE FROM tb_usuarios WHERE id = ?";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setInt(1, id);
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
@@ -175,8 +175,8 @@ public class UsuarioDAO extends DAO {
 
     public Usuario autenticar(String email, String senha) throws Exception {
         String query = "SELECT * FROM tb_usuarios WHERE email = ? AND senha = ?";
-        try {
-            PreparedStatement stmt = conexao.prepareStatement(query);
+        try (Connection conexao = obterConexao();
+             PreparedStatement stmt = conexao.prepareStatement(query)) {
             stmt.setString(1, email);
             stmt.setString(2, toMD5(senha));
             ResultSet rs = stmt.executeQuery();
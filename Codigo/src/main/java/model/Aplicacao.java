@@ -11,6 +11,8 @@ public class Aplicacao {
     private JsonNode schemaBanco;
     private int idKeyBase;
     private String codigoKeyBase;
+    // NOME DO DONO, PREENCHIDO PELAS LISTAGENS (JOIN COM tb_usuarios)
+    private String nomeUsuario;
 
     public Aplicacao() {}
 
@@ -23,6 +25,19 @@ public class Aplicacao {
         this.schemaBanco = schemaBanco;
     }
 
+    // CÓPIA RASA: O schemaBanco É COMPARTILHADO E TRATADO COMO SOMENTE LEITURA (VER cache.CacheAplicacoes)
+    public Aplicacao(Aplicacao outra) {
+        this.id = outra.id;
+        this.nome = outra.nome;
+        this.readme = outra.readme;
+        this.idUsuario = outra.idUsuario;
+        this.nomeBanco = outra.nomeBanco;
+        this.schemaBanco = outra.schemaBanco;
+        this.idKeyBase = outra.idKeyBase;
+        this.codigoKeyBase = outra.codigoKeyBase;
+        this.nomeUsuario = outra.nomeUsuario;
+    }
+
     public Aplicacao(String nome, String readme, int idUsuario, String nomeBanco, JsonNode schemaBanco) {
         this.nome = nome;
         this.readme = readme;
@@ -95,6 +110,14 @@ public class Aplicacao {
         this.codigoKeyBase = codigoKeyBase;
     }
 
+    public String getNomeUsuario() {
+        return nomeUsuario;
+    }
+
+    public void setNomeUsuario(String nomeUsuario) {
+        this.nomeUsuario = nomeUsuario;
+    }
+
     @Override
     public String toString() {
         return "Aplicacao [id=" + id + ", nome=" + nome + ", idUsuario=" + idUsuario + ", nomeBanco=" + nomeBanco + ", idKeyBase=" + idKeyBase + "]";
@@ -6,6 +6,10 @@ public class Endpoint {
     private String rota;
     private String query;
     private int metodo;
+    // CRIADO PELA GERAÇÃO A PARTIR DO schema_banco: SÓ NELES ${limit} E ${after} SÃO OS PARÂMETROS DE PAGINAÇÃO
+    private boolean gerado;
+    // NOME DA APLICAÇÃO, PREENCHIDO PELAS LISTAGENS (JOIN COM tb_aplicacao)
+    private String nomeAplicacao;
 
     public Endpoint() {}
 
@@ -64,6 +68,22 @@ public class Endpoint {
         this.metodo = metodo;
     }
 
+    public boolean isGerado() {
+        return gerado;
+    }
+
+    public void setGerado(boolean gerado) {
+        this.gerado = gerado;
+    }
+
+    public String getNomeAplicacao() {
+        return nomeAplicacao;
+    }
+
+    public void setNomeAplicacao(String nomeAplicacao) {
+        this.nomeAplicacao = nomeAplicacao;
+    }
+
     @Override
     public String toString() {
         return "Endpoint [id=" + id + ", idAplicacao=" + idAplicacao + ", rota=" + rota + ", metodo=" + metodo + "]";
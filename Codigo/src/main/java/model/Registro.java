@@ -1,12 +1,19 @@
 package model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
+import util.Json;
 
 public class Registro {
     private int id;
     private String tabela;
     private JsonNode valor;
+    // TEXTO JSON COMO VEIO DO BANCO; valor SÓ É MONTADO A PARTIR DELE QUANDO ALGUÉM PEDE A ÁRVORE
+    private String valorJson;
     private int idAplicacao;
+    // NOME DA APLICAÇÃO, PREENCHIDO PELAS CONSULTAS DO RegistroDAO (JOIN COM tb_aplicacao)
+    private String nomeAplicacao;
 
     public Registro() {}
 
@@ -40,11 +47,33 @@ public class Registro {
     }
 
     public JsonNode getValor() {
+        if (valor == null && valorJson != null) {
+            try {
+                valor = Json.lerArvore(valorJson);
+            } catch (JsonProcessingException e) {
+                e.printStackTrace();
+            }
+        }
         return valor;
     }
 
     public void setValor(JsonNode valor) {
         this.valor = valor;
+        this.valorJson = null;
+    }
+
+    @JsonIgnore
+    public String getValorJson() {
+        if (valorJson == null && valor != null) {
+            return valor.toString();
+        }
+        return valorJson;
+    }
+
+    @JsonIgnore
+    public void setValorJson(String valorJson) {
+        this.valorJson = valorJson;
+        this.valor = null;
     }
 
     public int getIdAplicacao() {
@@ -55,6 +84,16 @@ public class Registro {
         this.idAplicacao = idAplicacao;
     }
 
+    @JsonIgnore
+    public String getNomeAplicacao() {
+        return nomeAplicacao;
+    }
+
+    @JsonIgnore
+    public void setNomeAplicacao(String nomeAplicacao) {
+        this.nomeAplicacao = nomeAplicacao;
+    }
+
     @Override
     public String toString() {
         return "Registro [id=" + id + ", tabela=" + tabela + ", idAplicacao=" + idAplicacao + "]";
@@ -1,17 +1,18 @@
 package responseDTO;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.annotation.JsonRawValue;
 
 public class RegistroDTO {
     private int id;
     private String tabela;
-    private JsonNode valor;
+    // JSON JÁ SERIALIZADO (TEXTO DO BANCO), ESCRITO NA RESPOSTA SEM SER REPROCESSADO
+    private String valor;
     private int idAplicacao;
     private String nomeAplicacao;
     
     public RegistroDTO() {}
     
-    public RegistroDTO(int id, String tabela, JsonNode valor, int idAplicacao, String nomeAplicacao) {
+    public RegistroDTO(int id, String tabela, String valor, int idAplicacao, String nomeAplicacao) {
         this.id = id;
         this.tabela = tabela;
         this.valor = valor;
@@ -35,11 +36,12 @@ public class RegistroDTO {
         this.tabela = tabela;
     }
     
-    public JsonNode getValor() {
+    @JsonRawValue
+    public String getValor() {
         return valor;
     }
     
-    public void setValor(JsonNode valor) {
+    public void setValor(String valor) {
         this.valor = valor;
     }
     
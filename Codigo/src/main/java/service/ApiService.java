@@ -1,29 +1,28 @@
 package service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 
 import dao.ApiDAO;
 import filterDTO.ApiFilterDTO;
+import model.Usuario;
 import responseDTO.LoginResponseDTO;
 import responseDTO.UsuarioDTO;
 import util.JwtUtil;
+import util.Json;
 import spark.Request;
 import spark.Response;
 
-import java.sql.ResultSet;
-
 public class ApiService {
 	public Object entrar(Request request, Response response) {
 		response.type("application/json");
 		
 		// LE OS FILTROS DO CORPO DA REQUISICAO EM JSON E CONVERTE PARA A CLASSE ApiFilterDTO
-		JsonMapper mapper = JsonMapper.builder().build();
+		JsonMapper mapper = Json.mapper();
 		ApiFilterDTO filtro = null;
 		try {
-			filtro = mapper.readValue(request.body(), new TypeReference<ApiFilterDTO>() {});
+			filtro = Json.leitor(ApiFilterDTO.class).readValue(request.body());
 		} catch (JsonMappingException e) {
 			return criarRespostaErro(mapper, "Formato JSON inválido", response);
 		} catch (JsonProcessingException e) {
@@ -38,13 +37,13 @@ public class ApiService {
 		// EXECUTA A REQUISICAO PARA VALIDAR LOGIN
 		try {
 			ApiDAO apiDAO = new ApiDAO();
-			ResultSet rs = apiDAO.entrar(filtro);
+			Usuario usuario = apiDAO.entrar(filtro);
 			
-            if (rs != null && rs.next()) {
+            if (usuario != null) {
 				//SE TIVER DADOS NA RESPOSTA É PQ O LOGIN FOI VALIDADO
-				int userId = rs.getInt("id");
-				String nome = rs.getString("nome");
-				String email = rs.getString("email");
+				int userId = usuario.getId();
+				String nome = usuario.getNome();
+				String email = usuario.getEmail();
 				
 				// GERAR TOKEN JWT
 				String token = JwtUtil.generateToken(userId, email);
@@ -1,13 +1,16 @@
 package service;
 
+import cache.BarramentoInvalidacao;
+import cache.CacheAplicacoes;
 import dao.AplicacaoDAO;
+import dao.TabelasNativasDAO;
 import dao.UsuarioDAO;
 import model.Aplicacao;
 import model.Usuario;
 import filterDTO.AplicacaoFilterDTO;
 import responseDTO.AplicacaoDTO;
+import util.Json;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import spark.Request;
 import spark.Response;
@@ -21,7 +24,7 @@ public class AplicacaoService {
     
     public Object listar(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             // Obter informações do usuário logado através do token de autenticação
@@ -33,7 +36,6 @@ public class AplicacaoService {
             }
             
             AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
-            UsuarioDAO usuarioDAO = new UsuarioDAO();
             
             // Listar apenas as aplicações do usuário logado
             List<Aplicacao> aplicacoes = aplicacaoDAO.buscarPorUsuario(idUsuario);
@@ -41,8 +43,8 @@ public class AplicacaoService {
             List<AplicacaoDTO> aplicacoesDTO = new ArrayList<>();
             
             for (Aplicacao aplicacao : aplicacoes) {
-                Usuario usuario = usuarioDAO.buscarPorId(aplicacao.getIdUsuario());
-                String nomeUsuario = usuario != null ? usuario.getNome() + " " + usuario.getSobrenome() : "Usuário não encontrado";
+                // Nome do dono já vem na consulta da listagem
+                String nomeUsuario = aplicacao.getNomeUsuario() != null ? aplicacao.getNomeUsuario() : "Usuário não encontrado";
                 
                 aplicacoesDTO.add(new AplicacaoDTO(
                     aplicacao.getId(),
@@ -67,7 +69,7 @@ public class AplicacaoService {
     
     public Object buscarPorId(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             // Obter informações do usuário logado através do token de autenticação
@@ -79,9 +81,8 @@ public class AplicacaoService {
             }
             
             int id = Integer.parseInt(request.params(":id"));
-            AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
             UsuarioDAO usuarioDAO = new UsuarioDAO();
-            Aplicacao aplicacao = aplicacaoDAO.buscarPorId(id);
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(id);
             
             if (aplicacao == null) {
                 response.status(404);
@@ -122,7 +123,7 @@ public class AplicacaoService {
     
     public Object buscarPorUsuario(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             // Obter ID do usuário logado através do token de autenticação
@@ -133,14 +134,13 @@ public class AplicacaoService {
             }
             
             AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
-            UsuarioDAO usuarioDAO = new UsuarioDAO();
             List<Aplicacao> aplicacoes = aplicacaoDAO.buscarPorUsuario(idUsuario);
             List<AplicacaoDTO> aplicacoesDTO = new ArrayList<>();
             
-            Usuario usuario = usuarioDAO.buscarPorId(idUsuario);
-            String nomeUsuario = usuario != null ? usuario.getNome() + " " + usuario.getSobrenome() : "Usuário não encontrado";
-            
             for (Aplicacao aplicacao : aplicacoes) {
+                // Nome do dono já vem na consulta da listagem
+                String nomeUsuario = aplicacao.getNomeUsuario() != null ? aplicacao.getNomeUsuario() : "Usuário não encontrado";
+                
                 aplicacoesDTO.add(new AplicacaoDTO(
                     aplicacao.getId(),
                     aplicacao.getNome(),
@@ -164,7 +164,7 @@ public class AplicacaoService {
     
     public Object buscarComFiltro(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             // Obter informações do usuário logado através do token de autenticação
@@ -178,7 +178,7 @@ public class AplicacaoService {
             AplicacaoFilterDTO filtro = null;
             try {
                 if (request.body() != null && !request.body().isEmpty()) {
-                    filtro = mapper.readValue(request.body(), new TypeReference<AplicacaoFilterDTO>() {});
+                    filtro = Json.leitor(AplicacaoFilterDTO.class).readValue(request.body());
                 }
             } catch (JsonProcessingException e) {
                 response.status(400);
@@ -194,15 +194,14 @@ public class AplicacaoService {
             filtro.setIdUsuario(idUsuario);
             
             AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
-            UsuarioDAO usuarioDAO = new UsuarioDAO();
             List<Aplicacao> aplicacoes;
             
             aplicacoes = aplicacaoDAO.buscarComFiltro(filtro);
             
             List<AplicacaoDTO> aplicacoesDTO = new ArrayList<>();
             for (Aplicacao aplicacao : aplicacoes) {
-                Usuario usuario = usuarioDAO.buscarPorId(aplicacao.getIdUsuario());
-                String nomeUsuario = usuario != null ? usuario.getNome() + " " + usuario.getSobrenome() : "Usuário não encontrado";
+                // Nome do dono já vem na consulta da listagem
+                String nomeUsuario = aplicacao.getNomeUsuario() != null ? aplicacao.getNomeUsuario() : "Usuário não encontrado";
                 
                 aplicacoesDTO.add(new AplicacaoDTO(
                     aplicacao.getId(),
@@ -227,10 +226,10 @@ public class AplicacaoService {
     
     public Object inserir(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
-            Aplicacao aplicacao = mapper.readValue(request.body(), new TypeReference<Aplicacao>() {});
+            Aplicacao aplicacao = Json.leitor(Aplicacao.class).readValue(request.body());
             
             // Obter ID do usuário logado através do token de autenticação
             Integer idUsuario = request.attribute("userId");
@@ -288,7 +287,7 @@ public class AplicacaoService {
     
     public Object atualizar(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             // Obter informações do usuário logado através do token de autenticação
@@ -300,7 +299,7 @@ public class AplicacaoService {
             }
             
             int id = Integer.parseInt(request.params(":id"));
-            Aplicacao aplicacao = mapper.readValue(request.body(), new TypeReference<Aplicacao>() {});
+            Aplicacao aplicacao = Json.leitor(Aplicacao.class).readValue(request.body());
             aplicacao.setId(id);
             
             if (aplicacao.getNome() == null || aplicacao.getNome().trim().isEmpty()) {
@@ -311,7 +310,7 @@ public class AplicacaoService {
             AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
             
             // Verificar se aplicação existe
-            Aplicacao aplicacaoExistente = aplicacaoDAO.buscarPorId(id);
+            Aplicacao aplicacaoExistente = CacheAplicacoes.buscarPorId(id);
             if (aplicacaoExistente == null) {
                 response.status(404);
                 return criarRespostaErro(mapper, "Aplicação não encontrada");
@@ -327,6 +326,7 @@ public class AplicacaoService {
             aplicacao.setIdUsuario(aplicacaoExistente.getIdUsuario());
             
             if (aplicacaoDAO.atualizar(aplicacao)) {
+                BarramentoInvalidacao.aplicacao(id);
                 return criarRespostaSucesso(mapper, "Aplicação atualizada com sucesso");
             } else {
                 response.status(500);
@@ -347,7 +347,7 @@ public class AplicacaoService {
     
     public Object excluir(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             // Obter informações do usuário logado através do token de autenticação
@@ -362,7 +362,7 @@ public class AplicacaoService {
             AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
             
             // Verificar se aplicação existe
-            Aplicacao aplicacaoExistente = aplicacaoDAO.buscarPorId(id);
+            Aplicacao aplicacaoExistente = CacheAplicacoes.buscarPorId(id);
             if (aplicacaoExistente == null) {
                 response.status(404);
                 return criarRespostaErro(mapper, "Aplicação não encontrada");
@@ -375,6 +375,11 @@ public class AplicacaoService {
             }
             
             if (aplicacaoDAO.excluir(id)) {
+                // Endpoints e keys da aplicação foram removidos em cascata: limpar os caches (neste nó e nos demais)
+                BarramentoInvalidacao.aplicacaoExcluida(id);
+                // Os registros e os índices parciais da aplicação saíram junto com a partição dela
+                // No modo nativo as tabelas da aplicação ficam no schema app_<id>
+                new TabelasNativasDAO().excluirSchema(id);
                 return criarRespostaSucesso(mapper, "Aplicação excluída com sucesso");
             } else {
                 response.status(500);
@@ -1,7 +1,6 @@
 package service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 
 import dao.KeyDAO;
@@ -10,7 +9,9 @@ import filterDTO.ApiFilterDTO;
 import model.Key;
 import model.UsuarioAplicacao;
 import responseDTO.LoginResponseDTO;
+import util.ClaimsToken;
 import util.JwtUtil;
+import util.Json;
 import spark.Request;
 import spark.Response;
 
@@ -18,13 +19,13 @@ public class AppTokenService {
     
     public Object gerarToken(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             // LER OS DADOS DA REQUISIÇÃO
             ApiFilterDTO filtro = null;
             try {
-                filtro = mapper.readValue(request.body(), new TypeReference<ApiFilterDTO>() {});
+                filtro = Json.leitor(ApiFilterDTO.class).readValue(request.body());
             } catch (Exception e) {
                 return criarRespostaErro(mapper, "Formato JSON inválido", response, 400);
             }
@@ -97,7 +98,7 @@ public class AppTokenService {
     
     public Object validarToken(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             // PEGAR TOKEN DO HEADER AUTHORIZATION
@@ -110,15 +111,16 @@ public class AppTokenService {
             String token = authHeader.substring(7);
             
             // VALIDAR O TOKEN
-            if (JwtUtil.validateAppToken(token) == null) {
+            ClaimsToken claims = JwtUtil.verificar(token, "app_token");
+            if (claims == null) {
                 return criarRespostaErro(mapper, "Token inválido ou expirado", response, 401);
             }
             
             // EXTRAIR INFORMAÇÕES DO TOKEN
-            int idUsuario = JwtUtil.getUserIdFromAppToken(token);
-            int idAplicacao = JwtUtil.getAplicacaoIdFromAppToken(token);
-            int idKey = JwtUtil.getKeyIdFromAppToken(token);
-            String codigoKey = JwtUtil.getKeyCodeFromAppToken(token);
+            int idUsuario = claims.getIdUsuario();
+            int idAplicacao = claims.getIdAplicacao();
+            int idKey = claims.getIdKey();
+            String codigoKey = claims.getCodigoKey();
             
             // VALIDAR SE A KEY AINDA EXISTE E ESTÁ ATIVA
             KeyDAO keyDAO = new KeyDAO();
@@ -151,7 +153,7 @@ public class AppTokenService {
     
     public Object detectarTipoToken(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             // PEGAR TOKEN DO HEADER AUTHORIZATION
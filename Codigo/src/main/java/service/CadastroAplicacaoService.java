@@ -1,7 +1,8 @@
 package service;
 
+import cache.BarramentoInvalidacao;
+import cache.CacheAplicacoes;
 import dao.UsuarioDAO;
-import dao.AplicacaoDAO;
 import dao.UsuarioAplicacaoDAO;
 import dao.KeyDAO;
 import model.Usuario;
@@ -10,6 +11,7 @@ import model.UsuarioAplicacao;
 import model.Key;
 import responseDTO.UsuarioAplicacaoDTO;
 import util.JwtUtil;
+import util.Json;
 import spark.Request;
 import spark.Response;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -22,9 +24,8 @@ import java.sql.ResultSet;
 
 public class CadastroAplicacaoService {
     private UsuarioDAO usuarioDAO = new UsuarioDAO();
-    private AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
     private UsuarioAplicacaoDAO usuarioAplicacaoDAO = new UsuarioAplicacaoDAO();
-    private ObjectMapper objectMapper = new ObjectMapper();
+    private ObjectMapper objectMapper = Json.mapper();
 
     public Object cadastrarUsuarioNaAplicacao(Request request, Response response) {
         try {
@@ -44,7 +45,7 @@ public class CadastroAplicacaoService {
             }
 
             // Verificar se a aplicação existe
-            Aplicacao aplicacao = aplicacaoDAO.buscarPorId(idAplicacao);
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(idAplicacao);
             if (aplicacao == null) {
                 response.status(404);
                 return "{\"success\": false, \"message\": \"Aplicação não encontrada\"}";
@@ -58,7 +59,7 @@ public class CadastroAplicacaoService {
 
             // Parse do body da requisição
             @SuppressWarnings("unchecked")
-            Map<String, Object> requestBody = objectMapper.readValue(request.body(), Map.class);
+            Map<String, Object> requestBody = Json.leitor(Json.MAPA).readValue(request.body());
             
             String email = (String) requestBody.get("email");
             String senha = (String) requestBody.get("senha");
@@ -169,7 +170,7 @@ public class CadastroAplicacaoService {
             Integer idAplicacao = Integer.parseInt(idAplicacaoStr);
             
             // Verificar se a aplicação existe
-            Aplicacao aplicacao = aplicacaoDAO.buscarPorId(idAplicacao);
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(idAplicacao);
             if (aplicacao == null) {
                 response.status(404);
                 return "{\"success\": false, \"message\": \"Aplicação não encontrada\"}";
@@ -216,7 +217,7 @@ public class CadastroAplicacaoService {
             }
 
             // Verificar se a aplicação existe
-            Aplicacao aplicacao = aplicacaoDAO.buscarPorId(idAplicacao);
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(idAplicacao);
             if (aplicacao == null) {
                 response.status(404);
                 return "{\"success\": false, \"message\": \"Aplicação não encontrada\"}";
@@ -224,7 +225,7 @@ public class CadastroAplicacaoService {
 
             // Parse do body da requisição
             @SuppressWarnings("unchecked")
-            Map<String, Object> requestBody = objectMapper.readValue(request.body(), Map.class);
+            Map<String, Object> requestBody = Json.leitor(Json.MAPA).readValue(request.body());
             
             String email = (String) requestBody.get("email");
             String senha = (String) requestBody.get("senha");
@@ -355,7 +356,7 @@ public class CadastroAplicacaoService {
             Integer idUsuarioAplicacao = Integer.parseInt(idUsuarioAplicacaoStr);
 
             // Verificar se o usuário logado é o owner da aplicação
-            Aplicacao aplicacao = aplicacaoDAO.buscarPorId(idAplicacao);
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(idAplicacao);
             if (aplicacao == null || aplicacao.getIdUsuario() != idUsuarioLogado) {
                 response.status(403);
                 return "{\"success\": false, \"message\": \"Sem permissão para gerenciar esta aplicação\"}";
@@ -363,7 +364,7 @@ public class CadastroAplicacaoService {
 
             // Parse do body
             @SuppressWarnings("unchecked")
-            Map<String, Object> requestBody = objectMapper.readValue(request.body(), Map.class);
+            Map<String, Object> requestBody = Json.leitor(Json.MAPA).readValue(request.body());
             Integer novaIdKey = (Integer) requestBody.get("id_key");
 
             if (novaIdKey == null) {
@@ -383,6 +384,7 @@ public class CadastroAplicacaoService {
             boolean sucesso = usuarioAplicacaoDAO.alterarKey(idUsuarioAplicacao, novaIdKey);
             
             if (sucesso) {
+                BarramentoInvalidacao.key(novaIdKey);
                 response.status(200);
                 return "{\"success\": true, \"message\": \"Key alterada com sucesso\"}";
             } else {
@@ -420,7 +422,7 @@ public class CadastroAplicacaoService {
             Integer idUsuarioAplicacao = Integer.parseInt(idUsuarioAplicacaoStr);
 
             // Verificar se o usuário logado é o owner da aplicação
-            Aplicacao aplicacao = aplicacaoDAO.buscarPorId(idAplicacao);
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(idAplicacao);
             if (aplicacao == null || aplicacao.getIdUsuario() != idUsuarioLogado) {
                 response.status(403);
                 return "{\"success\": false, \"message\": \"Sem permissão para gerenciar esta aplicação\"}";
@@ -467,7 +469,7 @@ public class CadastroAplicacaoService {
             Integer idUsuarioAplicacao = Integer.parseInt(idUsuarioAplicacaoStr);
 
             // Verificar se o usuário logado é o owner da aplicação
-            Aplicacao aplicacao = aplicacaoDAO.buscarPorId(idAplicacao);
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(idAplicacao);
             if (aplicacao == null || aplicacao.getIdUsuario() != idUsuarioLogado) {
                 response.status(403);
                 return "{\"success\": false, \"message\": \"Sem permissão para gerenciar esta aplicação\"}";
@@ -475,7 +477,7 @@ public class CadastroAplicacaoService {
 
             // Parse do body
             @SuppressWarnings("unchecked")
-            Map<String, Object> requestBody = objectMapper.readValue(request.body(), Map.class);
+            Map<String, Object> requestBody = Json.leitor(Json.MAPA).readValue(request.body());
             Boolean ativo = (Boolean) requestBody.get("ativo");
 
             if (ativo == null) {
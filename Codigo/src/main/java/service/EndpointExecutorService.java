@@ -1,64 +1,87 @@
 package service;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 
-import dao.EndpointDAO;
+import cache.BarramentoInvalidacao;
+import cache.CacheAplicacoes;
+import cache.CacheConsultas;
+import cache.CacheRotas;
+import dao.AlocadorIds;
+import dao.PoolConexoes;
+import model.Aplicacao;
 import model.Endpoint;
+import util.Configuracao;
+import util.CorpoRequisicao;
+import util.ConsultaCompilada;
+import util.Paginacao;
+import util.RotaResolvida;
+import util.ValidadorReferencias;
+import util.Json;
+import org.postgresql.util.PGobject;
 import spark.Request;
 import spark.Response;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.math.BigDecimal;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class EndpointExecutorService {
+    // Marcador interno para colunas json/jsonb (java.sql.Types não tem um tipo próprio para elas)
+    private static final int TIPO_JSON = Integer.MIN_VALUE;
+    // Coluna usada como cursor das respostas paginadas (as queries geradas retornam o id lógico com esse nome)
+    private static final String COLUNA_CURSOR = "id_logico";
+    private static final Pattern NUMERO_INTEIRO = Pattern.compile("-?\\d+");
+    // Linhas buscadas do banco por vez nos SELECTs (o resultado nunca fica inteiro em memória)
+    private static final int TAMANHO_LOTE_LEITURA = Configuracao.getInt("endpoints.tamanhoLoteLeitura", 500);
+    private static final Pattern NUMERO_DECIMAL = Pattern.compile("-?\\d+(\\.\\d+)?([eE][-+]?\\d+)?");
+    // SQLSTATE foreign_key_violation do PostgreSQL
+    private static final String VIOLACAO_CHAVE_ESTRANGEIRA = "23503";
     
     public Object executeEndpoint(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             // Obter informações já validadas pelo filtro de autenticação
             Integer idAplicacao = request.attribute("idAplicacao");
             
-            // Extrair a rota do splat parameter
-            String rotaEndpoint = request.splat()[0];
-            if (rotaEndpoint == null || rotaEndpoint.trim().isEmpty()) {
-                response.status(400);
-                return criarRespostaErro(mapper, "Rota do endpoint não fornecida");
-            }
-            
-            // Adicionar "/" no início se não tiver
-            if (!rotaEndpoint.startsWith("/")) {
-                rotaEndpoint = "/" + rotaEndpoint;
-            }
+            // Endpoint e parâmetros da rota já resolvidos (e autorizados) pelo filtro de autenticação
+            RotaResolvida rotaResolvida = request.attribute("rotaResolvida");
             
-            // Buscar endpoint correspondente (validação já foi feita no filtro)
-            EndpointDAO endpointDAO = new EndpointDAO();
-            List<Endpoint> endpoints = endpointDAO.buscarPorAplicacao(idAplicacao);
-            
-            Endpoint endpointEncontrado = null;
-            Map<String, String> parametrosRota = new HashMap<>();
-            
-            // Verificar método HTTP
-            int metodoHTTP = getMetodoHTTP(request.requestMethod());
-            
-            for (Endpoint endpoint : endpoints) {
-                if (endpoint.getMetodo() == metodoHTTP && rotaCorresponde(endpoint.getRota(), rotaEndpoint, parametrosRota)) {
-                    endpointEncontrado = endpoint;
-                    break;
+            if (rotaResolvida == null) {
+                // Extrair a rota do splat parameter
+                String rotaEndpoint = request.splat()[0];
+                if (rotaEndpoint == null || rotaEndpoint.trim().isEmpty()) {
+                    response.status(400);
+                    return criarRespostaErro(mapper, "Rota do endpoint não fornecida");
+                }
+                
+                // Adicionar "/" no início se não tiver
+                if (!rotaEndpoint.startsWith("/")) {
+                    rotaEndpoint = "/" + rotaEndpoint;
                 }
+                
+                // Buscar endpoint correspondente na tabela de rotas compilada
+                rotaResolvida = CacheRotas.obter(idAplicacao).resolver(getMetodoHTTP(request.requestMethod()), rotaEndpoint);
             }
             
+            Endpoint endpointEncontrado = rotaResolvida != null ? rotaResolvida.getEndpoint() : null;
+            Map<String, String> parametrosRota = rotaResolvida != null ? rotaResolvida.getParametros() : new HashMap<>();
+            
             if (endpointEncontrado == null) {
                 response.status(404);
                 return criarRespostaErro(mapper, "Endpoint não encontrado para esta rota e método");
@@ -74,35 +97,6 @@ public class EndpointExecutorService {
         }
     }
     
-    private boolean rotaCorresponde(String rotaEndpoint, String rotaRequisicao, Map<String, String> parametros) {
-        // Converter rota do endpoint para regex
-        // Exemplo: "/clientes/{id}" -> "/clientes/([^/]+)"
-        String regexRota = rotaEndpoint.replaceAll("\\{([^}]+)\\}", "([^/]+)");
-        regexRota = "^" + regexRota + "$";
-        
-        Pattern pattern = Pattern.compile(regexRota);
-        Matcher matcher = pattern.matcher(rotaRequisicao);
-        
-        if (matcher.matches()) {
-            // Extrair parâmetros
-            Pattern paramPattern = Pattern.compile("\\{([^}]+)\\}");
-            Matcher paramMatcher = paramPattern.matcher(rotaEndpoint);
-            
-            int groupIndex = 1;
-            while (paramMatcher.find()) {
-                String paramName = paramMatcher.group(1);
-                if (groupIndex <= matcher.groupCount()) {
-                    parametros.put(paramName, matcher.group(groupIndex));
-                    groupIndex++;
-                }
-            }
-            
-            return true;
-        }
-        
-        return false;
-    }
-    
     private int getMetodoHTTP(String metodo) {
         switch (metodo.toUpperCase()) {
             case "GET": return 1;
@@ -117,298 +111,347 @@ public class EndpointExecutorService {
                                 int idAplicacao, Map<String, String> parametrosRota, JsonMapper mapper) {
         
         try {
-            String query = endpoint.getQuery();
+            // Query do endpoint compilada uma única vez (${...} -> ?), reaproveitada entre requisições
+            ConsultaCompilada consulta = CacheConsultas.obter(endpoint);
             
             // Validar referências antes de executar INSERT/UPDATE
             if (("POST".equalsIgnoreCase(request.requestMethod()) || "PUT".equalsIgnoreCase(request.requestMethod()))) {
-                String validationError = validarReferencias(request, idAplicacao);
+                // Corpo parseado uma única vez; a mesma árvore é usada depois no vínculo dos parâmetros
+                JsonNode corpo;
+                try {
+                    corpo = CorpoRequisicao.ler(request);
+                } catch (CorpoRequisicao.CorpoMuitoGrandeException e) {
+                    response.status(413);
+                    return criarRespostaErro(mapper, e.getMessage());
+                }
+                
+                String validationError = validarReferencias(endpoint, corpo, idAplicacao);
                 if (validationError != null) {
                     response.status(400);
                     return criarRespostaErro(mapper, validationError);
                 }
             }
             
-            // Substituir placeholders na query
-            query = substituirPlaceholders(query, request, idAplicacao, parametrosRota);
-            
-            // Debug: imprimir query final para depuração
-            System.out.println("Query executada: " + query);
-            
-            // Verificar se ainda há placeholders não substituídos
-            if (query.contains("${")) {
-                response.status(400);
-                return criarRespostaErro(mapper, "Parâmetros obrigatórios não fornecidos na requisição");
+            // Parâmetros de paginação (?limit= e ?after=) usados por ${limit} e ${after}
+            Paginacao paginacao = null;
+            if (consulta.usaPaginacao()) {
+                try {
+                    paginacao = Paginacao.daRequisicao(request);
+                } catch (IllegalArgumentException e) {
+                    response.status(400);
+                    return criarRespostaErro(mapper, e.getMessage());
+                }
             }
             
-            // Executar a query
-            Connection conexao = obterConexao();
-            PreparedStatement stmt = conexao.prepareStatement(query);
-            
-            boolean isSelect = query.trim().toLowerCase().startsWith("select");
-            
-            if (isSelect) {
-                // Query de SELECT - retornar resultados
-                ResultSet rs = stmt.executeQuery();
-                return processarResultSet(rs, mapper);
-            } else {
+            // Executar a query com uma conexão do pool compartilhado
+            Map<String, List<Long>> chavesGeradas = new HashMap<>();
+            int linhasAfetadas;
+            try (Connection conexao = PoolConexoes.getInstancia().obterConexao();
+                 PreparedStatement stmt = conexao.prepareStatement(consulta.getSql())) {
+                
+                // Vincular os valores da requisição aos parâmetros da query
+                String parametroFaltando = vincularParametros(stmt, consulta, request, idAplicacao, parametrosRota, paginacao, chavesGeradas);
+                if (parametroFaltando != null) {
+                    response.status(400);
+                    return criarRespostaErro(mapper, "Parâmetros obrigatórios não fornecidos na requisição: " + parametroFaltando);
+                }
+                
+                if (consulta.isSelect()) {
+                    // Query de SELECT - resultados escritos direto na resposta, lidos do banco em lotes (cursor)
+                    // O driver só usa cursor com autocommit desligado
+                    conexao.setAutoCommit(false);
+                    stmt.setFetchSize(TAMANHO_LOTE_LEITURA);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        escreverResultSet(rs, response, mapper, consulta.isPaginada() ? paginacao : null);
+                    }
+                    conexao.commit();
+                    return "";
+                }
                 // Query de INSERT/UPDATE/DELETE - retornar número de linhas afetadas
-                int linhasAfetadas = stmt.executeUpdate();
-                Map<String, Object> resultado = new HashMap<>();
-                resultado.put("success", true);
-                resultado.put("message", "Operação executada com sucesso");
-                resultado.put("linhasAfetadas", linhasAfetadas);
-                return mapper.writeValueAsString(resultado);
+                linhasAfetadas = stmt.executeUpdate();
             }
             
-        } catch (SQLException | JsonProcessingException e) {
+            // Com a conexão já devolvida: o aviso aos filtros usa outra conexão do pool
+            registrarChaves(consulta, idAplicacao, chavesGeradas, linhasAfetadas);
+            Map<String, Object> resultado = new HashMap<>();
+            resultado.put("success", true);
+            resultado.put("message", "Operação executada com sucesso");
+            resultado.put("linhasAfetadas", linhasAfetadas);
+            return mapper.writeValueAsString(resultado);
+            
+        } catch (SQLException | IOException e) {
             e.printStackTrace();
+            if (response.raw().isCommitted()) {
+                // Parte do resultado já foi enviada: não há como trocar o status da resposta
+                return "";
+            }
+            response.raw().resetBuffer();
+            if (e instanceof SQLException && VIOLACAO_CHAVE_ESTRANGEIRA.equals(((SQLException) e).getSQLState())) {
+                // Tabelas nativas: a referência inválida é recusada pela foreign key
+                response.status(400);
+                return criarRespostaErro(mapper, "Referência inválida: " + e.getMessage());
+            }
             response.status(500);
             return criarRespostaErro(mapper, "Erro ao executar query: " + e.getMessage());
         }
     }
     
-    private String substituirPlaceholders(String query, Request request, int idAplicacao, Map<String, String> parametrosRota) {
-        // Substituir ${id_aplicacao}
-        query = query.replace("${id_aplicacao}", String.valueOf(idAplicacao));
-        
-        // Substituir parâmetros da rota (ex: ${id})
-        for (Map.Entry<String, String> param : parametrosRota.entrySet()) {
-            query = query.replace("${" + param.getKey() + "}", param.getValue());
+    // Mantém os filtros de referência em dia: chaves geradas pelo alocador entram no filtro da tabela;
+    // uma escrita que pode gravar chaves desconhecidas descarta os filtros da aplicação
+    private void registrarChaves(ConsultaCompilada consulta, int idAplicacao, Map<String, List<Long>> chavesGeradas, int linhasAfetadas) {
+        if (consulta.isChavesDesconhecidas()) {
+            BarramentoInvalidacao.filtrosReferencia(idAplicacao);
+            return;
+        }
+        if (linhasAfetadas <= 0 || chavesGeradas.isEmpty()) {
+            return;
+        }
+        Aplicacao aplicacao = CacheAplicacoes.buscarPorId(idAplicacao);
+        for (Map.Entry<String, List<Long>> chaves : chavesGeradas.entrySet()) {
+            for (Long chave : chaves.getValue()) {
+                ValidadorReferencias.registrarChave(aplicacao, chaves.getKey(), chave);
+            }
         }
+    }
+    
+    // Retorna o nome do primeiro parâmetro sem valor na requisição, ou null se todos foram vinculados
+    private String vincularParametros(PreparedStatement stmt, ConsultaCompilada consulta, Request request,
+                                      int idAplicacao, Map<String, String> parametrosRota, Paginacao paginacao,
+                                      Map<String, List<Long>> chavesGeradas) throws SQLException {
+        JsonNode bodyJson = null;
+        boolean corpoLido = false;
         
-            // Substituir parâmetros do corpo da requisição (para POST/PUT)
-        if ("POST".equalsIgnoreCase(request.requestMethod()) || "PUT".equalsIgnoreCase(request.requestMethod())) {
-            try {
-                String body = request.body();
-                if (body != null && !body.trim().isEmpty()) {
-                    JsonMapper mapper = JsonMapper.builder().build();
-                    JsonNode bodyJson = mapper.readTree(body);
-                    
-                    // Substituir cada campo do JSON
-                    final String[] queryRef = {query};
-                    bodyJson.fieldNames().forEachRemaining(fieldName -> {
-                        JsonNode fieldNode = bodyJson.get(fieldName);
-                        String value;
-                        
-                        // Tratar diferentes tipos de dados
-                        if (fieldNode.isNull()) {
-                            value = "NULL";
-                        } else if (fieldNode.isNumber()) {
-                            value = fieldNode.asText();
-                        } else if (fieldNode.isBoolean()) {
-                            value = fieldNode.asBoolean() ? "true" : "false";
-                        } else {
-                            // Para strings, escapar aspas simples e envolver em aspas
-                            value = "'" + fieldNode.asText().replace("'", "''") + "'";
-                        }
-                        
-                        // Só substituir se o placeholder existir na query
-                        String placeholder = "${" + fieldName + "}";
-                        if (queryRef[0].contains(placeholder)) {
-                            queryRef[0] = queryRef[0].replace(placeholder, value);
-                        }
-                    });
-                    query = queryRef[0];
-                }
-            } catch (Exception e) {
-                // Se não conseguir parsear o JSON, continuar sem substituir
-                e.printStackTrace();
+        List<ConsultaCompilada.Parametro> parametros = consulta.getParametros();
+        for (int i = 0; i < parametros.size(); i++) {
+            ConsultaCompilada.Parametro parametro = parametros.get(i);
+            int indice = i + 1;
+            
+            switch (parametro.getFonte()) {
+                case APLICACAO:
+                    stmt.setInt(indice, idAplicacao);
+                    continue;
+                case PROXIMO_ID:
+                    long chave = AlocadorIds.getInstancia().proximoId(idAplicacao, parametro.getTabelaProximoId());
+                    stmt.setLong(indice, chave);
+                    chavesGeradas.computeIfAbsent(parametro.getTabelaProximoId(), t -> new ArrayList<>()).add(chave);
+                    continue;
+                case PAGINACAO:
+                    if (Paginacao.PARAMETRO_LIMITE.equals(parametro.getNome())) {
+                        // Em SELECT paginado busca uma linha a mais para saber se existe próxima página
+                        stmt.setInt(indice, consulta.isPaginada() ? paginacao.getLimiteConsulta() : paginacao.getLimite());
+                    } else {
+                        stmt.setLong(indice, paginacao.getApos());
+                    }
+                    continue;
+                case ROTA:
+                    String valorRota = parametrosRota.get(parametro.getNome());
+                    if (valorRota != null) {
+                        vincularTexto(stmt, indice, valorRota);
+                        continue;
+                    }
+                    break;
+                default:
+                    break;
             }
-        }        // Substituir query parameters (ex: ?nome=valor)
-        final String[] queryRef = {query};
-        request.queryParams().forEach(paramName -> {
-            String paramValue = request.queryParams(paramName);
             
-            // Para query parameters, assumir que valores numéricos não precisam de aspas
-            // e strings precisam ser envolvidas em aspas
-            String processedValue;
-            try {
-                // Tentar converter para número
-                Double.parseDouble(paramValue);
-                processedValue = paramValue; // É número, usar sem aspas
-            } catch (NumberFormatException e) {
-                // É string, envolver em aspas e escapar aspas simples
-                processedValue = "'" + paramValue.replace("'", "''") + "'";
+            // Campos do corpo da requisição (para POST/PUT)
+            if (!corpoLido) {
+                bodyJson = lerCorpo(request);
+                corpoLido = true;
+            }
+            if (bodyJson != null && bodyJson.has(parametro.getNome())) {
+                vincularJson(stmt, indice, bodyJson.get(parametro.getNome()));
+                continue;
             }
             
-            queryRef[0] = queryRef[0].replace("${" + paramName + "}", processedValue);
-        });
+            // Query parameters (ex: ?nome=valor)
+            String valorQuery = request.queryParams(parametro.getNome());
+            if (valorQuery != null) {
+                vincularTexto(stmt, indice, valorQuery);
+                continue;
+            }
+            
+            return parametro.getNome();
+        }
         
-        return queryRef[0];
+        return null;
     }
     
-    private Object processarResultSet(ResultSet rs, JsonMapper mapper) throws SQLException, JsonProcessingException {
-        java.util.List<Object> resultados = new java.util.ArrayList<>();
+    private JsonNode lerCorpo(Request request) {
+        if (!"POST".equalsIgnoreCase(request.requestMethod()) && !"PUT".equalsIgnoreCase(request.requestMethod())) {
+            return null;
+        }
+        // Árvore já lida (e guardada na requisição) antes da validação de referências
+        JsonNode bodyJson = CorpoRequisicao.ler(request);
+        return bodyJson != null && bodyJson.isObject() ? bodyJson : null;
+    }
+    
+    private void vincularJson(PreparedStatement stmt, int indice, JsonNode valor) throws SQLException {
+        if (valor.isNull()) {
+            stmt.setNull(indice, Types.VARCHAR);
+        } else if (valor.isIntegralNumber() && valor.canConvertToLong()) {
+            stmt.setLong(indice, valor.longValue());
+        } else if (valor.isNumber()) {
+            stmt.setBigDecimal(indice, valor.decimalValue());
+        } else if (valor.isBoolean()) {
+            stmt.setBoolean(indice, valor.booleanValue());
+        } else if (valor.isContainerNode()) {
+            // Objetos e arrays vão como jsonb
+            PGobject jsonb = new PGobject();
+            jsonb.setType("jsonb");
+            jsonb.setValue(valor.toString());
+            stmt.setObject(indice, jsonb);
+        } else {
+            stmt.setString(indice, valor.asText());
+        }
+    }
+    
+    // Parâmetros de rota e query parameters chegam como texto: números são vinculados como números
+    private void vincularTexto(PreparedStatement stmt, int indice, String valor) throws SQLException {
+        if (NUMERO_INTEIRO.matcher(valor).matches()) {
+            try {
+                stmt.setLong(indice, Long.parseLong(valor));
+                return;
+            } catch (NumberFormatException e) {
+                // Fora do intervalo de long: tratar como decimal
+            }
+        }
+        if (NUMERO_DECIMAL.matcher(valor).matches()) {
+            stmt.setBigDecimal(indice, new BigDecimal(valor));
+            return;
+        }
+        stmt.setString(indice, valor);
+    }
+    
+    // Escreve as linhas como array JSON direto no corpo da resposta, sem montar a lista em memória
+    // Com paginação, escreve {"data": [...], "next": cursor}; o cursor é o id_logico da última linha enviada
+    private void escreverResultSet(ResultSet rs, Response response, JsonMapper mapper, Paginacao paginacao) throws SQLException, IOException {
+        // Metadados das colunas resolvidos uma única vez
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        String[] nomesColunas = new String[columnCount + 1];
+        int[] tiposColunas = new int[columnCount + 1];
+        int colunaValor = -1;
+        int colunaCursor = -1;
+        for (int i = 1; i <= columnCount; i++) {
+            nomesColunas[i] = metaData.getColumnLabel(i);
+            if (COLUNA_CURSOR.equals(nomesColunas[i])) {
+                colunaCursor = i;
+            }
+            tiposColunas[i] = metaData.getColumnType(i);
+            String nomeTipo = metaData.getColumnTypeName(i);
+            if ("json".equals(nomeTipo) || "jsonb".equals(nomeTipo)) {
+                tiposColunas[i] = TIPO_JSON;
+            }
+            // Se há coluna 'valor' (estrutura de registros), apenas seu conteúdo JSON é retornado
+            if (colunaValor < 0 && "valor".equals(nomesColunas[i])) {
+                colunaValor = i;
+            }
+        }
         
+        // Sem fechamento automático: num erro no meio do resultado (ex.: falha ao buscar o próximo lote) o JSON fica
+        // sem os colchetes finais e o cliente distingue a resposta parcial de uma completa; close() só no sucesso
+        JsonGenerator gen = mapper.getFactory().createGenerator(response.raw().getOutputStream(), JsonEncoding.UTF8);
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        if (paginacao != null) {
+            gen.writeStartObject();
+            gen.writeFieldName("data");
+        }
+        gen.writeStartArray();
+        int linhasEscritas = 0;
+        Long ultimoCursor = null;
+        boolean temProxima = false;
         while (rs.next()) {
-            // Verificar se a query retorna apenas o campo 'valor' (estrutura de registros)
-            int columnCount = rs.getMetaData().getColumnCount();
-            
-            // Se há coluna 'valor', extrair apenas seu conteúdo JSON
-            boolean hasValorColumn = false;
-            for (int i = 1; i <= columnCount; i++) {
-                if ("valor".equals(rs.getMetaData().getColumnLabel(i))) {
-                    hasValorColumn = true;
+            if (paginacao != null) {
+                if (linhasEscritas == paginacao.getLimite()) {
+                    // Linha extra: só indica que existe próxima página
+                    temProxima = true;
                     break;
                 }
+                if (colunaCursor > 0) {
+                    long cursor = rs.getLong(colunaCursor);
+                    ultimoCursor = rs.wasNull() ? null : cursor;
+                }
             }
-            
-            if (hasValorColumn) {
-                // Extrair apenas o JSON do campo 'valor'
-                String valorJson = rs.getString("valor");
+            linhasEscritas++;
+
+            if (colunaValor > 0) {
+                // Extrair apenas o JSON do campo 'valor', copiando o texto gerado pelo Postgres sem reprocessar
+                String valorJson = rs.getString(colunaValor);
                 if (valorJson != null) {
-                    // Parsear o JSON e adicionar diretamente aos resultados
-                    JsonNode valorNode = mapper.readTree(valorJson);
-                    resultados.add(valorNode);
+                    gen.writeRawValue(valorJson);
                 } else {
-                    resultados.add(null);
+                    gen.writeNull();
                 }
             } else {
                 // Para queries que não retornam a estrutura de registros,
                 // montar objeto com todas as colunas
-                Map<String, Object> linha = new HashMap<>();
+                gen.writeStartObject();
                 for (int i = 1; i <= columnCount; i++) {
-                    String columnName = rs.getMetaData().getColumnLabel(i);
-                    Object value = rs.getObject(i);
-                    linha.put(columnName, value);
+                    gen.writeFieldName(nomesColunas[i]);
+                    escreverColuna(gen, rs, i, tiposColunas[i]);
                 }
-                resultados.add(linha);
+                gen.writeEndObject();
             }
         }
-        
-        return mapper.writeValueAsString(resultados);
-    }
-    
-    private Connection obterConexao() throws SQLException {
-        // Usar as mesmas configurações da classe DAO
-        String driverName = "org.postgresql.Driver";
-        String serverName = "localhost";
-        String mydatabase = "postgres";
-        int porta = 5432;
-        String url = "jdbc:postgresql://" + serverName + ":" + porta + "/" + mydatabase + "?currentSchema=db_flexbase";
-        String username = "postgres";
-        String password = "02022007";
-        
-        try {
-            Class.forName(driverName);
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("Driver PostgreSQL não encontrado", e);
-        }
-        
-        return DriverManager.getConnection(url, username, password);
-    }
-    
-    private String validarReferencias(Request request, int idAplicacao) {
-        try {
-            String body = request.body();
-            if (body == null || body.trim().isEmpty()) {
-                return null; // Sem dados para validar
+        gen.writeEndArray();
+        if (paginacao != null) {
+            if (temProxima && ultimoCursor != null) {
+                gen.writeNumberField("next", ultimoCursor);
+            } else {
+                gen.writeNullField("next");
             }
-            
-            JsonMapper mapper = JsonMapper.builder().build();
-            JsonNode bodyJson = mapper.readTree(body);
-            
-            // Verificar campos que podem ser referências (terminam com _id, id_, ou são apenas "id")
-            bodyJson.fieldNames().forEachRemaining(fieldName -> {
-                JsonNode fieldNode = bodyJson.get(fieldName);
-                
-                // Verificar se é um campo de referência (ID de outra tabela)
-                if (isReferenciaField(fieldName) && !fieldNode.isNull() && fieldNode.isNumber()) {
-                    int referenciaId = fieldNode.asInt();
-                    String tabelaReferenciada = obterTabelaReferenciada(fieldName);
-                    
-                    if (tabelaReferenciada != null && !existeRegistro(tabelaReferenciada, referenciaId, idAplicacao)) {
-                        throw new RuntimeException("Referência inválida: " + fieldName + " = " + referenciaId + " não existe na tabela " + tabelaReferenciada);
-                    }
-                }
-            });
-            
-            return null; // Todas as referências são válidas
-            
-        } catch (RuntimeException e) {
-            return e.getMessage();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null; // Em caso de erro, não bloquear
+            gen.writeEndObject();
         }
+        gen.close();
     }
     
-    private boolean isReferenciaField(String fieldName) {
-        // Considerar campos que são referências:
-        // - Terminam com "_id" (ex: cliente_id, produto_id)
-        // - Começam com "id_" (ex: id_cliente, id_produto)  
-        // - São compostos como "id_x" onde x é inicial da tabela (ex: id_c, id_p)
-        // - NÃO incluir campo "id" simples (chave primária da própria tabela)
-        
-        return !fieldName.equals("id") && 
-               (fieldName.endsWith("_id") || 
-                fieldName.startsWith("id_") || 
-                fieldName.matches("id_[a-zA-Z]+"));
-    }
-    
-    private String obterTabelaReferenciada(String fieldName) {
-        // Mapear nome do campo para nome da tabela
-        // Convenções possíveis:
-        // id_c -> clientes, id_p -> produtos, etc.
-        // cliente_id -> clientes, produto_id -> produtos
-        // id_cliente -> clientes, id_produto -> produtos
-        
-        if (fieldName.equals("id_c")) return "clientes";
-        if (fieldName.equals("id_p")) return "produtos";
-        
-        // Para campos como "cliente_id" -> "clientes"
-        if (fieldName.endsWith("_id")) {
-            String base = fieldName.substring(0, fieldName.length() - 3);
-            return pluralizarTabela(base);
-        }
-        
-        // Para campos como "id_cliente" -> "clientes"  
-        if (fieldName.startsWith("id_")) {
-            String base = fieldName.substring(3);
-            return pluralizarTabela(base);
+    private void escreverColuna(JsonGenerator gen, ResultSet rs, int i, int tipo) throws SQLException, IOException {
+        switch (tipo) {
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+                String texto = rs.getString(i);
+                if (texto == null) gen.writeNull(); else gen.writeString(texto);
+                return;
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                long inteiro = rs.getLong(i);
+                if (rs.wasNull()) gen.writeNull(); else gen.writeNumber(inteiro);
+                return;
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                BigDecimal decimal = rs.getBigDecimal(i);
+                if (decimal == null) gen.writeNull(); else gen.writeNumber(decimal);
+                return;
+            case Types.BOOLEAN:
+            case Types.BIT:
+                boolean booleano = rs.getBoolean(i);
+                if (rs.wasNull()) gen.writeNull(); else gen.writeBoolean(booleano);
+                return;
+            case TIPO_JSON:
+                // Colunas json/jsonb: o texto do Postgres já é JSON válido
+                String json = rs.getString(i);
+                if (json == null) gen.writeNull(); else gen.writeRawValue(json);
+                return;
+            default:
+                // Demais tipos (datas, double, etc.) serializados como antes pelo Jackson
+                gen.writeObject(rs.getObject(i));
         }
-        
-        return null; // Não é possível determinar a tabela
     }
     
-    private String pluralizarTabela(String nomeBase) {
-        // Regras simples de pluralização em português
-        if (nomeBase.equals("cliente")) return "clientes";
-        if (nomeBase.equals("produto")) return "produtos";
-        if (nomeBase.equals("usuario")) return "usuarios";
-        if (nomeBase.equals("categoria")) return "categorias";
-        
-        // Regra geral: adicionar 's' se não termina com 's'
-        if (!nomeBase.endsWith("s")) {
-            return nomeBase + "s";
+    // Referências validadas pelos relacionamentos do schema da tabela do endpoint
+    // A tabela é o primeiro segmento da rota, como nos endpoints gerados (/tabela e /tabela/{id})
+    private String validarReferencias(Endpoint endpoint, JsonNode bodyJson, int idAplicacao) {
+        if (bodyJson == null) {
+            return null; // Sem dados para validar
         }
         
-        return nomeBase;
-    }
-    
-    private boolean existeRegistro(String tabela, int id, int idAplicacao) {
-        try {
-            Connection conexao = obterConexao();
-            String query = "SELECT 1 FROM tb_registros WHERE tabela = ? AND id_aplicacao = ? AND (valor->>'id')::BIGINT = ? LIMIT 1";
-            
-            PreparedStatement stmt = conexao.prepareStatement(query);
-            stmt.setString(1, tabela);
-            stmt.setInt(2, idAplicacao);
-            stmt.setInt(3, id);
-            
-            ResultSet rs = stmt.executeQuery();
-            boolean existe = rs.next();
-            
-            rs.close();
-            stmt.close();
-            conexao.close();
-            
-            return existe;
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false; // Em caso de erro, assumir que não existe
-        }
+        String rota = endpoint.getRota() != null ? endpoint.getRota() : "";
+        String[] segmentos = rota.startsWith("/") ? rota.substring(1).split("/") : rota.split("/");
+        return ValidadorReferencias.validar(CacheAplicacoes.buscarPorId(idAplicacao), segmentos[0], bodyJson);
     }
     
     private String criarRespostaErro(JsonMapper mapper, String mensagem) {
@@ -1,13 +1,14 @@
 package service;
 
+import cache.BarramentoInvalidacao;
+import cache.CacheAplicacoes;
 import dao.EndpointDAO;
-import dao.AplicacaoDAO;
 import model.Endpoint;
 import model.Aplicacao;
 import filterDTO.EndpointFilterDTO;
 import responseDTO.EndpointDTO;
+import util.Json;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import spark.Request;
 import spark.Response;
@@ -23,7 +24,7 @@ public class EndpointService {
     
     public Object listar(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             // Obter informações do usuário logado através do token de autenticação
@@ -35,28 +36,22 @@ public class EndpointService {
             }
             
             EndpointDAO endpointDAO = new EndpointDAO();
-            AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
-            List<Endpoint> endpoints = endpointDAO.listarTodos();
+            // Apenas endpoints das aplicações do usuário, filtrados na própria consulta
+            List<Endpoint> endpoints = endpointDAO.listarPorUsuario(idUsuario);
             List<EndpointDTO> endpointsDTO = new ArrayList<>();
             
             for (Endpoint endpoint : endpoints) {
-                Aplicacao aplicacao = aplicacaoDAO.buscarPorId(endpoint.getIdAplicacao());
-                
-                // Filtrar endpoints apenas das aplicações que o usuário pode acessar
-                if (aplicacao != null && aplicacao.getIdUsuario() == idUsuario.intValue()) {
-                    String nomeAplicacao = aplicacao.getNome();
-                    String metodoNome = getMetodoNome(endpoint.getMetodo());
+                String metodoNome = getMetodoNome(endpoint.getMetodo());
                 
-                    endpointsDTO.add(new EndpointDTO(
-                        endpoint.getId(),
-                        endpoint.getIdAplicacao(),
-                        nomeAplicacao,
-                        endpoint.getRota(),
-                        endpoint.getQuery(),
-                        endpoint.getMetodo(),
-                        metodoNome
-                    ));
-                }
+                endpointsDTO.add(new EndpointDTO(
+                    endpoint.getId(),
+                    endpoint.getIdAplicacao(),
+                    endpoint.getNomeAplicacao(),
+                    endpoint.getRota(),
+                    endpoint.getQuery(),
+                    endpoint.getMetodo(),
+                    metodoNome
+                ));
             }
             
             return mapper.writeValueAsString(endpointsDTO);
@@ -69,7 +64,7 @@ public class EndpointService {
     
     public Object buscarPorId(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             // Obter informações do usuário logado através do token de autenticação
@@ -82,7 +77,6 @@ public class EndpointService {
             
             int id = Integer.parseInt(request.params(":id"));
             EndpointDAO endpointDAO = new EndpointDAO();
-            AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
             Endpoint endpoint = endpointDAO.buscarPorId(id);
             
             if (endpoint == null) {
@@ -90,7 +84,7 @@ public class EndpointService {
                 return criarRespostaErro(mapper, "Endpoint não encontrado");
             }
             
-            Aplicacao aplicacao = aplicacaoDAO.buscarPorId(endpoint.getIdAplicacao());
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(endpoint.getIdAplicacao());
             if (aplicacao == null) {
                 response.status(404);
                 return criarRespostaErro(mapper, "Aplicação não encontrada");
@@ -128,7 +122,7 @@ public class EndpointService {
     
     public Object buscarPorAplicacao(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             // Obter informações do usuário logado através do token de autenticação
@@ -141,9 +135,8 @@ public class EndpointService {
             
             int idAplicacao = Integer.parseInt(request.params(":idAplicacao"));
             EndpointDAO endpointDAO = new EndpointDAO();
-            AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
             
-            Aplicacao aplicacao = aplicacaoDAO.buscarPorId(idAplicacao);
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(idAplicacao);
             if (aplicacao == null) {
                 response.status(404);
                 return criarRespostaErro(mapper, "Aplicação não encontrada");
@@ -186,13 +179,13 @@ public class EndpointService {
     
     public Object buscarComFiltro(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             EndpointFilterDTO filtro = null;
             try {
                 if (request.body() != null && !request.body().isEmpty()) {
-                    filtro = mapper.readValue(request.body(), new TypeReference<EndpointFilterDTO>() {});
+                    filtro = Json.leitor(EndpointFilterDTO.class).readValue(request.body());
                 }
             } catch (JsonProcessingException e) {
                 response.status(400);
@@ -200,7 +193,6 @@ public class EndpointService {
             }
             
             EndpointDAO endpointDAO = new EndpointDAO();
-            AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
             List<Endpoint> endpoints;
             
             if (filtro != null) {
@@ -211,8 +203,8 @@ public class EndpointService {
             
             List<EndpointDTO> endpointsDTO = new ArrayList<>();
             for (Endpoint endpoint : endpoints) {
-                Aplicacao aplicacao = aplicacaoDAO.buscarPorId(endpoint.getIdAplicacao());
-                String nomeAplicacao = aplicacao != null ? aplicacao.getNome() : "Aplicação não encontrada";
+                // Nome da aplicação já vem na consulta
+                String nomeAplicacao = endpoint.getNomeAplicacao() != null ? endpoint.getNomeAplicacao() : "Aplicação não encontrada";
                 String metodoNome = getMetodoNome(endpoint.getMetodo());
                 
                 endpointsDTO.add(new EndpointDTO(
@@ -236,7 +228,7 @@ public class EndpointService {
     
     public Object inserir(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             // Obter informações do usuário logado através do token de autenticação
@@ -247,7 +239,9 @@ public class EndpointService {
                 return criarRespostaErro(mapper, "Token de autenticação inválido");
             }
             
-            Endpoint endpoint = mapper.readValue(request.body(), new TypeReference<Endpoint>() {});
+            Endpoint endpoint = Json.leitor(Endpoint.class).readValue(request.body());
+            // Endpoint personalizado: ${limit} e ${after} são campos da requisição, sem a paginação dos gerados
+            endpoint.setGerado(false);
             
             if (endpoint.getIdAplicacao() <= 0 ||
                 endpoint.getRota() == null || endpoint.getRota().trim().isEmpty() ||
@@ -258,10 +252,9 @@ public class EndpointService {
             }
             
             EndpointDAO endpointDAO = new EndpointDAO();
-            AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
             
             // Verificar se aplicação existe
-            Aplicacao aplicacao = aplicacaoDAO.buscarPorId(endpoint.getIdAplicacao());
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(endpoint.getIdAplicacao());
             if (aplicacao == null) {
                 response.status(400);
                 return criarRespostaErro(mapper, "Aplicação não encontrada");
@@ -274,6 +267,7 @@ public class EndpointService {
             }
             
             if (endpointDAO.inserir(endpoint)) {
+                BarramentoInvalidacao.rotas(endpoint.getIdAplicacao());
                 response.status(201);
                 return criarRespostaSucesso(mapper, "Endpoint criado com sucesso");
             } else {
@@ -292,7 +286,7 @@ public class EndpointService {
     
     public Object atualizar(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             // Obter informações do usuário logado através do token de autenticação
@@ -304,7 +298,7 @@ public class EndpointService {
             }
             
             int id = Integer.parseInt(request.params(":id"));
-            Endpoint endpoint = mapper.readValue(request.body(), new TypeReference<Endpoint>() {});
+            Endpoint endpoint = Json.leitor(Endpoint.class).readValue(request.body());
             endpoint.setId(id);
             
             if (endpoint.getRota() == null || endpoint.getRota().trim().isEmpty() ||
@@ -315,7 +309,6 @@ public class EndpointService {
             }
             
             EndpointDAO endpointDAO = new EndpointDAO();
-            AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
             
             // Verificar se endpoint existe
             Endpoint endpointExistente = endpointDAO.buscarPorId(id);
@@ -325,7 +318,7 @@ public class EndpointService {
             }
             
             // Verificar se a aplicação existe e se o usuário tem permissão
-            Aplicacao aplicacao = aplicacaoDAO.buscarPorId(endpointExistente.getIdAplicacao());
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(endpointExistente.getIdAplicacao());
             if (aplicacao == null) {
                 response.status(404);
                 return criarRespostaErro(mapper, "Aplicação não encontrada");
@@ -341,6 +334,7 @@ public class EndpointService {
             endpoint.setIdAplicacao(endpointExistente.getIdAplicacao());
             
             if (endpointDAO.atualizar(endpoint)) {
+                BarramentoInvalidacao.rotas(endpoint.getIdAplicacao());
                 return criarRespostaSucesso(mapper, "Endpoint atualizado com sucesso");
             } else {
                 response.status(500);
@@ -361,7 +355,7 @@ public class EndpointService {
     
     public Object excluir(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             // Obter informações do usuário logado através do token de autenticação
@@ -374,7 +368,6 @@ public class EndpointService {
             
             int id = Integer.parseInt(request.params(":id"));
             EndpointDAO endpointDAO = new EndpointDAO();
-            AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
             
             // Verificar se endpoint existe
             Endpoint endpointExistente = endpointDAO.buscarPorId(id);
@@ -384,7 +377,7 @@ public class EndpointService {
             }
             
             // Verificar se a aplicação existe e se o usuário tem permissão
-            Aplicacao aplicacao = aplicacaoDAO.buscarPorId(endpointExistente.getIdAplicacao());
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(endpointExistente.getIdAplicacao());
             if (aplicacao == null) {
                 response.status(404);
                 return criarRespostaErro(mapper, "Aplicação não encontrada");
@@ -397,6 +390,8 @@ public class EndpointService {
             }
             
             if (endpointDAO.excluir(id)) {
+                // Rotas, consulta compilada e permissões das keys (associações removidas em cascata)
+                BarramentoInvalidacao.endpointExcluido(endpointExistente.getIdAplicacao(), id);
                 return criarRespostaSucesso(mapper, "Endpoint excluído com sucesso");
             } else {
                 response.status(500);
@@ -3,22 +3,38 @@ package service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import cache.BarramentoInvalidacao;
+import cache.CacheAplicacoes;
+import cache.CacheSchemas;
 import dao.AplicacaoDAO;
 import dao.EndpointDAO;
+import dao.IndiceDAO;
+import dao.TabelasNativasDAO;
 import model.Aplicacao;
 import model.Endpoint;
+import util.ConsultaCompilada;
+import util.Json;
+import util.RegraCampo;
+import util.SchemaCompilado;
+import util.TabelaSchema;
 import spark.Request;
 import spark.Response;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class GeradorEndpointsService {
     
     public Object generateEndpoints(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             // Obter informações do usuário logado através do token de autenticação
@@ -40,7 +56,7 @@ public class GeradorEndpointsService {
             
             // Verificar se a aplicação existe e pertence ao usuário
             AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
-            Aplicacao aplicacao = aplicacaoDAO.buscarPorId(idAplicacao);
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(idAplicacao);
             
             if (aplicacao == null) {
                 response.status(404);
@@ -74,25 +90,20 @@ public class GeradorEndpointsService {
                 return criarRespostaErro(mapper, "Tabelas não encontradas ou formato inválido");
             }
             
-            // Atualizar o schema da aplicação
-            aplicacao.setSchemaBanco(banco);
-            if (!aplicacaoDAO.atualizar(aplicacao)) {
+            // Atualizar o schema da aplicação (e as tabelas nativas, se for o modo de armazenamento dela)
+            int endpointsCriados;
+            try {
+                endpointsCriados = aplicarSchema(aplicacao, banco, aplicacaoDAO);
+            } catch (SQLException e) {
+                e.printStackTrace();
+                response.status(400);
+                return criarRespostaErro(mapper, "Não foi possível aplicar o schema nas tabelas nativas: " + e.getMessage());
+            }
+            if (endpointsCriados < 0) {
                 response.status(500);
                 return criarRespostaErro(mapper, "Erro ao atualizar aplicação");
             }
             
-            EndpointDAO endpointDAO = new EndpointDAO();
-            int endpointsCriados = 0;
-            
-            // Gerar endpoints CRUD para cada tabela
-            for (JsonNode tabela : tabelas) {
-                String nomeTabela = tabela.get("nome").asText();
-                JsonNode campos = tabela.get("campos");
-                
-                // Criar endpoints CRUD
-                endpointsCriados += criarEndpointsCRUD(endpointDAO, aplicacao.getId(), nomeTabela, campos);
-            }
-            
             Map<String, Object> resultado = new HashMap<>();
             resultado.put("success", true);
             resultado.put("message", "Endpoints gerados com sucesso");
@@ -110,35 +121,184 @@ public class GeradorEndpointsService {
         }
     }
     
-    private int criarEndpointsCRUD(EndpointDAO endpointDAO, int idAplicacao, String nomeTabela, JsonNode campos) {
-        int count = 0;
+    // Troca o modo de armazenamento da aplicação (jsonb <-> nativo) mantendo o schema atual
+    // Os dados são movidos entre tb_registros e as tabelas nativas na mesma transação da troca
+    public Object alterarArmazenamento(Request request, Response response) {
+        response.type("application/json");
+        JsonMapper mapper = Json.mapper();
+        
+        try {
+            // Obter informações do usuário logado através do token de autenticação
+            Integer idUsuario = request.attribute("userId");
+            
+            if (idUsuario == null) {
+                response.status(401);
+                return criarRespostaErro(mapper, "Token de autenticação inválido");
+            }
+            
+            int idAplicacao;
+            try {
+                idAplicacao = Integer.parseInt(request.params(":id"));
+            } catch (NumberFormatException e) {
+                response.status(400);
+                return criarRespostaErro(mapper, "ID da aplicação inválido");
+            }
+            
+            AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(idAplicacao);
+            
+            if (aplicacao == null) {
+                response.status(404);
+                return criarRespostaErro(mapper, "Aplicação não encontrada");
+            }
+            
+            if (aplicacao.getIdUsuario() != idUsuario.intValue()) {
+                response.status(403);
+                return criarRespostaErro(mapper, "Você não tem permissão para modificar esta aplicação");
+            }
+            
+            if (aplicacao.getSchemaBanco() == null || !aplicacao.getSchemaBanco().isObject()) {
+                response.status(400);
+                return criarRespostaErro(mapper, "A aplicação ainda não tem schema; gere os endpoints primeiro");
+            }
+            
+            JsonNode corpo;
+            try {
+                corpo = mapper.readTree(request.body());
+            } catch (JsonProcessingException e) {
+                response.status(400);
+                return criarRespostaErro(mapper, "JSON inválido");
+            }
+            String armazenamento = corpo != null ? corpo.path("armazenamento").asText("") : "";
+            if (!SchemaCompilado.ARMAZENAMENTO_JSONB.equals(armazenamento) && !SchemaCompilado.ARMAZENAMENTO_NATIVO.equals(armazenamento)) {
+                response.status(400);
+                return criarRespostaErro(mapper, "Armazenamento inválido: use jsonb ou nativo");
+            }
+            
+            // Mesmo schema, só com o novo modo (o JsonNode em cache é somente leitura: alterar uma cópia)
+            ObjectNode banco = ((ObjectNode) aplicacao.getSchemaBanco()).deepCopy();
+            banco.put("armazenamento", armazenamento);
+            
+            int endpointsCriados;
+            try {
+                endpointsCriados = aplicarSchema(aplicacao, banco, aplicacaoDAO);
+            } catch (SQLException e) {
+                e.printStackTrace();
+                response.status(400);
+                return criarRespostaErro(mapper, "Não foi possível migrar os dados: " + e.getMessage());
+            }
+            if (endpointsCriados < 0) {
+                response.status(500);
+                return criarRespostaErro(mapper, "Erro ao atualizar aplicação");
+            }
+            
+            Map<String, Object> resultado = new HashMap<>();
+            resultado.put("success", true);
+            resultado.put("message", "Armazenamento alterado para " + armazenamento);
+            resultado.put("aplicacao_id", aplicacao.getId());
+            resultado.put("armazenamento", armazenamento);
+            resultado.put("endpoints_atualizados", endpointsCriados);
+            
+            return mapper.writeValueAsString(resultado);
+            
+        } catch (Exception e) {
+            e.printStackTrace();
+            response.status(500);
+            return criarRespostaErro(mapper, "Erro interno do servidor: " + e.getMessage());
+        }
+    }
+    
+    // Grava o novo schema, ajusta o armazenamento e (re)gera os endpoints CRUD de cada tabela
+    // Retorna quantos endpoints foram salvos, ou -1 se não foi possível atualizar a aplicação
+    // SQLException: o schema não pôde ser aplicado nas tabelas nativas (nada foi alterado)
+    private int aplicarSchema(Aplicacao aplicacao, JsonNode banco, AplicacaoDAO aplicacaoDAO) throws SQLException {
+        SchemaCompilado anterior = CacheSchemas.obter(aplicacao);
+        boolean eraNativo = anterior != null && anterior.isNativo();
+        if (!banco.has("armazenamento") && banco instanceof ObjectNode) {
+            // Schema sem o modo (ex.: enviado pelo editor de banco) mantém o armazenamento atual da aplicação
+            ((ObjectNode) banco).put("armazenamento", eraNativo ? SchemaCompilado.ARMAZENAMENTO_NATIVO : SchemaCompilado.ARMAZENAMENTO_JSONB);
+        }
+        SchemaCompilado schema = SchemaCompilado.compilar(banco);
+        
+        // Endpoints CRUD de cada tabela, no modo do novo schema
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (JsonNode tabela : banco.get("tabelas")) {
+            endpoints.addAll(gerarEndpointsCRUD(aplicacao.getId(), tabela.get("nome").asText(), tabela.get("campos"), schema));
+        }
+        
+        aplicacao.setSchemaBanco(banco);
+        int endpointsCriados = 0;
+        if (schema.isNativo() || eraNativo) {
+            // DDL, cópia dos dados, o novo schema_banco e os endpoints numa única transação:
+            // nenhuma gravação pelos endpoints do modo anterior chega depois da troca
+            new TabelasNativasDAO().aplicar(aplicacao.getId(), schema, eraNativo, banco.toString(), endpoints);
+            endpointsCriados = endpoints.size();
+        } else if (!aplicacaoDAO.atualizar(aplicacao)) {
+            return -1;
+        } else {
+            EndpointDAO endpointDAO = new EndpointDAO();
+            for (Endpoint endpoint : endpoints) {
+                if (endpointDAO.salvarGerado(endpoint)) endpointsCriados++;
+            }
+        }
+        // Schema novo: a aplicação em cache (neste nó e nos demais) fica desatualizada
+        BarramentoInvalidacao.aplicacao(aplicacao.getId());
+        if (schema.isNativo() != eraNativo) {
+            // Os dados mudaram de lugar: os filtros de referência da aplicação são reconstruídos
+            BarramentoInvalidacao.filtrosReferencia(aplicacao.getId());
+        }
+        
+        // Índice da chave lógica: sustenta a paginação por cursor e as buscas, atualizações e exclusões por id
+        // (no modo nativo a chave primária da tabela já cumpre esse papel)
+        IndiceDAO indiceDAO = new IndiceDAO();
+        Set<String> indicesMantidos = new HashSet<>();
+        if (!schema.isNativo()) {
+            for (JsonNode tabela : banco.get("tabelas")) {
+                String indice = indiceDAO.garantirIndiceChave(aplicacao.getId(), tabela.get("nome").asText(),
+                    encontrarCampoPrimario(tabela.get("campos")));
+                if (indice != null) {
+                    indicesMantidos.add(indice);
+                }
+            }
+        }
+        
+        // Tabelas que saíram do schema (ou trocaram de chave) não precisam mais dos seus índices
+        int indicesRemovidos = indiceDAO.removerIndicesObsoletos(aplicacao.getId(), indicesMantidos);
+        if (indicesRemovidos > 0) {
+            System.out.println("Índices obsoletos removidos da aplicação " + aplicacao.getId() + ": " + indicesRemovidos);
+        }
+        
+        // Rotas da aplicação mudaram: descartar a tabela de rotas compilada
+        BarramentoInvalidacao.rotas(aplicacao.getId());
+        return endpointsCriados;
+    }
+    
+    private List<Endpoint> gerarEndpointsCRUD(int idAplicacao, String nomeTabela, JsonNode campos, SchemaCompilado schema) {
+        List<Endpoint> endpoints = new ArrayList<>();
+        // No modo nativo as queries usam a tabela Postgres da aplicação em vez da tb_registros
+        TabelaSchema nativa = schema.isNativo() ? schema.getTabela(nomeTabela) : null;
         
         // 1. CREATE (POST) - Inserir registro
-        String createQuery = gerarQueryInsert(nomeTabela, campos);
-        Endpoint createEndpoint = new Endpoint(idAplicacao, "/" + nomeTabela, createQuery, 2); // POST = 2
-        if (endpointDAO.inserir(createEndpoint)) count++;
+        String createQuery = nativa != null ? gerarQueryInsertNativa(idAplicacao, schema, nativa) : gerarQueryInsert(nomeTabela, campos);
+        endpoints.add(new Endpoint(idAplicacao, "/" + nomeTabela, createQuery, 2)); // POST = 2
         
-        // 2. READ ALL (GET) - Listar todos os registros
-        String readAllQuery = gerarQuerySelectAll(nomeTabela);
-        Endpoint readAllEndpoint = new Endpoint(idAplicacao, "/" + nomeTabela, readAllQuery, 1); // GET = 1
-        if (endpointDAO.inserir(readAllEndpoint)) count++;
+        // 2. READ ALL (GET) - Listar registros paginados (?limit= e ?after=)
+        String readAllQuery = nativa != null ? gerarQuerySelectAllNativa(idAplicacao, nativa) : gerarQuerySelectAll(idAplicacao, nomeTabela, campos);
+        endpoints.add(new Endpoint(idAplicacao, "/" + nomeTabela, readAllQuery, 1)); // GET = 1
         
         // 3. READ BY ID (GET) - Buscar por ID
-        String readByIdQuery = gerarQuerySelectById(nomeTabela, campos);
-        Endpoint readByIdEndpoint = new Endpoint(idAplicacao, "/" + nomeTabela + "/{id}", readByIdQuery, 1); // GET = 1
-        if (endpointDAO.inserir(readByIdEndpoint)) count++;
+        String readByIdQuery = nativa != null ? gerarQuerySelectByIdNativa(idAplicacao, nativa) : gerarQuerySelectById(idAplicacao, nomeTabela, campos);
+        endpoints.add(new Endpoint(idAplicacao, "/" + nomeTabela + "/{id}", readByIdQuery, 1)); // GET = 1
         
         // 4. UPDATE (PUT) - Atualizar registro
-        String updateQuery = gerarQueryUpdate(nomeTabela, campos);
-        Endpoint updateEndpoint = new Endpoint(idAplicacao, "/" + nomeTabela + "/{id}", updateQuery, 3); // PUT = 3
-        if (endpointDAO.inserir(updateEndpoint)) count++;
+        String updateQuery = nativa != null ? gerarQueryUpdateNativa(idAplicacao, schema, nativa) : gerarQueryUpdate(idAplicacao, nomeTabela, campos);
+        endpoints.add(new Endpoint(idAplicacao, "/" + nomeTabela + "/{id}", updateQuery, 3)); // PUT = 3
         
         // 5. DELETE (DELETE) - Excluir registro
-        String deleteQuery = gerarQueryDelete(nomeTabela, campos);
-        Endpoint deleteEndpoint = new Endpoint(idAplicacao, "/" + nomeTabela + "/{id}", deleteQuery, 4); // DELETE = 4
-        if (endpointDAO.inserir(deleteEndpoint)) count++;
+        String deleteQuery = nativa != null ? gerarQueryDeleteNativa(idAplicacao, nativa) : gerarQueryDelete(idAplicacao, nomeTabela, campos);
+        endpoints.add(new Endpoint(idAplicacao, "/" + nomeTabela + "/{id}", deleteQuery, 4)); // DELETE = 4
         
-        return count;
+        return endpoints;
     }
     
     private String gerarQueryInsert(String nomeTabela, JsonNode campos) {
@@ -158,7 +318,8 @@ public class GeradorEndpointsService {
             query.append("'").append(nomeCampo).append("', ");
             
             if (isPrimaryKey || "id".equals(tipoCampo)) {
-                query.append("fn_next_id(${id_aplicacao}, '").append(nomeTabela).append("')");
+                // ID reservado em bloco pelo AlocadorIds (em vez de um fn_next_id por registro)
+                query.append("${").append(ConsultaCompilada.PREFIXO_PROXIMO_ID).append(nomeTabela).append("}");
             } else if ("criptografia".equals(tipoCampo)) {
                 query.append("MD5(${").append(nomeCampo).append("})");
             } else {
@@ -173,39 +334,40 @@ public class GeradorEndpointsService {
         return query.toString();
     }
     
-    private String gerarQuerySelectAll(String nomeTabela) {
-        return "SELECT id, (valor->>'id')::BIGINT as id_logico, valor FROM tb_registros WHERE tabela = '" + 
-               nomeTabela + "' AND id_aplicacao = ${id_aplicacao} ORDER BY (valor->>'id')::BIGINT";
+    // Nos filtros o id da aplicação vai como literal (e não ${id_aplicacao}): o índice parcial
+    // "WHERE id_aplicacao = N AND tabela = 'x'" só é usado se o planner enxergar a constante,
+    // inclusive no plano genérico que o PostgreSQL passa a usar após algumas execuções
+    private String gerarQuerySelectAll(int idAplicacao, String nomeTabela, JsonNode campos) {
+        // Paginação por cursor: ${after} é o último id_logico recebido e ${limit} o tamanho da página
+        String campoPrimario = encontrarCampoPrimario(campos);
+        String chave = "(valor->>'" + campoPrimario + "')::BIGINT";
+        return "SELECT id, " + chave + " as id_logico, valor FROM tb_registros WHERE tabela = '" + 
+               nomeTabela + "' AND id_aplicacao = " + idAplicacao + " AND " + chave + " > ${after} ORDER BY " + chave + " LIMIT ${limit}";
     }
     
-    private String gerarQuerySelectById(String nomeTabela, JsonNode campos) {
-        // Encontrar qual é o campo chave primária
-        String campoPrimario = "id"; // padrão
+    // Chave lógica da tabela: a mesma em todas as queries geradas e no índice de expressão (IndiceDAO)
+    private String encontrarCampoPrimario(JsonNode campos) {
         for (JsonNode campo : campos) {
             if ((campo.has("chave_primaria") && campo.get("chave_primaria").asBoolean()) ||
                 "id".equals(campo.get("tipo").asText())) {
-                campoPrimario = campo.get("nome").asText();
-                break;
+                return campo.get("nome").asText();
             }
         }
+        return "id"; // padrão
+    }
+    
+    private String gerarQuerySelectById(int idAplicacao, String nomeTabela, JsonNode campos) {
+        String campoPrimario = encontrarCampoPrimario(campos);
         
         return "SELECT id, (valor->>'" + campoPrimario + "')::BIGINT as id_logico, valor FROM tb_registros WHERE tabela = '" + 
-               nomeTabela + "' AND id_aplicacao = ${id_aplicacao} AND (valor->>'" + campoPrimario + "')::BIGINT = ${id}";
+               nomeTabela + "' AND id_aplicacao = " + idAplicacao + " AND (valor->>'" + campoPrimario + "')::BIGINT = ${id}";
     }
     
-    private String gerarQueryUpdate(String nomeTabela, JsonNode campos) {
+    private String gerarQueryUpdate(int idAplicacao, String nomeTabela, JsonNode campos) {
         StringBuilder query = new StringBuilder();
         query.append("UPDATE tb_registros SET valor = jsonb_build_object(");
         
-        // Primeiro, encontrar qual é o campo chave primária
-        String campoPrimario = "id"; // padrão
-        for (JsonNode campo : campos) {
-            if ((campo.has("chave_primaria") && campo.get("chave_primaria").asBoolean()) ||
-                "id".equals(campo.get("tipo").asText())) {
-                campoPrimario = campo.get("nome").asText();
-                break;
-            }
-        }
+        String campoPrimario = encontrarCampoPrimario(campos);
         
         boolean primeiro = true;
         for (JsonNode campo : campos) {
@@ -231,24 +393,93 @@ public class GeradorEndpointsService {
         }
         
         query.append(") WHERE tabela = '").append(nomeTabela)
-             .append("' AND id_aplicacao = ${id_aplicacao} AND (valor->>'").append(campoPrimario).append("')::BIGINT = ${id}");
+             .append("' AND id_aplicacao = ").append(idAplicacao).append(" AND (valor->>'").append(campoPrimario).append("')::BIGINT = ${id}");
         
         return query.toString();
     }
     
-    private String gerarQueryDelete(String nomeTabela, JsonNode campos) {
-        // Encontrar qual é o campo chave primária
-        String campoPrimario = "id"; // padrão
-        for (JsonNode campo : campos) {
-            if ((campo.has("chave_primaria") && campo.get("chave_primaria").asBoolean()) ||
-                "id".equals(campo.get("tipo").asText())) {
-                campoPrimario = campo.get("nome").asText();
-                break;
+    private String gerarQueryDelete(int idAplicacao, String nomeTabela, JsonNode campos) {
+        String campoPrimario = encontrarCampoPrimario(campos);
+        
+        return "DELETE FROM tb_registros WHERE tabela = '" + nomeTabela + 
+               "' AND id_aplicacao = " + idAplicacao + " AND (valor->>'" + campoPrimario + "')::BIGINT = ${id}";
+    }
+    
+    // Modo nativo: colunas tipadas (ver TabelasNativasDAO); os valores da requisição passam por CAST para o tipo
+    // da coluna e o documento devolvido é a própria linha (to_jsonb), no mesmo formato do modo jsonb
+    private String gerarQueryInsertNativa(int idAplicacao, SchemaCompilado schema, TabelaSchema tabela) {
+        StringBuilder colunas = new StringBuilder();
+        StringBuilder valores = new StringBuilder();
+        
+        for (Map.Entry<String, String> coluna : TabelasNativasDAO.colunas(schema, tabela).entrySet()) {
+            if (colunas.length() > 0) {
+                colunas.append(", ");
+                valores.append(", ");
+            }
+            colunas.append(TabelasNativasDAO.identificador(coluna.getKey()));
+            
+            RegraCampo campo = tabela.getCampo(coluna.getKey());
+            if (campo == null || campo.isChave()) {
+                // Chave (ou a coluna id das tabelas sem chave declarada) reservada em bloco pelo AlocadorIds
+                valores.append("${").append(ConsultaCompilada.PREFIXO_PROXIMO_ID).append(tabela.getNome()).append("}");
+            } else if (campo.isCriptografado()) {
+                valores.append("MD5(CAST(${").append(campo.getNome()).append("} AS text))");
+            } else {
+                valores.append("CAST(${").append(campo.getNome()).append("} AS ").append(coluna.getValue()).append(")");
             }
         }
         
-        return "DELETE FROM tb_registros WHERE tabela = '" + nomeTabela + 
-               "' AND id_aplicacao = ${id_aplicacao} AND (valor->>'" + campoPrimario + "')::BIGINT = ${id}";
+        return "INSERT INTO " + TabelasNativasDAO.nomeTabela(idAplicacao, tabela.getNome()) + " (" + colunas + ") VALUES (" + valores + ")";
+    }
+    
+    private String gerarQuerySelectAllNativa(int idAplicacao, TabelaSchema tabela) {
+        // Paginação por cursor pela chave primária, como no modo jsonb
+        String chave = "t." + TabelasNativasDAO.identificador(TabelasNativasDAO.colunaChave(tabela));
+        return "SELECT to_jsonb(t) AS valor, " + chave + " AS id_logico FROM " + TabelasNativasDAO.nomeTabela(idAplicacao, tabela.getNome())
+            + " t WHERE " + chave + " > ${after} ORDER BY " + chave + " LIMIT ${limit}";
+    }
+    
+    private String gerarQuerySelectByIdNativa(int idAplicacao, TabelaSchema tabela) {
+        String chave = "t." + TabelasNativasDAO.identificador(TabelasNativasDAO.colunaChave(tabela));
+        return "SELECT to_jsonb(t) AS valor, " + chave + " AS id_logico FROM " + TabelasNativasDAO.nomeTabela(idAplicacao, tabela.getNome())
+            + " t WHERE " + chave + " = CAST(${id} AS bigint)";
+    }
+    
+    private String gerarQueryUpdateNativa(int idAplicacao, SchemaCompilado schema, TabelaSchema tabela) {
+        String chave = TabelasNativasDAO.identificador(TabelasNativasDAO.colunaChave(tabela));
+        StringBuilder atribuicoes = new StringBuilder();
+        
+        for (Map.Entry<String, String> coluna : TabelasNativasDAO.colunas(schema, tabela).entrySet()) {
+            RegraCampo campo = tabela.getCampo(coluna.getKey());
+            if (campo == null || campo.isChave()) {
+                // Chaves mantêm o valor existente
+                continue;
+            }
+            if (atribuicoes.length() > 0) {
+                atribuicoes.append(", ");
+            }
+            String nomeColuna = TabelasNativasDAO.identificador(campo.getNome());
+            atribuicoes.append(nomeColuna).append(" = ");
+            if (campo.isCriptografado()) {
+                atribuicoes.append("CASE WHEN ${").append(campo.getNome()).append("} IS NOT NULL THEN MD5(CAST(${")
+                           .append(campo.getNome()).append("} AS text)) ELSE ").append(nomeColuna).append(" END");
+            } else {
+                atribuicoes.append("COALESCE(CAST(${").append(campo.getNome()).append("} AS ").append(coluna.getValue())
+                           .append("), ").append(nomeColuna).append(")");
+            }
+        }
+        if (atribuicoes.length() == 0) {
+            // Tabela só com chaves: o UPDATE continua válido e informa se a linha existe
+            atribuicoes.append(chave).append(" = ").append(chave);
+        }
+        
+        return "UPDATE " + TabelasNativasDAO.nomeTabela(idAplicacao, tabela.getNome()) + " SET " + atribuicoes
+            + " WHERE " + chave + " = CAST(${id} AS bigint)";
+    }
+    
+    private String gerarQueryDeleteNativa(int idAplicacao, TabelaSchema tabela) {
+        return "DELETE FROM " + TabelasNativasDAO.nomeTabela(idAplicacao, tabela.getNome()) + " WHERE "
+            + TabelasNativasDAO.identificador(TabelasNativasDAO.colunaChave(tabela)) + " = CAST(${id} AS bigint)";
     }
     
     private String criarRespostaErro(JsonMapper mapper, String mensagem) {
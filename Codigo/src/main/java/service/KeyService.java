@@ -1,12 +1,13 @@
 package service;
 
+import cache.BarramentoInvalidacao;
+import cache.CacheAplicacoes;
 import dao.KeyDAO;
-import dao.AplicacaoDAO;
 import model.Key;
 import model.Aplicacao;
 import responseDTO.KeyDTO;
+import util.Json;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import spark.Request;
 import spark.Response;
@@ -20,7 +21,7 @@ public class KeyService {
     
     public Object listarPorAplicacao(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             // Obter informações do usuário logado através do token de autenticação
@@ -33,11 +34,10 @@ public class KeyService {
             
             int idAplicacao = Integer.parseInt(request.params(":idAplicacao"));
             
-            AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
             KeyDAO keyDAO = new KeyDAO();
             
             // Verificar se a aplicação existe e se o usuário tem permissão
-            Aplicacao aplicacao = aplicacaoDAO.buscarPorId(idAplicacao);
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(idAplicacao);
             if (aplicacao == null) {
                 response.status(404);
                 return criarRespostaErro(mapper, "Aplicação não encontrada");
@@ -80,7 +80,7 @@ public class KeyService {
     
     public Object buscarPorId(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             // Obter informações do usuário logado através do token de autenticação
@@ -93,7 +93,6 @@ public class KeyService {
             
             int id = Integer.parseInt(request.params(":id"));
             KeyDAO keyDAO = new KeyDAO();
-            AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
             
             Key key = keyDAO.buscarPorId(id);
             
@@ -103,7 +102,7 @@ public class KeyService {
             }
             
             // Verificar se o usuário tem permissão para visualizar esta key
-            Aplicacao aplicacao = aplicacaoDAO.buscarPorId(key.getIdAplicacao());
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(key.getIdAplicacao());
             if (aplicacao == null || aplicacao.getIdUsuario() != idUsuario.intValue()) {
                 response.status(403);
                 return criarRespostaErro(mapper, "Você não tem permissão para visualizar esta key");
@@ -136,10 +135,10 @@ public class KeyService {
     
     public Object inserir(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
-            Map<String, Object> requestData = mapper.readValue(request.body(), new TypeReference<Map<String, Object>>() {});
+            Map<String, Object> requestData = Json.leitor(Json.MAPA).readValue(request.body());
             
             // Obter ID do usuário logado através do token de autenticação
             Integer idUsuario = request.attribute("userId");
@@ -159,11 +158,10 @@ public class KeyService {
             String descricao = (String) requestData.getOrDefault("descricao", "");
             boolean ativo = (Boolean) requestData.getOrDefault("ativo", true);
             
-            AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
             KeyDAO keyDAO = new KeyDAO();
             
             // Verificar se a aplicação existe e se o usuário tem permissão
-            Aplicacao aplicacao = aplicacaoDAO.buscarPorId(idAplicacao);
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(idAplicacao);
             if (aplicacao == null) {
                 response.status(404);
                 return criarRespostaErro(mapper, "Aplicação não encontrada");
@@ -185,6 +183,7 @@ public class KeyService {
                     @SuppressWarnings("unchecked")
                     List<Integer> endpointsIds = (List<Integer>) requestData.get("endpointsAssociados");
                     keyDAO.atualizarEndpointsAssociados(key.getId(), endpointsIds);
+                    BarramentoInvalidacao.key(key.getId());
                 }
                 
                 response.status(201);
@@ -214,7 +213,7 @@ public class KeyService {
     
     public Object atualizar(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             // Obter informações do usuário logado através do token de autenticação
@@ -226,10 +225,9 @@ public class KeyService {
             }
             
             int id = Integer.parseInt(request.params(":id"));
-            Map<String, Object> requestData = mapper.readValue(request.body(), new TypeReference<Map<String, Object>>() {});
+            Map<String, Object> requestData = Json.leitor(Json.MAPA).readValue(request.body());
             
             KeyDAO keyDAO = new KeyDAO();
-            AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
             
             // Verificar se key existe
             Key keyExistente = keyDAO.buscarPorId(id);
@@ -239,7 +237,7 @@ public class KeyService {
             }
             
             // Verificar se o usuário tem permissão para atualizar esta key
-            Aplicacao aplicacao = aplicacaoDAO.buscarPorId(keyExistente.getIdAplicacao());
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(keyExistente.getIdAplicacao());
             if (aplicacao == null || aplicacao.getIdUsuario() != idUsuario.intValue()) {
                 response.status(403);
                 return criarRespostaErro(mapper, "Você não tem permissão para atualizar esta key");
@@ -264,6 +262,8 @@ public class KeyService {
                     keyDAO.atualizarEndpointsAssociados(keyExistente.getId(), endpointsIds);
                 }
                 
+                // Dados e permissões da key mudaram: o AuthFilter deve recarregar do banco
+                BarramentoInvalidacao.key(keyExistente.getId());
                 return criarRespostaSucesso(mapper, "Key atualizada com sucesso");
             } else {
                 response.status(500);
@@ -284,7 +284,7 @@ public class KeyService {
     
     public Object excluir(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             // Obter informações do usuário logado através do token de autenticação
@@ -297,7 +297,6 @@ public class KeyService {
             
             int id = Integer.parseInt(request.params(":id"));
             KeyDAO keyDAO = new KeyDAO();
-            AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
             
             // Verificar se key existe
             Key keyExistente = keyDAO.buscarPorId(id);
@@ -307,7 +306,7 @@ public class KeyService {
             }
             
             // Verificar se o usuário tem permissão para excluir esta key
-            Aplicacao aplicacao = aplicacaoDAO.buscarPorId(keyExistente.getIdAplicacao());
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(keyExistente.getIdAplicacao());
             if (aplicacao == null || aplicacao.getIdUsuario() != idUsuario.intValue()) {
                 response.status(403);
                 return criarRespostaErro(mapper, "Você não tem permissão para excluir esta key");
@@ -320,6 +319,7 @@ public class KeyService {
             }
             
             if (keyDAO.excluir(id)) {
+                BarramentoInvalidacao.key(id);
                 return criarRespostaSucesso(mapper, "Key excluída com sucesso");
             } else {
                 response.status(500);
@@ -363,7 +363,7 @@ public class KeyService {
     
     public Object listarEndpointsAssociados(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             // Obter informações do usuário logado através do token de autenticação
@@ -376,7 +376,6 @@ public class KeyService {
             
             int idKey = Integer.parseInt(request.params(":id"));
             KeyDAO keyDAO = new KeyDAO();
-            AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
             
             // Verificar se key existe
             Key key = keyDAO.buscarPorId(idKey);
@@ -386,7 +385,7 @@ public class KeyService {
             }
             
             // Verificar se o usuário tem permissão para visualizar esta key
-            Aplicacao aplicacao = aplicacaoDAO.buscarPorId(key.getIdAplicacao());
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(key.getIdAplicacao());
             if (aplicacao == null || aplicacao.getIdUsuario() != idUsuario.intValue()) {
                 response.status(403);
                 return criarRespostaErro(mapper, "Você não tem permissão para visualizar os endpoints desta key");
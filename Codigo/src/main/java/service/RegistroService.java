@@ -1,27 +1,57 @@
 package service;
 
+import cache.CacheAplicacoes;
+import cache.CacheSchemas;
+import dao.GravacaoLote;
+import dao.ContadorRegistrosDAO;
 import dao.RegistroDAO;
-import dao.AplicacaoDAO;
 import model.Registro;
 import model.Aplicacao;
 import filterDTO.RegistroFilterDTO;
 import responseDTO.RegistroDTO;
+import util.Paginacao;
+import util.RegraCampo;
+import util.SchemaCompilado;
+import util.TabelaSchema;
+import util.ValidadorReferencias;
+import util.Json;
+import util.Configuracao;
+import util.CorpoRequisicao;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import spark.Request;
 import spark.Response;
 
+import javax.servlet.ServletResponse;
+import javax.servlet.ServletResponseWrapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.zip.GZIPOutputStream;
 
 public class RegistroService {
+    private static final String MENSAGEM_ARMAZENAMENTO_NATIVO = "A aplicação usa tabelas nativas; use os endpoints gerados da aplicação";
+    // Documentos validados e gravados por vez na carga em lote (um INSERT e uma consulta de referências por bloco)
+    private static final int TAMANHO_BLOCO_LOTE = Math.max(1, Configuracao.getInt("lote.tamanhoBloco", 1000));
     
     public Object listar(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             // Obter informações do usuário logado através do token de autenticação
@@ -32,29 +62,27 @@ public class RegistroService {
                 return criarRespostaErro(mapper, "Token de autenticação inválido");
             }
             
+            Paginacao paginacao = Paginacao.daRequisicao(request);
             RegistroDAO registroDAO = new RegistroDAO();
-            AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
-            List<Registro> registros = registroDAO.listarTodos();
+            // Apenas registros das aplicações do usuário, filtrados na própria consulta
+            List<Registro> registros = registroDAO.listarPorUsuario(idUsuario, paginacao.getApos(), paginacao.getLimiteConsulta());
             List<RegistroDTO> registrosDTO = new ArrayList<>();
             
-            for (Registro registro : registros) {
-                Aplicacao aplicacao = aplicacaoDAO.buscarPorId(registro.getIdAplicacao());
-                
-                // Filtrar registros apenas das aplicações que o usuário pode acessar
-                if (aplicacao != null && aplicacao.getIdUsuario() == idUsuario.intValue()) {
-                    String nomeAplicacao = aplicacao.getNome();
-                
-                    registrosDTO.add(new RegistroDTO(
-                        registro.getId(),
-                        registro.getTabela(),
-                        registro.getValor(),
-                        registro.getIdAplicacao(),
-                        nomeAplicacao
-                    ));
-                }
+            for (Registro registro : paginacao.pagina(registros)) {
+                registrosDTO.add(new RegistroDTO(
+                    registro.getId(),
+                    registro.getTabela(),
+                    registro.getValorJson(),
+                    registro.getIdAplicacao(),
+                    registro.getNomeAplicacao()
+                ));
             }
             
+            informarProximaPagina(response, paginacao, registros);
             return mapper.writeValueAsString(registrosDTO);
+        } catch (IllegalArgumentException e) {
+            response.status(400);
+            return criarRespostaErro(mapper, e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             response.status(500);
@@ -64,26 +92,24 @@ public class RegistroService {
     
     public Object buscarPorId(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             int id = Integer.parseInt(request.params(":id"));
             RegistroDAO registroDAO = new RegistroDAO();
-            AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
-            Registro registro = registroDAO.buscarPorId(id);
+            Registro registro = buscarRegistro(registroDAO, id, parametroIdAplicacao(request));
             
             if (registro == null) {
                 response.status(404);
                 return criarRespostaErro(mapper, "Registro não encontrado");
             }
             
-            Aplicacao aplicacao = aplicacaoDAO.buscarPorId(registro.getIdAplicacao());
-            String nomeAplicacao = aplicacao != null ? aplicacao.getNome() : "Aplicação não encontrada";
+            String nomeAplicacao = registro.getNomeAplicacao() != null ? registro.getNomeAplicacao() : "Aplicação não encontrada";
             
             RegistroDTO registroDTO = new RegistroDTO(
                 registro.getId(),
                 registro.getTabela(),
-                registro.getValor(),
+                registro.getValorJson(),
                 registro.getIdAplicacao(),
                 nomeAplicacao
             );
@@ -101,32 +127,115 @@ public class RegistroService {
     
     public Object buscarPorAplicacao(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             int idAplicacao = Integer.parseInt(request.params(":idAplicacao"));
+            Paginacao paginacao = Paginacao.daRequisicao(request);
             RegistroDAO registroDAO = new RegistroDAO();
-            AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
-            List<Registro> registros = registroDAO.buscarPorAplicacao(idAplicacao);
+            List<Registro> registros = registroDAO.buscarPorAplicacao(idAplicacao, paginacao.getApos(), paginacao.getLimiteConsulta());
             List<RegistroDTO> registrosDTO = new ArrayList<>();
             
-            Aplicacao aplicacao = aplicacaoDAO.buscarPorId(idAplicacao);
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(idAplicacao);
             String nomeAplicacao = aplicacao != null ? aplicacao.getNome() : "Aplicação não encontrada";
             
-            for (Registro registro : registros) {
+            for (Registro registro : paginacao.pagina(registros)) {
                 registrosDTO.add(new RegistroDTO(
                     registro.getId(),
                     registro.getTabela(),
-                    registro.getValor(),
+                    registro.getValorJson(),
                     registro.getIdAplicacao(),
                     nomeAplicacao
                 ));
             }
             
+            informarProximaPagina(response, paginacao, registros);
             return mapper.writeValueAsString(registrosDTO);
         } catch (NumberFormatException e) {
             response.status(400);
             return criarRespostaErro(mapper, "ID de aplicação inválido");
+        } catch (IllegalArgumentException e) {
+            response.status(400);
+            return criarRespostaErro(mapper, e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            response.status(500);
+            return criarRespostaErro(mapper, "Erro interno do servidor");
+        }
+    }
+    
+    // Exportação de uma tabela (?tabela=) ou da aplicação inteira, em NDJSON (padrão) ou CSV (?formato=csv)
+    // Os registros vêm do banco por cursor e vão direto para a resposta (chunked), com gzip quando o cliente aceita
+    public Object exportar(Request request, Response response) {
+        response.type("application/json");
+        JsonMapper mapper = Json.mapper();
+        
+        try {
+            // Obter informações do usuário logado através do token de autenticação
+            Integer idUsuario = request.attribute("userId");
+            
+            if (idUsuario == null) {
+                response.status(401);
+                return criarRespostaErro(mapper, "Token de autenticação inválido");
+            }
+            
+            int idAplicacao = Integer.parseInt(request.params(":idAplicacao"));
+            
+            // Verificar se a aplicação pertence ao usuário
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(idAplicacao);
+            if (aplicacao == null || aplicacao.getIdUsuario() != idUsuario.intValue()) {
+                response.status(403);
+                return criarRespostaErro(mapper, "Acesso negado à aplicação");
+            }
+            if (isArmazenamentoNativo(aplicacao)) {
+                response.status(409);
+                return criarRespostaErro(mapper, MENSAGEM_ARMAZENAMENTO_NATIVO);
+            }
+            
+            String tabela = request.queryParams("tabela");
+            if (tabela != null && tabela.trim().isEmpty()) {
+                tabela = null;
+            }
+            String formato = request.queryParams("formato") != null ? request.queryParams("formato").toLowerCase() : "ndjson";
+            if (!"ndjson".equals(formato) && !"csv".equals(formato)) {
+                response.status(400);
+                return criarRespostaErro(mapper, "Formato inválido: use ndjson ou csv");
+            }
+            
+            String nomeArquivo = "aplicacao-" + idAplicacao + (tabela != null ? "-" + tabela.replaceAll("[^A-Za-z0-9_-]", "_") : "") + "." + formato;
+            response.type("csv".equals(formato) ? "text/csv; charset=utf-8" : "application/x-ndjson");
+            response.header("Content-Disposition", "attachment; filename=\"" + nomeArquivo + "\"");
+            
+            OutputStream saida = response.raw().getOutputStream();
+            String aceitaCodificacao = request.headers("Accept-Encoding");
+            if (aceitaCodificacao != null && aceitaCodificacao.toLowerCase().contains("gzip")) {
+                response.header("Content-Encoding", "gzip");
+                saida = new GZIPOutputStream(saida, 8192);
+            }
+            
+            RegistroDAO registroDAO = new RegistroDAO();
+            if ("csv".equals(formato)) {
+                exportarCsv(registroDAO, aplicacao, tabela, saida);
+            } else {
+                exportarNdjson(registroDAO, mapper, idAplicacao, tabela, saida);
+            }
+            return "";
+        } catch (NumberFormatException e) {
+            response.status(400);
+            return criarRespostaErro(mapper, "ID de aplicação inválido");
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+            if (response.raw().isCommitted()) {
+                // Parte da exportação já foi enviada: não há como trocar o status da resposta.
+                // Derruba a conexão em vez de encerrar o chunked normalmente, para o cliente ver a exportação truncada
+                abortarResposta(response, e);
+                return "";
+            }
+            // Descarta também os headers de download e de gzip
+            response.raw().reset();
+            response.type("application/json");
+            response.status(500);
+            return criarRespostaErro(mapper, "Erro ao exportar registros");
         } catch (Exception e) {
             e.printStackTrace();
             response.status(500);
@@ -134,31 +243,126 @@ public class RegistroService {
         }
     }
     
+    // Interrompe a resposta no Jetty sem o chunk final: o cliente recebe erro de transferência, não um arquivo incompleto
+    private void abortarResposta(Response response, Throwable causa) {
+        ServletResponse resposta = response.raw();
+        while (resposta instanceof ServletResponseWrapper) {
+            resposta = ((ServletResponseWrapper) resposta).getResponse();
+        }
+        if (resposta instanceof org.eclipse.jetty.server.Response) {
+            ((org.eclipse.jetty.server.Response) resposta).getHttpChannel().abort(causa);
+        }
+    }
+    
+    // NDJSON: com ?tabela= cada linha é o próprio valor (o mesmo formato aceito pela carga em lote);
+    // da aplicação inteira cada linha leva id, tabela e valor
+    private void exportarNdjson(RegistroDAO registroDAO, JsonMapper mapper, int idAplicacao, String tabela, OutputStream saida) throws SQLException, IOException {
+        JsonGenerator gen = mapper.getFactory().createGenerator(saida, JsonEncoding.UTF8);
+        gen.setRootValueSeparator(null);
+        registroDAO.percorrerPorAplicacao(idAplicacao, tabela, registro -> {
+            if (tabela == null) {
+                gen.writeStartObject();
+                gen.writeNumberField("id", registro.getId());
+                gen.writeStringField("tabela", registro.getTabela());
+                gen.writeFieldName("valor");
+            }
+            // Texto gerado pelo Postgres copiado sem reprocessar
+            if (registro.getValorJson() != null) {
+                gen.writeRawValue(registro.getValorJson());
+            } else {
+                gen.writeNull();
+            }
+            if (tabela == null) {
+                gen.writeEndObject();
+            }
+            gen.writeRaw('\n');
+        });
+        // Só fecha (e conclui a resposta) quando a exportação terminou sem erro
+        gen.close();
+    }
+    
+    // CSV: uma coluna por campo do schema quando a tabela está definida nele; senão id, tabela e valor (JSON)
+    private void exportarCsv(RegistroDAO registroDAO, Aplicacao aplicacao, String tabela, OutputStream saida) throws SQLException, IOException {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        TabelaSchema tabelaSchema = tabela != null ? buscarTabelaSchema(aplicacao, tabela) : null;
+        List<String> colunas = new ArrayList<>();
+        if (tabelaSchema != null) {
+            for (RegraCampo campo : tabelaSchema.getCampos()) {
+                colunas.add(campo.getNome());
+            }
+        }
+        boolean porCampo = !colunas.isEmpty();
+        
+        escreverLinhaCsv(escritor, porCampo ? colunas : Arrays.asList("id", "tabela", "valor"));
+        List<String> linha = new ArrayList<>();
+        registroDAO.percorrerPorAplicacao(aplicacao.getId(), tabela, registro -> {
+            linha.clear();
+            if (porCampo) {
+                JsonNode valor = registro.getValor();
+                for (String coluna : colunas) {
+                    linha.add(textoCampo(valor != null ? valor.get(coluna) : null));
+                }
+            } else {
+                linha.add(String.valueOf(registro.getId()));
+                linha.add(registro.getTabela());
+                linha.add(registro.getValorJson());
+            }
+            escreverLinhaCsv(escritor, linha);
+        });
+        // Só fecha (e conclui a resposta) quando a exportação terminou sem erro
+        escritor.close();
+    }
+    
+    // Linha no formato RFC 4180: campos com vírgula, aspas ou quebra de linha entre aspas; null vira campo vazio
+    private void escreverLinhaCsv(Writer escritor, List<String> campos) throws IOException {
+        for (int i = 0; i < campos.size(); i++) {
+            if (i > 0) {
+                escritor.write(',');
+            }
+            String campo = campos.get(i);
+            if (campo == null) {
+                continue;
+            }
+            if (campo.indexOf(',') >= 0 || campo.indexOf('"') >= 0 || campo.indexOf('\n') >= 0 || campo.indexOf('\r') >= 0) {
+                escritor.write('"');
+                escritor.write(campo.replace("\"", "\"\""));
+                escritor.write('"');
+            } else {
+                escritor.write(campo);
+            }
+        }
+        escritor.write("\r\n");
+    }
+    
     public Object buscarPorTabela(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             String tabela = request.params(":tabela");
+            Paginacao paginacao = Paginacao.daRequisicao(request);
             RegistroDAO registroDAO = new RegistroDAO();
-            AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
-            List<Registro> registros = registroDAO.buscarPorTabela(tabela);
+            List<Registro> registros = registroDAO.buscarPorTabela(tabela, paginacao.getApos(), paginacao.getLimiteConsulta());
             List<RegistroDTO> registrosDTO = new ArrayList<>();
             
-            for (Registro registro : registros) {
-                Aplicacao aplicacao = aplicacaoDAO.buscarPorId(registro.getIdAplicacao());
-                String nomeAplicacao = aplicacao != null ? aplicacao.getNome() : "Aplicação não encontrada";
+            for (Registro registro : paginacao.pagina(registros)) {
+                // Nome da aplicação já vem na consulta
+                String nomeAplicacao = registro.getNomeAplicacao() != null ? registro.getNomeAplicacao() : "Aplicação não encontrada";
                 
                 registrosDTO.add(new RegistroDTO(
                     registro.getId(),
                     registro.getTabela(),
-                    registro.getValor(),
+                    registro.getValorJson(),
                     registro.getIdAplicacao(),
                     nomeAplicacao
                 ));
             }
             
+            informarProximaPagina(response, paginacao, registros);
             return mapper.writeValueAsString(registrosDTO);
+        } catch (IllegalArgumentException e) {
+            response.status(400);
+            return criarRespostaErro(mapper, e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             response.status(500);
@@ -168,44 +372,48 @@ public class RegistroService {
     
     public Object buscarComFiltro(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             RegistroFilterDTO filtro = null;
             try {
                 if (request.body() != null && !request.body().isEmpty()) {
-                    filtro = mapper.readValue(request.body(), new TypeReference<RegistroFilterDTO>() {});
+                    filtro = Json.leitor(RegistroFilterDTO.class).readValue(request.body());
                 }
             } catch (JsonProcessingException e) {
                 response.status(400);
                 return criarRespostaErro(mapper, "JSON inválido");
             }
             
+            Paginacao paginacao = Paginacao.daRequisicao(request);
             RegistroDAO registroDAO = new RegistroDAO();
-            AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
             List<Registro> registros;
             
             if (filtro != null) {
-                registros = registroDAO.buscarComFiltro(filtro);
+                registros = registroDAO.buscarComFiltro(filtro, paginacao.getApos(), paginacao.getLimiteConsulta());
             } else {
-                registros = registroDAO.listarTodos();
+                registros = registroDAO.listarTodos(paginacao.getApos(), paginacao.getLimiteConsulta());
             }
             
             List<RegistroDTO> registrosDTO = new ArrayList<>();
-            for (Registro registro : registros) {
-                Aplicacao aplicacao = aplicacaoDAO.buscarPorId(registro.getIdAplicacao());
-                String nomeAplicacao = aplicacao != null ? aplicacao.getNome() : "Aplicação não encontrada";
+            for (Registro registro : paginacao.pagina(registros)) {
+                // Nome da aplicação já vem na consulta
+                String nomeAplicacao = registro.getNomeAplicacao() != null ? registro.getNomeAplicacao() : "Aplicação não encontrada";
                 
                 registrosDTO.add(new RegistroDTO(
                     registro.getId(),
                     registro.getTabela(),
-                    registro.getValor(),
+                    registro.getValorJson(),
                     registro.getIdAplicacao(),
                     nomeAplicacao
                 ));
             }
             
+            informarProximaPagina(response, paginacao, registros);
             return mapper.writeValueAsString(registrosDTO);
+        } catch (IllegalArgumentException e) {
+            response.status(400);
+            return criarRespostaErro(mapper, e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             response.status(500);
@@ -215,10 +423,10 @@ public class RegistroService {
     
     public Object inserir(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
-            Registro registro = mapper.readValue(request.body(), new TypeReference<Registro>() {});
+            Registro registro = Json.leitor(Registro.class).readValue(request.body());
             
             if (registro.getTabela() == null || registro.getTabela().trim().isEmpty() ||
                 registro.getValor() == null ||
@@ -228,27 +436,32 @@ public class RegistroService {
             }
             
             RegistroDAO registroDAO = new RegistroDAO();
-            AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
             
             // Verificar se aplicação existe e obter schema
-            Aplicacao aplicacao = aplicacaoDAO.buscarPorId(registro.getIdAplicacao());
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(registro.getIdAplicacao());
             if (aplicacao == null) {
                 response.status(400);
                 return criarRespostaErro(mapper, "Aplicação não encontrada");
             }
+            if (isArmazenamentoNativo(aplicacao)) {
+                response.status(409);
+                return criarRespostaErro(mapper, MENSAGEM_ARMAZENAMENTO_NATIVO);
+            }
             
-            // Validar referências antes de inserir
-            String erroValidacao = validarReferencias(registro.getValor(), registro.getIdAplicacao(), mapper);
+            // Validar referências declaradas no schema antes de inserir (uma única consulta)
+            String erroValidacao = ValidadorReferencias.validar(aplicacao, registro.getTabela(), registro.getValor());
             if (erroValidacao != null) {
                 response.status(400);
                 return criarRespostaErro(mapper, erroValidacao);
             }
             
             // Aplicar regras do schema antes de inserir
-            com.fasterxml.jackson.databind.JsonNode valorProcessado = aplicarRegrasSchema(registro, aplicacao, registroDAO, mapper);
+            com.fasterxml.jackson.databind.JsonNode valorProcessado = aplicarRegrasSchema(registro, aplicacao, registroDAO);
             registro.setValor(valorProcessado);
             
             if (registroDAO.inserir(registro)) {
+                // Chaves novas entram nos filtros de referência
+                ValidadorReferencias.registrarChaves(aplicacao, registro.getTabela(), registro.getValor());
                 response.status(201);
                 return criarRespostaSucesso(mapper, "Registro criado com sucesso");
             } else {
@@ -265,152 +478,228 @@ public class RegistroService {
         }
     }
     
-    private com.fasterxml.jackson.databind.JsonNode aplicarRegrasSchema(Registro registro, Aplicacao aplicacao, RegistroDAO registroDAO, JsonMapper mapper) throws Exception {
-        // Se não há schema, usar valor original
-        if (aplicacao.getSchemaBanco() == null) {
-            return registro.getValor();
-        }
-        
-        // Parse do schema
-        com.fasterxml.jackson.databind.JsonNode schemaBanco = aplicacao.getSchemaBanco();
-        
-        // Buscar tabela no schema
-        com.fasterxml.jackson.databind.JsonNode tabelas = schemaBanco.get("tabelas");
-        if (tabelas == null || !tabelas.isArray()) {
-            return registro.getValor();
-        }
+    // Carga em lote: array JSON ou NDJSON (um documento por linha) com os valores de uma tabela da aplicação
+    // Com Transfer-Encoding: chunked o corpo é lido em fluxo, sem carregar a carga inteira em memória
+    public Object inserirLote(Request request, Response response) {
+        response.type("application/json");
+        JsonMapper mapper = Json.mapper();
         
-        com.fasterxml.jackson.databind.JsonNode tabelaSchema = null;
-        for (com.fasterxml.jackson.databind.JsonNode tabela : tabelas) {
-            if (registro.getTabela().equals(tabela.get("nome").asText())) {
-                tabelaSchema = tabela;
-                break;
+        try {
+            // Obter informações do usuário logado através do token de autenticação
+            Integer idUsuario = request.attribute("userId");
+            
+            if (idUsuario == null) {
+                response.status(401);
+                return criarRespostaErro(mapper, "Token de autenticação inválido");
+            }
+            
+            int idAplicacao = Integer.parseInt(request.params(":idAplicacao"));
+            String tabela = request.params(":tabela");
+            
+            // Verificar se a aplicação pertence ao usuário
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(idAplicacao);
+            if (aplicacao == null || aplicacao.getIdUsuario() != idUsuario.intValue()) {
+                response.status(403);
+                return criarRespostaErro(mapper, "Acesso negado à aplicação");
+            }
+            if (isArmazenamentoNativo(aplicacao)) {
+                response.status(409);
+                return criarRespostaErro(mapper, MENSAGEM_ARMAZENAMENTO_NATIVO);
+            }
+            
+            RegistroDAO registroDAO = new RegistroDAO();
+            List<Map<String, Object>> falhas = new ArrayList<>();
+            long total = 0;
+            long inseridos;
+            
+            // Tudo numa única transação: erro de banco ou JSON malformado no meio da carga desfaz o lote inteiro.
+            // O corpo vem do fluxo do Jetty: o request.raw() do Spark guardaria o corpo inteiro em memória antes
+            try (GravacaoLote gravacao = registroDAO.abrirGravacaoLote(idAplicacao, tabela);
+                 MappingIterator<JsonNode> itens = Json.leitorArvore().readValues(CorpoRequisicao.fluxo(request))) {
+                List<JsonNode> bloco = new ArrayList<>(TAMANHO_BLOCO_LOTE);
+                try {
+                    while (itens.hasNextValue()) {
+                        bloco.add(itens.nextValue());
+                        total++;
+                        if (bloco.size() == TAMANHO_BLOCO_LOTE) {
+                            gravarBloco(aplicacao, tabela, bloco, total - bloco.size(), gravacao, registroDAO, falhas);
+                            bloco.clear();
+                        }
+                    }
+                } catch (JsonProcessingException e) {
+                    response.status(400);
+                    return criarRespostaErro(mapper, "JSON inválido no item " + total + "; nenhum registro foi inserido");
+                }
+                gravarBloco(aplicacao, tabela, bloco, total - bloco.size(), gravacao, registroDAO, falhas);
+                gravacao.confirmar();
+                inseridos = gravacao.getGravados();
+            } catch (SQLException e) {
+                e.printStackTrace();
+                response.status(500);
+                return criarRespostaErro(mapper, "Erro ao gravar o lote; nenhum registro foi inserido");
             }
+            
+            if (total == 0) {
+                response.status(400);
+                return criarRespostaErro(mapper, "Nenhum registro informado");
+            }
+            
+            // Chaves novas: um único aviso para os filtros de referência da aplicação
+            if (inseridos > 0) {
+                ValidadorReferencias.registrarChavesLote(aplicacao, tabela);
+            }
+            
+            // Resultado por item: os itens que não aparecem em "falhas" foram inseridos
+            Map<String, Object> resposta = new HashMap<>();
+            resposta.put("success", falhas.isEmpty());
+            resposta.put("total", total);
+            resposta.put("inseridos", inseridos);
+            resposta.put("falhas", falhas);
+            response.status(inseridos > 0 ? 201 : 400);
+            return mapper.writeValueAsString(resposta);
+        } catch (NumberFormatException e) {
+            response.status(400);
+            return criarRespostaErro(mapper, "ID de aplicação inválido");
+        } catch (Exception e) {
+            e.printStackTrace();
+            response.status(500);
+            return criarRespostaErro(mapper, "Erro interno do servidor");
         }
-        
-        if (tabelaSchema == null) {
-            return registro.getValor();
+    }
+    
+    // Valida e grava um bloco da carga; itens recusados vão para falhas com o índice (a partir de 0) na carga
+    private void gravarBloco(Aplicacao aplicacao, String tabela, List<JsonNode> bloco, long indiceInicial,
+                             GravacaoLote gravacao, RegistroDAO registroDAO, List<Map<String, Object>> falhas) throws Exception {
+        if (bloco.isEmpty()) {
+            return;
         }
         
-        // Parse do valor do registro
-        Map<String, Object> valorMap = mapper.convertValue(registro.getValor(), new TypeReference<Map<String, Object>>() {});
+        // Referências do bloco inteiro conferidas numa única consulta, na conexão da própria carga
+        // (os IDs novos vêm do AlocadorIds, que também não empresta conexão do pool)
+        String[] erros = ValidadorReferencias.validarLote(aplicacao, tabela, bloco, gravacao);
+        List<String> valoresJson = new ArrayList<>(bloco.size());
         
-        // Aplicar regras dos campos
-        com.fasterxml.jackson.databind.JsonNode campos = tabelaSchema.get("campos");
-        if (campos != null && campos.isArray()) {
-            for (com.fasterxml.jackson.databind.JsonNode campo : campos) {
-                String nomeCampo = campo.get("nome").asText();
-                String tipoCampo = campo.get("tipo").asText();
-                boolean isChavePrimaria = campo.has("chave_primaria") && campo.get("chave_primaria").asBoolean();
-                
-                // Aplicar auto incremento para campos ID ou chave primária
-                if (isChavePrimaria || "id".equals(tipoCampo)) {
-                    // Sempre gerar novo ID usando a função do banco
-                    long novoId = registroDAO.obterProximoId(registro.getIdAplicacao(), registro.getTabela());
-                    valorMap.put(nomeCampo, novoId);
-                }
-                // Aplicar criptografia se necessário
-                else if ("criptografia".equals(tipoCampo)) {
-                    Object valor = valorMap.get(nomeCampo);
-                    if (valor != null) {
-                        String valorStr = valor.toString();
-                        if (!valorStr.isEmpty()) {
-                            // Aplicar MD5 (usando a mesma lógica do GeradorEndpointsService)
-                            java.security.MessageDigest md = java.security.MessageDigest.getInstance("MD5");
-                            byte[] digest = md.digest(valorStr.getBytes());
-                            StringBuilder sb = new StringBuilder();
-                            for (byte b : digest) {
-                                sb.append(String.format("%02x", b));
-                            }
-                            valorMap.put(nomeCampo, sb.toString());
-                        }
-                    }
-                }
+        for (int i = 0; i < bloco.size(); i++) {
+            JsonNode valor = bloco.get(i);
+            String erro = valor == null || valor.isNull() ? "Valor é obrigatório" : erros[i];
+            if (erro != null) {
+                Map<String, Object> falha = new HashMap<>();
+                falha.put("indice", indiceInicial + i);
+                falha.put("message", erro);
+                falhas.add(falha);
+                continue;
             }
+            
+            // Mesmas regras do schema da inserção individual (IDs e criptografia)
+            Registro registro = new Registro(tabela, valor, aplicacao.getId());
+            registro.setValor(aplicarRegrasSchema(registro, aplicacao, registroDAO));
+            valoresJson.add(registro.getValorJson());
         }
         
-        return mapper.valueToTree(valorMap);
+        gravacao.gravar(valoresJson);
     }
     
-    private com.fasterxml.jackson.databind.JsonNode aplicarRegrasSchemaParaAtualizacao(Registro registroNovo, Registro registroExistente, Aplicacao aplicacao, JsonMapper mapper) throws Exception {
-        // Se não há schema, usar valor original
-        if (aplicacao.getSchemaBanco() == null) {
-            return registroNovo.getValor();
+    private com.fasterxml.jackson.databind.JsonNode aplicarRegrasSchema(Registro registro, Aplicacao aplicacao, RegistroDAO registroDAO) throws Exception {
+        com.fasterxml.jackson.databind.JsonNode valor = registro.getValor();
+        TabelaSchema tabelaSchema = buscarTabelaSchema(aplicacao, registro.getTabela());
+        
+        // Se não há schema para a tabela (ou o valor não é um objeto), usar valor original
+        if (tabelaSchema == null || !(valor instanceof ObjectNode)) {
+            return valor;
         }
         
-        // Parse do schema
-        com.fasterxml.jackson.databind.JsonNode schemaBanco = aplicacao.getSchemaBanco();
+        // As regras alteram o próprio documento, sem converter para Map e de volta
+        ObjectNode valorObjeto = (ObjectNode) valor;
         
-        // Buscar tabela no schema
-        com.fasterxml.jackson.databind.JsonNode tabelas = schemaBanco.get("tabelas");
-        if (tabelas == null || !tabelas.isArray()) {
-            return registroNovo.getValor();
+        // Sempre gerar novo ID para campos ID ou chave primária
+        for (RegraCampo campo : tabelaSchema.getChaves()) {
+            long novoId = registroDAO.obterProximoId(registro.getIdAplicacao(), registro.getTabela());
+            valorObjeto.put(campo.getNome(), novoId);
         }
         
-        com.fasterxml.jackson.databind.JsonNode tabelaSchema = null;
-        for (com.fasterxml.jackson.databind.JsonNode tabela : tabelas) {
-            if (registroNovo.getTabela().equals(tabela.get("nome").asText())) {
-                tabelaSchema = tabela;
-                break;
+        // Aplicar criptografia (MD5, a mesma lógica do GeradorEndpointsService)
+        for (RegraCampo campo : tabelaSchema.getCriptografados()) {
+            String valorStr = textoCampo(valorObjeto.get(campo.getNome()));
+            if (valorStr != null && !valorStr.isEmpty()) {
+                valorObjeto.put(campo.getNome(), md5(valorStr));
             }
         }
         
-        if (tabelaSchema == null) {
-            return registroNovo.getValor();
+        return valorObjeto;
+    }
+    
+    private com.fasterxml.jackson.databind.JsonNode aplicarRegrasSchemaParaAtualizacao(Registro registroNovo, Registro registroExistente, Aplicacao aplicacao) throws Exception {
+        com.fasterxml.jackson.databind.JsonNode valorNovo = registroNovo.getValor();
+        TabelaSchema tabelaSchema = buscarTabelaSchema(aplicacao, registroNovo.getTabela());
+        
+        // Se não há schema para a tabela (ou o valor não é um objeto), usar valor original
+        if (tabelaSchema == null || !(valorNovo instanceof ObjectNode)) {
+            return valorNovo;
         }
         
-        // Parse dos valores
-        Map<String, Object> valorNovoMap = mapper.convertValue(registroNovo.getValor(), new TypeReference<Map<String, Object>>() {});
-        Map<String, Object> valorExistenteMap = mapper.convertValue(registroExistente.getValor(), new TypeReference<Map<String, Object>>() {});
+        ObjectNode valorObjeto = (ObjectNode) valorNovo;
+        com.fasterxml.jackson.databind.JsonNode valorExistente = registroExistente.getValor();
         
-        // Aplicar regras dos campos
-        com.fasterxml.jackson.databind.JsonNode campos = tabelaSchema.get("campos");
-        if (campos != null && campos.isArray()) {
-            for (com.fasterxml.jackson.databind.JsonNode campo : campos) {
-                String nomeCampo = campo.get("nome").asText();
-                String tipoCampo = campo.get("tipo").asText();
-                boolean isChavePrimaria = campo.has("chave_primaria") && campo.get("chave_primaria").asBoolean();
-                
-                // Preservar campos ID ou chave primária - manter valor existente
-                if (isChavePrimaria || "id".equals(tipoCampo)) {
-                    Object valorExistente = valorExistenteMap.get(nomeCampo);
-                    if (valorExistente != null) {
-                        valorNovoMap.put(nomeCampo, valorExistente);
-                    }
-                }
-                // Aplicar criptografia se necessário para campos alterados
-                else if ("criptografia".equals(tipoCampo)) {
-                    Object valorNovo = valorNovoMap.get(nomeCampo);
-                    if (valorNovo != null) {
-                        String valorStr = valorNovo.toString();
-                        if (!valorStr.isEmpty()) {
-                            // Só aplicar MD5 se o valor foi realmente alterado
-                            Object valorExistente = valorExistenteMap.get(nomeCampo);
-                            if (valorExistente == null || !valorStr.equals(valorExistente.toString())) {
-                                java.security.MessageDigest md = java.security.MessageDigest.getInstance("MD5");
-                                byte[] digest = md.digest(valorStr.getBytes());
-                                StringBuilder sb = new StringBuilder();
-                                for (byte b : digest) {
-                                    sb.append(String.format("%02x", b));
-                                }
-                                valorNovoMap.put(nomeCampo, sb.toString());
-                            }
-                        }
-                    }
-                }
+        // Preservar campos ID ou chave primária - manter valor existente
+        for (RegraCampo campo : tabelaSchema.getChaves()) {
+            com.fasterxml.jackson.databind.JsonNode existente = valorExistente != null ? valorExistente.get(campo.getNome()) : null;
+            if (existente != null && !existente.isNull()) {
+                valorObjeto.set(campo.getNome(), existente);
+            }
+        }
+        
+        // Só aplicar MD5 se o valor foi realmente alterado
+        for (RegraCampo campo : tabelaSchema.getCriptografados()) {
+            String valorStr = textoCampo(valorObjeto.get(campo.getNome()));
+            if (valorStr == null || valorStr.isEmpty()) {
+                continue;
+            }
+            String existenteStr = textoCampo(valorExistente != null ? valorExistente.get(campo.getNome()) : null);
+            if (existenteStr == null || !valorStr.equals(existenteStr)) {
+                valorObjeto.put(campo.getNome(), md5(valorStr));
             }
         }
         
-        return mapper.valueToTree(valorNovoMap);
+        return valorObjeto;
+    }
+    
+    // Aplicação no modo nativo: os dados ficam nas tabelas próprias dela, não na tb_registros
+    private boolean isArmazenamentoNativo(Aplicacao aplicacao) {
+        SchemaCompilado schema = CacheSchemas.obter(aplicacao);
+        return schema != null && schema.isNativo();
+    }
+    
+    // Tabela do schema compilado da aplicação (null se a aplicação não tem schema ou não define a tabela)
+    private TabelaSchema buscarTabelaSchema(Aplicacao aplicacao, String tabela) {
+        SchemaCompilado schema = CacheSchemas.obter(aplicacao);
+        return schema != null ? schema.getTabela(tabela) : null;
+    }
+    
+    // Texto do campo como era comparado/criptografado antes (null para ausente ou JSON null)
+    private String textoCampo(com.fasterxml.jackson.databind.JsonNode valor) {
+        if (valor == null || valor.isNull()) {
+            return null;
+        }
+        return valor.isValueNode() ? valor.asText() : valor.toString();
+    }
+    
+    private String md5(String valor) throws java.security.NoSuchAlgorithmException {
+        java.security.MessageDigest md = java.security.MessageDigest.getInstance("MD5");
+        byte[] digest = md.digest(valor.getBytes());
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
     }
     
     public Object atualizar(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             int id = Integer.parseInt(request.params(":id"));
-            Registro registro = mapper.readValue(request.body(), new TypeReference<Registro>() {});
+            Registro registro = Json.leitor(Registro.class).readValue(request.body());
             registro.setId(id);
             
             if (registro.getTabela() == null || registro.getTabela().trim().isEmpty() ||
@@ -420,31 +709,47 @@ public class RegistroService {
             }
             
             RegistroDAO registroDAO = new RegistroDAO();
-            AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
             
-            // Verificar se registro existe
-            Registro registroExistente = registroDAO.buscarPorId(id);
+            // Verificar se registro existe (a aplicação do corpo ou de ?id_aplicacao= limita a busca à partição dela)
+            String idAplicacaoStr = registro.getIdAplicacao() > 0
+                ? String.valueOf(registro.getIdAplicacao()) : parametroIdAplicacao(request);
+            // Modo nativo: os registros não estão na tb_registros (responde 409 em vez de 404)
+            if (idAplicacaoStr != null && !idAplicacaoStr.isEmpty()) {
+                Aplicacao aplicacaoInformada = CacheAplicacoes.buscarPorId(Integer.parseInt(idAplicacaoStr));
+                if (aplicacaoInformada != null && isArmazenamentoNativo(aplicacaoInformada)) {
+                    response.status(409);
+                    return criarRespostaErro(mapper, MENSAGEM_ARMAZENAMENTO_NATIVO);
+                }
+            }
+            Registro registroExistente = buscarRegistro(registroDAO, id, idAplicacaoStr);
             if (registroExistente == null) {
                 response.status(404);
                 return criarRespostaErro(mapper, "Registro não encontrado");
             }
+            registro.setIdAplicacao(registroExistente.getIdAplicacao());
             
             // Obter aplicação e schema
-            Aplicacao aplicacao = aplicacaoDAO.buscarPorId(registro.getIdAplicacao());
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(registro.getIdAplicacao());
+            if (aplicacao != null && isArmazenamentoNativo(aplicacao)) {
+                response.status(409);
+                return criarRespostaErro(mapper, MENSAGEM_ARMAZENAMENTO_NATIVO);
+            }
             if (aplicacao != null) {
-                // Validar referências antes de atualizar
-                String erroValidacao = validarReferencias(registro.getValor(), registro.getIdAplicacao(), mapper);
+                // Validar referências declaradas no schema antes de atualizar (uma única consulta)
+                String erroValidacao = ValidadorReferencias.validar(aplicacao, registro.getTabela(), registro.getValor());
                 if (erroValidacao != null) {
                     response.status(400);
                     return criarRespostaErro(mapper, erroValidacao);
                 }
                 
                 // Aplicar regras do schema para preservar IDs e outros campos especiais
-                com.fasterxml.jackson.databind.JsonNode valorProcessado = aplicarRegrasSchemaParaAtualizacao(registro, registroExistente, aplicacao, mapper);
+                com.fasterxml.jackson.databind.JsonNode valorProcessado = aplicarRegrasSchemaParaAtualizacao(registro, registroExistente, aplicacao);
                 registro.setValor(valorProcessado);
             }
             
             if (registroDAO.atualizar(registro)) {
+                // A tabela pode ter mudado: as chaves passam a valer na nova tabela
+                ValidadorReferencias.registrarChaves(aplicacao, registro.getTabela(), registro.getValor());
                 return criarRespostaSucesso(mapper, "Registro atualizado com sucesso");
             } else {
                 response.status(500);
@@ -465,18 +770,19 @@ public class RegistroService {
     
     public Object excluir(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             int id = Integer.parseInt(request.params(":id"));
             RegistroDAO registroDAO = new RegistroDAO();
             
-            if (registroDAO.buscarPorId(id) == null) {
+            Registro registro = buscarRegistro(registroDAO, id, parametroIdAplicacao(request));
+            if (registro == null) {
                 response.status(404);
                 return criarRespostaErro(mapper, "Registro não encontrado");
             }
             
-            if (registroDAO.excluir(id)) {
+            if (registroDAO.excluir(registro.getIdAplicacao(), id)) {
                 return criarRespostaSucesso(mapper, "Registro excluído com sucesso");
             } else {
                 response.status(500);
@@ -492,6 +798,14 @@ public class RegistroService {
         }
     }
     
+    // Cursor da próxima página no header X-Next-Cursor (o corpo continua sendo o array de registros)
+    private void informarProximaPagina(Response response, Paginacao paginacao, List<Registro> registros) {
+        List<Registro> pagina = paginacao.pagina(registros);
+        if (!pagina.isEmpty()) {
+            paginacao.informarProxima(response, registros, pagina.get(pagina.size() - 1).getId());
+        }
+    }
+    
     private String criarRespostaErro(JsonMapper mapper, String mensagem) {
         try {
             Map<String, Object> resposta = new HashMap<>();
@@ -505,7 +819,7 @@ public class RegistroService {
     
     public Object contarPorAplicacao(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             // Obter informações do usuário logado através do token de autenticação
@@ -517,10 +831,7 @@ public class RegistroService {
             }
             
             // Obter ID da aplicação via query param ou path param
-            String idAplicacaoStr = request.queryParams("id_aplicacao");
-            if (idAplicacaoStr == null || idAplicacaoStr.isEmpty()) {
-                idAplicacaoStr = request.params(":idAplicacao");
-            }
+            String idAplicacaoStr = parametroIdAplicacao(request);
             
             if (idAplicacaoStr == null || idAplicacaoStr.isEmpty()) {
                 response.status(400);
@@ -530,17 +841,15 @@ public class RegistroService {
             int idAplicacao = Integer.parseInt(idAplicacaoStr);
             
             // Verificar se a aplicação pertence ao usuário
-            AplicacaoDAO aplicacaoDAO = new AplicacaoDAO();
-            Aplicacao aplicacao = aplicacaoDAO.buscarPorId(idAplicacao);
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(idAplicacao);
             
             if (aplicacao == null || aplicacao.getIdUsuario() != idUsuario.intValue()) {
                 response.status(403);
                 return criarRespostaErro(mapper, "Acesso negado à aplicação");
             }
             
-            // Contar registros
-            RegistroDAO registroDAO = new RegistroDAO();
-            int count = registroDAO.contarPorAplicacao(idAplicacao);
+            // Contadores mantidos pelos gatilhos da tb_registros (sem COUNT(*) nos registros da aplicação)
+            long count = new ContadorRegistrosDAO().contarPorAplicacao(idAplicacao);
             
             Map<String, Object> resposta = new HashMap<>();
             resposta.put("count", count);
@@ -557,122 +866,73 @@ public class RegistroService {
         }
     }
     
-    private String validarReferencias(com.fasterxml.jackson.databind.JsonNode valorJson, int idAplicacao, JsonMapper mapper) {
+    public Object contarPorTabela(Request request, Response response) {
+        response.type("application/json");
+        JsonMapper mapper = Json.mapper();
+        
         try {
-            if (valorJson == null) {
-                return null; // Sem dados para validar
+            // Obter informações do usuário logado através do token de autenticação
+            Integer idUsuario = request.attribute("userId");
+            
+            if (idUsuario == null) {
+                response.status(401);
+                return criarRespostaErro(mapper, "Token de autenticação inválido");
             }
             
-            // Verificar campos que podem ser referências (terminam com _id, id_, ou são apenas "id")
-            valorJson.fieldNames().forEachRemaining(fieldName -> {
-                com.fasterxml.jackson.databind.JsonNode fieldNode = valorJson.get(fieldName);
-                
-                // Verificar se é um campo de referência (ID de outra tabela)
-                if (isReferenciaField(fieldName) && !fieldNode.isNull() && fieldNode.isNumber()) {
-                    int referenciaId = fieldNode.asInt();
-                    String tabelaReferenciada = obterTabelaReferenciada(fieldName);
-                    
-                    if (tabelaReferenciada != null && !existeRegistro(tabelaReferenciada, referenciaId, idAplicacao)) {
-                        throw new RuntimeException("Referência inválida: " + fieldName + " = " + referenciaId + " não existe na tabela " + tabelaReferenciada);
-                    }
-                }
-            });
+            String idAplicacaoStr = parametroIdAplicacao(request);
+            if (idAplicacaoStr == null || idAplicacaoStr.isEmpty()) {
+                response.status(400);
+                return criarRespostaErro(mapper, "ID da aplicação é obrigatório");
+            }
             
-            return null; // Todas as referências são válidas
+            int idAplicacao = Integer.parseInt(idAplicacaoStr);
             
-        } catch (RuntimeException e) {
-            return e.getMessage();
+            // Verificar se a aplicação pertence ao usuário
+            Aplicacao aplicacao = CacheAplicacoes.buscarPorId(idAplicacao);
+            
+            if (aplicacao == null || aplicacao.getIdUsuario() != idUsuario.intValue()) {
+                response.status(403);
+                return criarRespostaErro(mapper, "Acesso negado à aplicação");
+            }
+            
+            // Todas as tabelas numa única consulta aos contadores
+            Map<String, Long> tabelas = new ContadorRegistrosDAO().contarPorTabela(idAplicacao);
+            long count = 0;
+            for (long total : tabelas.values()) {
+                count += total;
+            }
+            
+            Map<String, Object> resposta = new HashMap<>();
+            resposta.put("count", count);
+            resposta.put("tabelas", tabelas);
+            resposta.put("aplicacao_id", idAplicacao);
+            
+            return mapper.writeValueAsString(resposta);
+        } catch (NumberFormatException e) {
+            response.status(400);
+            return criarRespostaErro(mapper, "ID de aplicação inválido");
         } catch (Exception e) {
             e.printStackTrace();
-            return null; // Em caso de erro, não bloquear
-        }
-    }
-    
-    private boolean isReferenciaField(String fieldName) {
-        // Considerar campos que são referências:
-        // - Terminam com "_id" (ex: cliente_id, produto_id)
-        // - Começam com "id_" (ex: id_cliente, id_produto)  
-        // - São compostos como "id_x" onde x é inicial da tabela (ex: id_c, id_p)
-        // - NÃO incluir campo "id" simples (chave primária da própria tabela)
-        
-        return !fieldName.equals("id") && 
-               (fieldName.endsWith("_id") || 
-                fieldName.startsWith("id_") || 
-                fieldName.matches("id_[a-zA-Z]+"));
-    }
-    
-    private String obterTabelaReferenciada(String fieldName) {
-        // Mapear nome do campo para nome da tabela
-        // Convenções possíveis:
-        // id_c -> clientes, id_p -> produtos, etc.
-        // cliente_id -> clientes, produto_id -> produtos
-        // id_cliente -> clientes, id_produto -> produtos
-        
-        if (fieldName.equals("id_c")) return "clientes";
-        if (fieldName.equals("id_p")) return "produtos";
-        
-        // Para campos como "cliente_id" -> "clientes"
-        if (fieldName.endsWith("_id")) {
-            String base = fieldName.substring(0, fieldName.length() - 3);
-            return pluralizarTabela(base);
-        }
-        
-        // Para campos como "id_cliente" -> "clientes"  
-        if (fieldName.startsWith("id_")) {
-            String base = fieldName.substring(3);
-            return pluralizarTabela(base);
+            response.status(500);
+            return criarRespostaErro(mapper, "Erro interno do servidor");
         }
-        
-        return null; // Não é possível determinar a tabela
     }
     
-    private String pluralizarTabela(String nomeBase) {
-        // Regras simples de pluralização em português
-        if (nomeBase.equals("cliente")) return "clientes";
-        if (nomeBase.equals("produto")) return "produtos";
-        if (nomeBase.equals("usuario")) return "usuarios";
-        if (nomeBase.equals("categoria")) return "categorias";
-        
-        // Regra geral: adicionar 's' se não termina com 's'
-        if (!nomeBase.endsWith("s")) {
-            return nomeBase + "s";
+    // Com a aplicação informada a busca lê só a partição dela; sem ela, procura o id em todas
+    private Registro buscarRegistro(RegistroDAO registroDAO, int id, String idAplicacaoStr) {
+        if (idAplicacaoStr == null || idAplicacaoStr.isEmpty()) {
+            return registroDAO.buscarPorId(id);
         }
-        
-        return nomeBase;
+        return registroDAO.buscarPorId(Integer.parseInt(idAplicacaoStr), id);
     }
     
-    private boolean existeRegistro(String tabela, int id, int idAplicacao) {
-        try {
-            RegistroDAO registroDAO = new RegistroDAO();
-            List<Registro> registros = registroDAO.buscarPorAplicacao(idAplicacao);
-            
-            for (Registro registro : registros) {
-                if (registro.getTabela().equals(tabela)) {
-                    // Parse do JSON para verificar se tem o ID procurado
-                    try {
-                        JsonMapper mapper = JsonMapper.builder().build();
-                        Map<String, Object> valorMap = mapper.convertValue(registro.getValor(), new TypeReference<Map<String, Object>>() {});
-                        
-                        // Verificar se existe um campo "id" com o valor procurado
-                        Object idObj = valorMap.get("id");
-                        if (idObj != null) {
-                            int registroId = Integer.parseInt(idObj.toString());
-                            if (registroId == id) {
-                                return true;
-                            }
-                        }
-                    } catch (Exception e) {
-                        // Ignorar erros de parsing e continuar
-                    }
-                }
-            }
-            
-            return false;
-            
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false; // Em caso de erro, assumir que não existe
+    // ID da aplicação via query param (?id_aplicacao=) ou path param (:idAplicacao)
+    private String parametroIdAplicacao(Request request) {
+        String idAplicacaoStr = request.queryParams("id_aplicacao");
+        if (idAplicacaoStr == null || idAplicacaoStr.isEmpty()) {
+            idAplicacaoStr = request.params(":idAplicacao");
         }
+        return idAplicacaoStr;
     }
     
     private String criarRespostaSucesso(JsonMapper mapper, String mensagem) {
@@ -6,8 +6,8 @@ import filterDTO.UsuarioFilterDTO;
 import responseDTO.UsuarioDTO;
 import responseDTO.LoginResponseDTO;
 import util.JwtUtil;
+import util.Json;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import spark.Request;
 import spark.Response;
@@ -21,7 +21,7 @@ public class UsuarioService {
     
     public Object listar(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             UsuarioDAO usuarioDAO = new UsuarioDAO();
@@ -47,7 +47,7 @@ public class UsuarioService {
     
     public Object buscarPorId(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             int id = Integer.parseInt(request.params(":id"));
@@ -79,13 +79,13 @@ public class UsuarioService {
     
     public Object buscarComFiltro(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             UsuarioFilterDTO filtro = null;
             try {
                 if (request.body() != null && !request.body().isEmpty()) {
-                    filtro = mapper.readValue(request.body(), new TypeReference<UsuarioFilterDTO>() {});
+                    filtro = Json.leitor(UsuarioFilterDTO.class).readValue(request.body());
                 }
             } catch (JsonProcessingException e) {
                 response.status(400);
@@ -121,10 +121,10 @@ public class UsuarioService {
     
     public Object inserir(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
-            Usuario usuario = mapper.readValue(request.body(), new TypeReference<Usuario>() {});
+            Usuario usuario = Json.leitor(Usuario.class).readValue(request.body());
             
             if (usuario.getNome() == null || usuario.getNome().trim().isEmpty() ||
                 usuario.getSobrenome() == null || usuario.getSobrenome().trim().isEmpty() ||
@@ -161,11 +161,11 @@ public class UsuarioService {
     
     public Object atualizar(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             int id = Integer.parseInt(request.params(":id"));
-            Usuario usuario = mapper.readValue(request.body(), new TypeReference<Usuario>() {});
+            Usuario usuario = Json.leitor(Usuario.class).readValue(request.body());
             usuario.setId(id);
             
             if (usuario.getNome() == null || usuario.getNome().trim().isEmpty() ||
@@ -211,7 +211,7 @@ public class UsuarioService {
     
     public Object excluir(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
             int id = Integer.parseInt(request.params(":id"));
@@ -240,10 +240,10 @@ public class UsuarioService {
     
     public Object login(Request request, Response response) {
         response.type("application/json");
-        JsonMapper mapper = JsonMapper.builder().build();
+        JsonMapper mapper = Json.mapper();
         
         try {
-            Map<String, String> loginData = mapper.readValue(request.body(), new TypeReference<Map<String, String>>() {});
+            Map<String, String> loginData = Json.leitor(Json.MAPA_TEXTO).readValue(request.body());
             
             String email = loginData.get("email");
             String senha = loginData.get("senha");
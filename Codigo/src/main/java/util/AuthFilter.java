@@ -6,12 +6,10 @@ import spark.Response;
 import spark.Spark;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import responseDTO.LoginResponseDTO;
-import dao.KeyDAO;
-import dao.EndpointDAO;
+import cache.CacheKeys;
+import cache.CacheRotas;
 import model.Key;
 import model.Endpoint;
-import java.util.List;
-import com.auth0.jwt.interfaces.DecodedJWT;
 
 public class AuthFilter {
     
@@ -25,7 +23,7 @@ public class AuthFilter {
         
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             response.status(401);
-            JsonMapper mapper = JsonMapper.builder().build();
+            JsonMapper mapper = Json.mapper();
             LoginResponseDTO errorResponse = new LoginResponseDTO(false, "Token de autenticação não fornecido");
             response.body(mapper.writeValueAsString(errorResponse));
             Spark.halt(401);
@@ -35,10 +33,11 @@ public class AuthFilter {
         // REMOVE O "Bearer " E PEGA APENAS O TOKEN
         String token = authHeader.substring(7);
         
-        // VALIDA O TOKEN
-        if (JwtUtil.validateToken(token) == null) {
+        // VALIDA O TOKEN (UMA VERIFICAÇÃO SÓ; OS CLAIMS VÊM JUNTO)
+        ClaimsToken claims = JwtUtil.verificar(token);
+        if (claims == null) {
             response.status(401);
-            JsonMapper mapper = JsonMapper.builder().build();
+            JsonMapper mapper = Json.mapper();
             LoginResponseDTO errorResponse = new LoginResponseDTO(false, "Token inválido ou expirado");
             response.body(mapper.writeValueAsString(errorResponse));
             Spark.halt(401);
@@ -46,13 +45,13 @@ public class AuthFilter {
         }
         
         // RETORNA OS DADOS DO USUÁRIO
-        int userId = JwtUtil.getUserIdFromToken(token);
-        String userEmail = JwtUtil.getEmailFromToken(token);
+        int userId = claims.getIdUsuario();
+        String userEmail = claims.getEmail();
         
         // VERIFICAR SE O USERID É VÁLIDO
         if (userId == -1) {
             response.status(401);
-            JsonMapper mapper = JsonMapper.builder().build();
+            JsonMapper mapper = Json.mapper();
             LoginResponseDTO errorResponse = new LoginResponseDTO(false, "Erro ao extrair dados do token");
             response.body(mapper.writeValueAsString(errorResponse));
             Spark.halt(401);
@@ -72,7 +71,7 @@ public class AuthFilter {
         
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             response.status(401);
-            JsonMapper mapper = JsonMapper.builder().build();
+            JsonMapper mapper = Json.mapper();
             LoginResponseDTO errorResponse = new LoginResponseDTO(false, "Token de autenticação não fornecido");
             response.body(mapper.writeValueAsString(errorResponse));
             Spark.halt(401);
@@ -83,19 +82,15 @@ public class AuthFilter {
         String token = authHeader.substring(7);
         
         // VALIDAR TOKEN DE APLICAÇÃO OU TOKEN DE USUÁRIO DE APLICAÇÃO
-        DecodedJWT decodedToken = null;
+        // detectTokenType SÓ DECODIFICA (SEM HMAC); A ASSINATURA É VERIFICADA UMA VEZ EM verificar (OU VEM DO CACHE)
         String tokenType = JwtUtil.detectTokenType(token);
-        boolean isValidToken = false;
+        ClaimsToken claims = null;
         
-        if ("app_token".equals(tokenType)) {
-            decodedToken = JwtUtil.validateAppToken(token);
-            isValidToken = (decodedToken != null);
-        } else if ("app_user_token".equals(tokenType)) {
-            decodedToken = JwtUtil.validateAppUserToken(token);
-            isValidToken = (decodedToken != null);
+        if ("app_token".equals(tokenType) || "app_user_token".equals(tokenType)) {
+            claims = JwtUtil.verificar(token, tokenType);
         }
         
-        if (!isValidToken || decodedToken == null) {
+        if (claims == null) {
             String mensagemErro;
             
             switch (tokenType) {
@@ -117,7 +112,7 @@ public class AuthFilter {
             }
             
             response.status(401);
-            JsonMapper mapper = JsonMapper.builder().build();
+            JsonMapper mapper = Json.mapper();
             LoginResponseDTO errorResponse = new LoginResponseDTO(false, mensagemErro);
             response.body(mapper.writeValueAsString(errorResponse));
             Spark.halt(401);
@@ -132,26 +127,25 @@ public class AuthFilter {
         
         if ("app_token".equals(tokenType)) {
             // Token de aplicação direto
-            userId = JwtUtil.getUserIdFromAppToken(token);
-            idAplicacao = JwtUtil.getAplicacaoIdFromAppToken(token);
-            idKey = JwtUtil.getKeyIdFromAppToken(token);
-            codigoKey = JwtUtil.getKeyCodeFromAppToken(token);
+            userId = claims.getIdUsuario();
+            idAplicacao = claims.getIdAplicacao();
+            idKey = claims.getIdKey();
+            codigoKey = claims.getCodigoKey();
         } else if ("app_user_token".equals(tokenType)) {
             // Token de usuário de aplicação - precisa buscar a key de acesso
-            String keyAcesso = JwtUtil.getKeyAcessoFromAppUserToken(token);
+            String keyAcesso = claims.getKeyAcesso();
             
             if (keyAcesso != null) {
-                KeyDAO keyDAO = new KeyDAO();
-                Key key = keyDAO.buscarPorCodigo(keyAcesso);
+                Key key = CacheKeys.buscarPorCodigo(keyAcesso);
                 
                 if (key != null && key.isAtivo()) {
-                    userId = Integer.parseInt(decodedToken.getSubject()); // ID do registro tb_usuario_aplicacao
+                    userId = claims.getIdUsuario(); // ID do registro tb_usuario_aplicacao
                     idAplicacao = key.getIdAplicacao();
                     idKey = key.getId();
                     codigoKey = key.getCodigo();
                 } else {
                     response.status(401);
-                    JsonMapper mapper = JsonMapper.builder().build();
+                    JsonMapper mapper = Json.mapper();
                     LoginResponseDTO errorResponse = new LoginResponseDTO(false, "Key de acesso inválida ou inativa");
                     response.body(mapper.writeValueAsString(errorResponse));
                     Spark.halt(401);
@@ -163,7 +157,7 @@ public class AuthFilter {
         // VERIFICAR SE OS DADOS SÃO VÁLIDOS
         if (userId == -1 || idAplicacao == -1 || idKey == -1 || codigoKey == null) {
             response.status(401);
-            JsonMapper mapper = JsonMapper.builder().build();
+            JsonMapper mapper = Json.mapper();
             LoginResponseDTO errorResponse = new LoginResponseDTO(false, "Erro ao extrair dados do token");
             response.body(mapper.writeValueAsString(errorResponse));
             Spark.halt(401);
@@ -175,7 +169,7 @@ public class AuthFilter {
             int idAplicacaoRota = Integer.parseInt(request.params(":idAplicacao"));
             if (idAplicacao != idAplicacaoRota) {
                 response.status(403);
-                JsonMapper mapper = JsonMapper.builder().build();
+                JsonMapper mapper = Json.mapper();
                 LoginResponseDTO errorResponse = new LoginResponseDTO(false, "Token não autorizado para esta aplicação");
                 response.body(mapper.writeValueAsString(errorResponse));
                 Spark.halt(403);
@@ -183,7 +177,7 @@ public class AuthFilter {
             }
         } catch (NumberFormatException e) {
             response.status(400);
-            JsonMapper mapper = JsonMapper.builder().build();
+            JsonMapper mapper = Json.mapper();
             LoginResponseDTO errorResponse = new LoginResponseDTO(false, "ID da aplicação inválido");
             response.body(mapper.writeValueAsString(errorResponse));
             Spark.halt(400);
@@ -192,12 +186,11 @@ public class AuthFilter {
         
         // VALIDAR SE A KEY EXISTE E ESTÁ ATIVA NO BANCO (apenas para app_token, já validado para app_user_token)
         if ("app_token".equals(tokenType)) {
-            KeyDAO keyDAO = new KeyDAO();
-            Key key = keyDAO.buscarPorId(idKey);
+            Key key = CacheKeys.buscarPorId(idKey);
             
             if (key == null || !key.isAtivo() || !key.getCodigo().equals(codigoKey) || key.getIdAplicacao() != idAplicacao) {
                 response.status(401);
-                JsonMapper mapper = JsonMapper.builder().build();
+                JsonMapper mapper = Json.mapper();
                 LoginResponseDTO errorResponse = new LoginResponseDTO(false, "Key inválida, inativa ou não pertence à aplicação");
                 response.body(mapper.writeValueAsString(errorResponse));
                 Spark.halt(401);
@@ -213,23 +206,13 @@ public class AuthFilter {
                 rotaEndpoint = "/" + rotaEndpoint;
             }
             
-            // Buscar endpoint correspondente
-            EndpointDAO endpointDAO = new EndpointDAO();
-            List<Endpoint> endpoints = endpointDAO.buscarPorAplicacao(idAplicacao);
-            
-            Endpoint endpointEncontrado = null;
-            int metodoHTTP = getMetodoHTTP(request.requestMethod());
-            
-            for (Endpoint endpoint : endpoints) {
-                if (endpoint.getMetodo() == metodoHTTP && rotaCorresponde(endpoint.getRota(), rotaEndpoint)) {
-                    endpointEncontrado = endpoint;
-                    break;
-                }
-            }
+            // Buscar endpoint correspondente na tabela de rotas compilada da aplicação
+            RotaResolvida rotaResolvida = CacheRotas.obter(idAplicacao).resolver(getMetodoHTTP(request.requestMethod()), rotaEndpoint);
+            Endpoint endpointEncontrado = rotaResolvida != null ? rotaResolvida.getEndpoint() : null;
             
             if (endpointEncontrado == null) {
                 response.status(404);
-                JsonMapper mapper = JsonMapper.builder().build();
+                JsonMapper mapper = Json.mapper();
                 LoginResponseDTO errorResponse = new LoginResponseDTO(false, "Endpoint não encontrado para esta rota e método");
                 response.body(mapper.writeValueAsString(errorResponse));
                 Spark.halt(404);
@@ -237,16 +220,17 @@ public class AuthFilter {
             }
             
             // VERIFICAR SE A KEY TEM PERMISSÃO PARA EXECUTAR ESTE ENDPOINT (tb_key_endpoint)
-            KeyDAO keyDAOPermissao = new KeyDAO();
-            List<Integer> endpointsAssociados = keyDAOPermissao.buscarEndpointsAssociados(idKey);
-            if (!endpointsAssociados.contains(endpointEncontrado.getId())) {
+            if (!CacheKeys.podeExecutar(idKey, endpointEncontrado.getId())) {
                 response.status(403);
-                JsonMapper mapper = JsonMapper.builder().build();
+                JsonMapper mapper = Json.mapper();
                 LoginResponseDTO errorResponse = new LoginResponseDTO(false, "Key não autorizada a executar este endpoint");
                 response.body(mapper.writeValueAsString(errorResponse));
                 Spark.halt(403);
                 return;
             }
+            
+            // ENDPOINT JÁ RESOLVIDO E AUTORIZADO: O EXECUTOR REAPROVEITA SEM BUSCAR DE NOVO
+            request.attribute("rotaResolvida", rotaResolvida);
         }
         
         // ADICIONAR ATRIBUTOS À REQUISIÇÃO PARA USO POSTERIOR
@@ -267,15 +251,5 @@ public class AuthFilter {
             default: return 0;
         }
     }
-    
-    // MÉTODO AUXILIAR PARA VERIFICAR SE UMA ROTA CORRESPONDE (CONSIDERANDO PARÂMETROS)
-    private static boolean rotaCorresponde(String rotaEndpoint, String rotaRequisicao) {
-        // Converter rota do endpoint para regex
-        // Exemplo: "/clientes/{id}" -> "/clientes/([^/]+)"
-        String regexRota = rotaEndpoint.replaceAll("\\{[^}]+\\}", "([^/]+)");
-        regexRota = "^" + regexRota + "$";
-        
-        return rotaRequisicao.matches(regexRota);
-    }
 
 }
\ No newline at end of file
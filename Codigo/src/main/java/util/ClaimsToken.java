@@ -0,0 +1,106 @@
+package util;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+
+import java.util.Date;
+
+// DADOS DE UM TOKEN JWT JÁ VERIFICADO (ASSINATURA, EMISSOR, TIPO E EXPIRAÇÃO)
+// IMUTÁVEL: A MESMA INSTÂNCIA É COMPARTILHADA PELO CACHE ENTRE REQUISIÇÕES COM O MESMO TOKEN
+public final class ClaimsToken {
+    private final String tipo;
+    private final String subject;
+    private final int idUsuario;
+    private final String email;
+    private final int idAplicacao;
+    private final int idKey;
+    private final String codigoKey;
+    private final String nomeUsuario;
+    private final String emailUsuario;
+    private final String keyAcesso;
+    private final String dadosUsuario;
+    private final long expiraEm;
+
+    ClaimsToken(String tipo, DecodedJWT jwt) {
+        this.tipo = tipo;
+        this.subject = jwt.getSubject();
+        this.idUsuario = paraInt(subject);
+        this.email = jwt.getClaim("email").asString();
+        this.idAplicacao = inteiro(jwt, "idAplicacao");
+        this.idKey = inteiro(jwt, "idKey");
+        this.codigoKey = jwt.getClaim("codigoKey").asString();
+        this.nomeUsuario = jwt.getClaim("nome_usuario").asString();
+        this.emailUsuario = jwt.getClaim("email_usuario").asString();
+        this.keyAcesso = jwt.getClaim("key_acesso").asString();
+        this.dadosUsuario = jwt.getClaim("dados_usuario").asString();
+        Date expiracao = jwt.getExpiresAt();
+        this.expiraEm = expiracao != null ? expiracao.getTime() : Long.MAX_VALUE;
+    }
+
+    // "user_token", "app_token" OU "app_user_token" (MESMOS VALORES DE JwtUtil.detectTokenType)
+    public String getTipo() {
+        return tipo;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    // SUBJECT COMO NÚMERO (-1 SE NÃO FOR NUMÉRICO): USUÁRIO NOS TOKENS DE USUÁRIO E DE APLICAÇÃO,
+    // REGISTRO DA tb_usuario_aplicacao NOS TOKENS DE USUÁRIO DE APLICAÇÃO
+    public int getIdUsuario() {
+        return idUsuario;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public int getIdAplicacao() {
+        return idAplicacao;
+    }
+
+    public int getIdKey() {
+        return idKey;
+    }
+
+    public String getCodigoKey() {
+        return codigoKey;
+    }
+
+    public String getNomeUsuario() {
+        return nomeUsuario;
+    }
+
+    public String getEmailUsuario() {
+        return emailUsuario;
+    }
+
+    public String getKeyAcesso() {
+        return keyAcesso;
+    }
+
+    public String getDadosUsuario() {
+        return dadosUsuario;
+    }
+
+    public long getExpiraEm() {
+        return expiraEm;
+    }
+
+    public boolean isExpirado(long agora) {
+        return agora >= expiraEm;
+    }
+
+    private static int paraInt(String valor) {
+        try {
+            return valor != null ? Integer.parseInt(valor) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static int inteiro(DecodedJWT jwt, String claim) {
+        Integer valor = jwt.getClaim(claim).asInt();
+        return valor != null ? valor : -1;
+    }
+}
@@ -0,0 +1,77 @@
+package util;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+// CONFIGURAÇÕES EXTERNAS DA APLICAÇÃO (BANCO, POOL, ETC.)
+// ORDEM DE PRECEDÊNCIA: PROPRIEDADE DE SISTEMA (-Dchave=valor) > VARIÁVEL DE AMBIENTE (FLEXBASE_CHAVE) >
+// ARQUIVO INDICADO EM -Dflexbase.config > flexbase.properties DO CLASSPATH > VALOR PADRÃO
+public class Configuracao {
+    private static final String ARQUIVO_PADRAO = "flexbase.properties";
+    private static final Properties propriedades = carregar();
+
+    private static Properties carregar() {
+        Properties props = new Properties();
+
+        try (InputStream in = Configuracao.class.getClassLoader().getResourceAsStream(ARQUIVO_PADRAO)) {
+            if (in != null) {
+                props.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            System.err.println("Erro ao ler " + ARQUIVO_PADRAO + ": " + e.getMessage());
+        }
+
+        String arquivoExterno = System.getProperty("flexbase.config");
+        if (arquivoExterno != null && !arquivoExterno.trim().isEmpty()) {
+            try (Reader reader = new InputStreamReader(new FileInputStream(arquivoExterno), StandardCharsets.UTF_8)) {
+                props.load(reader);
+            } catch (IOException e) {
+                System.err.println("Erro ao ler arquivo de configuração " + arquivoExterno + ": " + e.getMessage());
+            }
+        }
+
+        return props;
+    }
+
+    public static String getString(String chave, String padrao) {
+        String valor = System.getProperty(chave);
+        if (valor == null) {
+            // db.url -> FLEXBASE_DB_URL
+            valor = System.getenv("FLEXBASE_" + chave.toUpperCase().replace('.', '_'));
+        }
+        if (valor == null) {
+            valor = propriedades.getProperty(chave);
+        }
+        return valor != null ? valor.trim() : padrao;
+    }
+
+    public static int getInt(String chave, int padrao) {
+        String valor = getString(chave, null);
+        try {
+            return valor != null ? Integer.parseInt(valor) : padrao;
+        } catch (NumberFormatException e) {
+            System.err.println("Valor inválido para " + chave + ": " + valor);
+            return padrao;
+        }
+    }
+
+    public static long getLong(String chave, long padrao) {
+        String valor = getString(chave, null);
+        try {
+            return valor != null ? Long.parseLong(valor) : padrao;
+        } catch (NumberFormatException e) {
+            System.err.println("Valor inválido para " + chave + ": " + valor);
+            return padrao;
+        }
+    }
+
+    public static boolean getBoolean(String chave, boolean padrao) {
+        String valor = getString(chave, null);
+        return valor != null ? Boolean.parseBoolean(valor) : padrao;
+    }
+}
@@ -0,0 +1,68 @@
+package util;
+
+import java.util.Collection;
+
+// CONJUNTO IMUTÁVEL DE int SEM BOXING (ENDEREÇAMENTO ABERTO, SONDAGEM LINEAR)
+// contem() É O(1) E O CONJUNTO OCUPA UM int[] COM NO MÁXIMO O DOBRO DOS ELEMENTOS
+public final class ConjuntoInteiros {
+    // 0 MARCA POSIÇÃO VAZIA; O PRÓPRIO 0 É GUARDADO À PARTE
+    private final int[] tabela;
+    private final int mascara;
+    private final boolean contemZero;
+    private final int tamanho;
+
+    public ConjuntoInteiros(Collection<Integer> valores) {
+        int capacidade = Integer.highestOneBit(Math.max(2, valores.size() * 2) - 1) << 1;
+        this.tabela = new int[capacidade];
+        this.mascara = capacidade - 1;
+
+        boolean zero = false;
+        int quantidade = 0;
+        for (Integer valor : valores) {
+            if (valor == null) {
+                continue;
+            }
+            if (valor == 0) {
+                if (!zero) {
+                    zero = true;
+                    quantidade++;
+                }
+                continue;
+            }
+            int i = posicao(valor);
+            while (tabela[i] != 0 && tabela[i] != valor) {
+                i = (i + 1) & mascara;
+            }
+            if (tabela[i] == 0) {
+                tabela[i] = valor;
+                quantidade++;
+            }
+        }
+        this.contemZero = zero;
+        this.tamanho = quantidade;
+    }
+
+    public boolean contem(int valor) {
+        if (valor == 0) {
+            return contemZero;
+        }
+        int i = posicao(valor);
+        while (tabela[i] != 0) {
+            if (tabela[i] == valor) {
+                return true;
+            }
+            i = (i + 1) & mascara;
+        }
+        return false;
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    // ESPALHA IDs SEQUENCIAIS PELA TABELA (MESMA MISTURA DO HashMap)
+    private int posicao(int valor) {
+        int h = valor * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mascara;
+    }
+}
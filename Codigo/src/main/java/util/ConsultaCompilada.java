@@ -0,0 +1,213 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+// QUERY DE UM ENDPOINT COMPILADA UMA ÚNICA VEZ: OS ${...} VIRAM PARÂMETROS "?" DO PreparedStatement
+// ASSIM O TEXTO SQL É SEMPRE O MESMO (O POSTGRES E O DRIVER REAPROVEITAM O PLANO) E NENHUM VALOR É CONCATENADO NA QUERY
+// EX.: "... WHERE id_aplicacao = ${id_aplicacao} AND (valor->>'id')::BIGINT = ${id}" -> "... = ? AND (valor->>'id')::BIGINT = ?"
+public class ConsultaCompilada {
+    public static final String ID_APLICACAO = "id_aplicacao";
+    // ${proximo_id:tabela}: PRÓXIMO ID LÓGICO DA TABELA, ENTREGUE PELO dao.AlocadorIds
+    public static final String PREFIXO_PROXIMO_ID = "proximo_id:";
+
+    // DE ONDE VEM O VALOR DE CADA PARÂMETRO
+    public enum Fonte {
+        APLICACAO,   // ${id_aplicacao}
+        ROTA,        // PARÂMETRO DO CAMINHO, EX.: {id} EM /clientes/{id}
+        PAGINACAO,   // ${limit} E ${after} DOS ENDPOINTS GERADOS: VÊM DE ?limit= E ?after=, COM PADRÃO E LIMITE MÁXIMO (VER util.Paginacao)
+        PROXIMO_ID,  // ${proximo_id:tabela}
+        REQUISICAO   // CAMPO DO CORPO JSON (POST/PUT) OU QUERY PARAMETER
+    }
+
+    public static class Parametro {
+        private final String nome;
+        private final Fonte fonte;
+
+        private Parametro(String nome, Fonte fonte) {
+            this.nome = nome;
+            this.fonte = fonte;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+
+        public Fonte getFonte() {
+            return fonte;
+        }
+
+        // TABELA DE UM ${proximo_id:tabela}
+        public String getTabelaProximoId() {
+            return nome.substring(PREFIXO_PROXIMO_ID.length());
+        }
+    }
+
+    private final String sqlOriginal;
+    private final String sql;
+    private final List<Parametro> parametros;
+    private final boolean select;
+    private final boolean paginada;
+    private final boolean chavesDesconhecidas;
+
+    private ConsultaCompilada(String sqlOriginal, String sql, List<Parametro> parametros) {
+        this.sqlOriginal = sqlOriginal;
+        this.sql = sql;
+        this.parametros = Collections.unmodifiableList(parametros);
+        this.select = sqlOriginal.trim().toLowerCase().startsWith("select");
+        this.paginada = parametros.stream()
+            .anyMatch(p -> p.fonte == Fonte.PAGINACAO && Paginacao.PARAMETRO_LIMITE.equals(p.nome));
+        String inicio = sqlOriginal.trim().toLowerCase();
+        this.chavesDesconhecidas = !select && !inicio.startsWith("update") && !inicio.startsWith("delete")
+            && parametros.stream().noneMatch(p -> p.fonte == Fonte.PROXIMO_ID);
+    }
+
+    public String getSqlOriginal() {
+        return sqlOriginal;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    // NA ORDEM DOS "?" DO SQL
+    public List<Parametro> getParametros() {
+        return parametros;
+    }
+
+    public boolean isSelect() {
+        return select;
+    }
+
+    // SELECT COM ${limit}: RESPONDE UMA PÁGINA NO FORMATO {"data": [...], "next": cursor}
+    public boolean isPaginada() {
+        return select && paginada;
+    }
+
+    // ESCRITA QUE PODE GRAVAR CHAVES SEM PASSAR PELO AlocadorIds (EX.: INSERT PERSONALIZADO SEM ${proximo_id:tabela})
+    // UPDATEs SÃO TRATADOS COMO PRESERVANDO AS CHAVES, COMO OS GERADOS
+    public boolean isChavesDesconhecidas() {
+        return chavesDesconhecidas;
+    }
+
+    public boolean usaPaginacao() {
+        return parametros.stream().anyMatch(p -> p.fonte == Fonte.PAGINACAO);
+    }
+
+    // parametrosRota: NOMES DOS {param} DA ROTA DO ENDPOINT
+    // paginacao: ${limit} E ${after} SÃO OS PARÂMETROS DE PAGINAÇÃO (SÓ NOS ENDPOINTS GERADOS; NOS PERSONALIZADOS
+    // CONTINUAM SENDO CAMPOS DA REQUISIÇÃO COMO QUALQUER OUTRO, E A RESPOSTA CONTINUA SENDO O ARRAY)
+    public static ConsultaCompilada compilar(String sqlOriginal, Set<String> parametrosRota, boolean paginacao) {
+        StringBuilder sql = new StringBuilder(sqlOriginal.length());
+        List<Parametro> parametros = new ArrayList<>();
+        int tamanho = sqlOriginal.length();
+        int i = 0;
+
+        while (i < tamanho) {
+            char c = sqlOriginal.charAt(i);
+            char proximo = i + 1 < tamanho ? sqlOriginal.charAt(i + 1) : '\0';
+
+            if (c == '\'') {
+                i = compilarLiteral(sqlOriginal, i, sql, parametros, parametrosRota, paginacao);
+            } else if (c == '"') {
+                // IDENTIFICADOR ENTRE ASPAS DUPLAS: COPIA SEM ALTERAR
+                int fim = sqlOriginal.indexOf('"', i + 1);
+                fim = fim < 0 ? tamanho : fim + 1;
+                sql.append(sqlOriginal, i, fim);
+                i = fim;
+            } else if (c == '-' && proximo == '-') {
+                int fim = sqlOriginal.indexOf('\n', i);
+                fim = fim < 0 ? tamanho : fim;
+                sql.append(sqlOriginal, i, fim);
+                i = fim;
+            } else if (c == '/' && proximo == '*') {
+                int fim = sqlOriginal.indexOf("*/", i + 2);
+                fim = fim < 0 ? tamanho : fim + 2;
+                sql.append(sqlOriginal, i, fim);
+                i = fim;
+            } else if (c == '$' && proximo == '{' && sqlOriginal.indexOf('}', i + 2) > 0) {
+                int fim = sqlOriginal.indexOf('}', i + 2);
+                parametros.add(criarParametro(sqlOriginal.substring(i + 2, fim), parametrosRota, paginacao));
+                sql.append('?');
+                i = fim + 1;
+            } else if (c == '?') {
+                // OPERADORES JSONB (?, ?|, ?&) PRECISAM SER ESCAPADOS PARA O DRIVER NÃO CONFUNDIR COM PARÂMETRO
+                sql.append("??");
+                i++;
+            } else {
+                sql.append(c);
+                i++;
+            }
+        }
+
+        return new ConsultaCompilada(sqlOriginal, sql.toString(), parametros);
+    }
+
+    private static Parametro criarParametro(String nome, Set<String> parametrosRota, boolean paginacao) {
+        // MESMA PRECEDÊNCIA DA SUBSTITUIÇÃO ANTERIOR: id_aplicacao > ROTA > CORPO > QUERY PARAMETER
+        // (limit E after SÃO RESERVADOS PARA A PAGINAÇÃO NOS ENDPOINTS GERADOS)
+        if (ID_APLICACAO.equals(nome)) {
+            return new Parametro(nome, Fonte.APLICACAO);
+        }
+        if (nome.startsWith(PREFIXO_PROXIMO_ID) && nome.length() > PREFIXO_PROXIMO_ID.length()) {
+            return new Parametro(nome, Fonte.PROXIMO_ID);
+        }
+        if (parametrosRota.contains(nome)) {
+            return new Parametro(nome, Fonte.ROTA);
+        }
+        if (paginacao && (Paginacao.PARAMETRO_LIMITE.equals(nome) || Paginacao.PARAMETRO_APOS.equals(nome))) {
+            return new Parametro(nome, Fonte.PAGINACAO);
+        }
+        return new Parametro(nome, Fonte.REQUISICAO);
+    }
+
+    // LITERAL '...' COM ${x} DENTRO (EX.: '%${nome}%') VIRA CONCATENAÇÃO: ('%' || CAST(? AS text) || '%')
+    private static int compilarLiteral(String sqlOriginal, int inicio, StringBuilder sql,
+                                       List<Parametro> parametros, Set<String> parametrosRota, boolean paginacao) {
+        List<String> partes = new ArrayList<>();
+        StringBuilder atual = new StringBuilder("'");
+        int tamanho = sqlOriginal.length();
+        int i = inicio + 1;
+
+        while (i < tamanho) {
+            char c = sqlOriginal.charAt(i);
+            if (c == '\'') {
+                if (i + 1 < tamanho && sqlOriginal.charAt(i + 1) == '\'') {
+                    atual.append("''");
+                    i += 2;
+                    continue;
+                }
+                i++;
+                break;
+            }
+            if (c == '$' && i + 1 < tamanho && sqlOriginal.charAt(i + 1) == '{') {
+                int fim = sqlOriginal.indexOf('}', i + 2);
+                if (fim > 0) {
+                    if (atual.length() > 1) {
+                        partes.add(atual.append('\'').toString());
+                    }
+                    partes.add("CAST(? AS text)");
+                    parametros.add(criarParametro(sqlOriginal.substring(i + 2, fim), parametrosRota, paginacao));
+                    atual = new StringBuilder("'");
+                    i = fim + 1;
+                    continue;
+                }
+            }
+            atual.append(c);
+            i++;
+        }
+
+        if (partes.isEmpty()) {
+            sql.append(atual).append('\'');
+            return i;
+        }
+
+        if (atual.length() > 1) {
+            partes.add(atual.append('\'').toString());
+        }
+        sql.append('(').append(String.join(" || ", partes)).append(')');
+        return i;
+    }
+}
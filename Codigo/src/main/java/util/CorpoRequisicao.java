@@ -0,0 +1,92 @@
+package util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import spark.Request;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletRequestWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+// CORPO JSON DA REQUISIÇÃO LIDO UMA ÚNICA VEZ E GUARDADO COMO ATRIBUTO DA REQUISIÇÃO
+// VALIDAÇÃO DE REFERÊNCIAS, VÍNCULO DE PARÂMETROS E DEMAIS ETAPAS USAM A MESMA ÁRVORE, SEM PARSEAR DE NOVO
+public final class CorpoRequisicao {
+    public static final String ATRIBUTO = "corpoJson";
+    private static final long TAMANHO_MAXIMO = Configuracao.getLong("requisicao.tamanhoMaximoCorpo", 1048576L);
+
+    private CorpoRequisicao() {
+    }
+
+    // ÁRVORE DO CORPO, OU null SE NÃO HÁ CORPO OU ELE NÃO É JSON VÁLIDO
+    // LANÇA CorpoMuitoGrandeException (413) QUANDO O CORPO PASSA DE requisicao.tamanhoMaximoCorpo BYTES
+    public static JsonNode ler(Request request) {
+        Object guardado = request.attribute(ATRIBUTO);
+        if (guardado != null) {
+            // MissingNode MARCA UM CORPO JÁ LIDO E AUSENTE/INVÁLIDO
+            return guardado instanceof MissingNode ? null : (JsonNode) guardado;
+        }
+
+        JsonNode corpo = parsear(request);
+        request.attribute(ATRIBUTO, corpo != null ? corpo : MissingNode.getInstance());
+        return corpo;
+    }
+
+    private static JsonNode parsear(Request request) {
+        // RECUSA PELO Content-Length ANTES DE LER O CORPO; SEM ELE (CHUNKED) A LEITURA PARA NO LIMITE
+        long tamanhoDeclarado = request.raw().getContentLengthLong();
+        if (tamanhoDeclarado > TAMANHO_MAXIMO) {
+            throw new CorpoMuitoGrandeException(TAMANHO_MAXIMO);
+        }
+
+        try {
+            byte[] bytes = lerAteLimite(fluxo(request));
+            if (bytes.length == 0) {
+                return null;
+            }
+
+            // DIRETO DOS BYTES, SEM MONTAR A String DO CORPO
+            JsonNode corpo = Json.leitorArvore().readValue(bytes);
+            return corpo != null && !corpo.isMissingNode() ? corpo : null;
+        } catch (IOException e) {
+            // CORPO QUE NÃO É JSON (OU SÓ ESPAÇOS) OU QUE NÃO PÔDE SER LIDO: SEGUE SEM OS CAMPOS DO CORPO
+            return null;
+        }
+    }
+
+    // LÊ NO MÁXIMO TAMANHO_MAXIMO + 1 BYTES: PASSOU DO LIMITE, RECUSA SEM CONSUMIR O RESTO DO CORPO
+    private static byte[] lerAteLimite(InputStream entrada) throws IOException {
+        ByteArrayOutputStream lidos = new ByteArrayOutputStream();
+        byte[] bloco = new byte[8192];
+        long restante = TAMANHO_MAXIMO + 1;
+        int quantidade;
+        while (restante > 0 && (quantidade = entrada.read(bloco, 0, (int) Math.min(bloco.length, restante))) != -1) {
+            lidos.write(bloco, 0, quantidade);
+            restante -= quantidade;
+            if (lidos.size() > TAMANHO_MAXIMO) {
+                throw new CorpoMuitoGrandeException(TAMANHO_MAXIMO);
+            }
+        }
+        return lidos.toByteArray();
+    }
+
+    // FLUXO DO CORPO DIRETO DA REQUISIÇÃO DO JETTY
+    // O request.raw() DO SPARK GUARDA O CORPO INTEIRO EM MEMÓRIA NO PRIMEIRO getInputStream(); DEPOIS DESTA
+    // LEITURA O CORPO NÃO PODE SER LIDO DE NOVO POR request.body()
+    public static InputStream fluxo(Request request) throws IOException {
+        ServletRequest bruta = request.raw();
+        while (bruta instanceof ServletRequestWrapper) {
+            bruta = ((ServletRequestWrapper) bruta).getRequest();
+        }
+        return bruta.getInputStream();
+    }
+
+    public static class CorpoMuitoGrandeException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public CorpoMuitoGrandeException(long tamanhoMaximo) {
+            super("Corpo da requisição excede o tamanho máximo de " + tamanhoMaximo + " bytes");
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// FILTRO DE BLOOM DE IDs (long): "NÃO CONTÉM" É CERTEZA, "TALVEZ CONTENHA" PRECISA SER CONFIRMADO
+// SEGURO ENTRE THREADS SEM TRAVAS: OS BITS SÓ SÃO LIGADOS, NUNCA DESLIGADOS (NÃO HÁ REMOÇÃO)
+public final class FiltroBloom {
+    // LIMITE DO AtomicLongArray (ÍNDICE int)
+    private static final long MAXIMO_BITS = (long) Integer.MAX_VALUE * 64;
+
+    private final AtomicLongArray bits;
+    private final long totalBits;
+    private final int funcoes;
+    private final long capacidade;
+    private final AtomicLong quantidade = new AtomicLong();
+
+    // bitsPorItem 10 DÁ ~1% DE FALSOS POSITIVOS ATÉ capacidade ITENS
+    public FiltroBloom(long capacidade, int bitsPorItem) {
+        this.capacidade = Math.max(1, capacidade);
+        long bitsDesejados = Math.max(64, this.capacidade * Math.max(1, bitsPorItem));
+        int palavras = (int) ((Math.min(bitsDesejados, MAXIMO_BITS) + 63) / 64);
+        this.bits = new AtomicLongArray(palavras);
+        this.totalBits = (long) palavras * 64;
+        // QUANTIDADE ÓTIMA DE FUNÇÕES: (m/n) * ln 2
+        this.funcoes = Math.max(1, (int) Math.round(Math.max(1, bitsPorItem) * Math.log(2)));
+    }
+
+    public void adicionar(long valor) {
+        long h1 = misturar(valor);
+        long h2 = misturar(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < funcoes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, totalBits);
+            int palavra = (int) (bit >>> 6);
+            long mascara = 1L << (bit & 63);
+            long atual = bits.get(palavra);
+            while ((atual & mascara) == 0 && !bits.compareAndSet(palavra, atual, atual | mascara)) {
+                atual = bits.get(palavra);
+            }
+        }
+        quantidade.incrementAndGet();
+    }
+
+    public boolean talvezContenha(long valor) {
+        long h1 = misturar(valor);
+        long h2 = misturar(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < funcoes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, totalBits);
+            if ((bits.get((int) (bit >>> 6)) & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // PASSOU DA CAPACIDADE: A TAXA DE FALSOS POSITIVOS SOBE, VALE RECONSTRUIR MAIOR
+    public boolean isSaturado() {
+        return quantidade.get() > capacidade;
+    }
+
+    // FINALIZADOR DO MURMUR3 (fmix64): ESPALHA IDs SEQUENCIAIS PELOS BITS
+    private static long misturar(long valor) {
+        valor ^= valor >>> 33;
+        valor *= 0xff51afd7ed558ccdL;
+        valor ^= valor >>> 33;
+        valor *= 0xc4ceb9fe1a85ec53L;
+        valor ^= valor >>> 33;
+        return valor;
+    }
+}
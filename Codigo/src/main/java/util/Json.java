@@ -0,0 +1,58 @@
+package util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// REGISTRO CENTRAL DO JACKSON: UM ÚNICO MAPPER CONFIGURADO NA CARGA DA CLASSE E LEITORES IMUTÁVEIS POR TIPO
+// CRIAR UM MAPPER POR REQUISIÇÃO DESCARTA OS CACHES DE (DE)SERIALIZADORES; AQUI ELES SÃO MONTADOS UMA VEZ POR TIPO
+// O MAPPER NÃO DEVE SER RECONFIGURADO DEPOIS DE PRONTO; ASSIM ELE E OS ObjectReader SÃO SEGUROS ENTRE THREADS
+// A ESCRITA DAS RESPOSTAS USA O PRÓPRIO MAPPER, QUE GUARDA OS SERIALIZADORES DE CADA DTO
+public final class Json {
+    private static final JsonMapper mapper = criarMapper();
+    private static final ObjectReader leitorArvore = mapper.readerFor(JsonNode.class);
+    private static final Map<Object, ObjectReader> leitores = new ConcurrentHashMap<>();
+
+    // TIPOS GENÉRICOS MAIS USADOS NOS CORPOS DE REQUISIÇÃO
+    public static final TypeReference<Map<String, Object>> MAPA = new TypeReference<Map<String, Object>>() {};
+    public static final TypeReference<Map<String, String>> MAPA_TEXTO = new TypeReference<Map<String, String>>() {};
+
+    private Json() {
+    }
+
+    private static JsonMapper criarMapper() {
+        JsonMapper.Builder builder = JsonMapper.builder();
+        if (Configuracao.getBoolean("json.afterburner", false)) {
+            builder.addModule(new AfterburnerModule());
+        }
+        return builder.build();
+    }
+
+    // MAPPER COMPARTILHADO (PARA convertValue, valueToTree, getFactory E OS HELPERS DE RESPOSTA)
+    public static JsonMapper mapper() {
+        return mapper;
+    }
+
+    public static ObjectReader leitor(Class<?> tipo) {
+        return leitores.computeIfAbsent(tipo, t -> mapper.readerFor(tipo));
+    }
+
+    // TIPOS GENÉRICOS: O CACHE É POR INSTÂNCIA DE TypeReference, ENTÃO USE CONSTANTES (EX.: MAPA)
+    public static ObjectReader leitor(TypeReference<?> tipo) {
+        return leitores.computeIfAbsent(tipo, t -> mapper.readerFor(tipo));
+    }
+
+    public static ObjectReader leitorArvore() {
+        return leitorArvore;
+    }
+
+    public static JsonNode lerArvore(String json) throws JsonProcessingException {
+        return leitorArvore.readTree(json);
+    }
+}
@@ -6,6 +6,7 @@ import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTCreationException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import cache.CacheTokens;
 import java.util.Date;
 
 public class JwtUtil {
@@ -15,7 +16,54 @@ public class JwtUtil {
     
     private static final Algorithm algorithm = Algorithm.HMAC256(SECRET);
     
-
+    // VERIFICADORES MONTADOS UMA VEZ SÓ (JWTVerifier É THREAD-SAFE)
+    private static final JWTVerifier verificadorUsuario = JWT.require(algorithm)
+            .withIssuer(ISSUER)
+            .build();
+    private static final JWTVerifier verificadorApp = JWT.require(algorithm)
+            .withIssuer(ISSUER)
+            .withClaim("type", "app_token")
+            .build();
+    private static final JWTVerifier verificadorAppUsuario = JWT.require(algorithm)
+            .withIssuer(ISSUER)
+            .withClaim("type", "app_user_token")
+            .build();
+    
+    //VERIFICA O TOKEN UMA VEZ E RETORNA TODOS OS CLAIMS (null SE INVÁLIDO OU EXPIRADO)
+    //TOKENS JÁ VERIFICADOS VÊM DO CACHE SEM REFAZER A ASSINATURA
+    public static ClaimsToken verificar(String token) {
+        if (token == null) {
+            return null;
+        }
+        ClaimsToken claims = CacheTokens.obter(token);
+        if (claims != null) {
+            return claims;
+        }
+        
+        String tipo = detectTokenType(token);
+        JWTVerifier verificador;
+        switch (tipo) {
+            case "app_token": verificador = verificadorApp; break;
+            case "app_user_token": verificador = verificadorAppUsuario; break;
+            case "user_token": verificador = verificadorUsuario; break;
+            default: return null;
+        }
+        
+        try {
+            claims = new ClaimsToken(tipo, verificador.verify(token));
+        } catch (JWTVerificationException exception) {
+            System.err.println("Token JWT inválido: " + exception.getMessage());
+            return null;
+        }
+        CacheTokens.guardar(token, claims);
+        return claims;
+    }
+    
+    //MESMO QUE verificar, MAS SÓ ACEITA TOKENS DO TIPO INFORMADO
+    public static ClaimsToken verificar(String token, String tipo) {
+        ClaimsToken claims = verificar(token);
+        return claims != null && claims.getTipo().equals(tipo) ? claims : null;
+    }
     
     //GERA O TOKEN DO USUARIO
     public static String generateToken(int userId, String email) {
@@ -38,11 +86,7 @@ public class JwtUtil {
     //VALIDA O TOKEN
     public static DecodedJWT validateToken(String token) {
         try {
-            JWTVerifier verifier = JWT.require(algorithm)
-                    .withIssuer(ISSUER)
-                    .build();
-            
-            return verifier.verify(token);
+            return verificadorUsuario.verify(token);
         } catch (JWTVerificationException exception) {
             System.err.println("Token JWT inválido: " + exception.getMessage());
             return null;
@@ -51,24 +95,14 @@ public class JwtUtil {
     
     //PEGA O ID DO USUARIO PELO TOKEN
     public static int getUserIdFromToken(String token) {
-        DecodedJWT decodedJWT = validateToken(token);
-        if (decodedJWT != null) {
-            try {
-                return Integer.parseInt(decodedJWT.getSubject());
-            } catch (NumberFormatException e) {
-                return -1;
-            }
-        }
-        return -1;
+        ClaimsToken claims = verificar(token);
+        return claims != null ? claims.getIdUsuario() : -1;
     }
     
     //PEGA O EMMAIL DO USUARIO
     public static String getEmailFromToken(String token) {
-        DecodedJWT decodedJWT = validateToken(token);
-        if (decodedJWT != null) {
-            return decodedJWT.getClaim("email").asString();
-        }
-        return null;
+        ClaimsToken claims = verificar(token);
+        return claims != null ? claims.getEmail() : null;
     }
     
     //PEGA O ID DO USUARIO LOGADO A PARTIR DA REQUEST
@@ -87,11 +121,8 @@ public class JwtUtil {
     
     //VERIFICA SE O TOKEN JA EXPIROU
     public static boolean isTokenExpired(String token) {
-        DecodedJWT decodedJWT = validateToken(token);
-        if (decodedJWT != null) {
-            return decodedJWT.getExpiresAt().before(new Date());
-        }
-        return true;
+        ClaimsToken claims = verificar(token);
+        return claims == null || claims.isExpirado(System.currentTimeMillis());
     }
     
     // ========== MÉTODOS PARA TOKENS DE APLICAÇÃO ==========
@@ -120,12 +151,7 @@ public class JwtUtil {
     //VALIDA E VERIFICA SE É UM TOKEN DE APLICACAO
     public static DecodedJWT validateAppToken(String token) {
         try {
-            JWTVerifier verifier = JWT.require(algorithm)
-                    .withIssuer(ISSUER)
-                    .withClaim("type", "app_token")
-                    .build();
-            
-            return verifier.verify(token);
+            return verificadorApp.verify(token);
         } catch (JWTVerificationException exception) {
             System.err.println("Token JWT de aplicação inválido: " + exception.getMessage());
             return null;
@@ -134,50 +160,26 @@ public class JwtUtil {
     
     //PEGA O ID DA APLICACAO DO TOKEN
     public static int getAplicacaoIdFromAppToken(String token) {
-        DecodedJWT decodedJWT = validateAppToken(token);
-        if (decodedJWT != null) {
-            try {
-                return decodedJWT.getClaim("idAplicacao").asInt();
-            } catch (Exception e) {
-                return -1;
-            }
-        }
-        return -1;
+        ClaimsToken claims = verificar(token, "app_token");
+        return claims != null ? claims.getIdAplicacao() : -1;
     }
     
     //PEGA O ID DA KEY DO TOKEN
     public static int getKeyIdFromAppToken(String token) {
-        DecodedJWT decodedJWT = validateAppToken(token);
-        if (decodedJWT != null) {
-            try {
-                return decodedJWT.getClaim("idKey").asInt();
-            } catch (Exception e) {
-                return -1;
-            }
-        }
-        return -1;
+        ClaimsToken claims = verificar(token, "app_token");
+        return claims != null ? claims.getIdKey() : -1;
     }
     
     //PEGA O CODIGO DA KEY DO TOKEN
     public static String getKeyCodeFromAppToken(String token) {
-        DecodedJWT decodedJWT = validateAppToken(token);
-        if (decodedJWT != null) {
-            return decodedJWT.getClaim("codigoKey").asString();
-        }
-        return null;
+        ClaimsToken claims = verificar(token, "app_token");
+        return claims != null ? claims.getCodigoKey() : null;
     }
     
     //PEGA O ID DO USUARIO DO TOKEN DE APLICACAO
     public static int getUserIdFromAppToken(String token) {
-        DecodedJWT decodedJWT = validateAppToken(token);
-        if (decodedJWT != null) {
-            try {
-                return Integer.parseInt(decodedJWT.getSubject());
-            } catch (NumberFormatException e) {
-                return -1;
-            }
-        }
-        return -1;
+        ClaimsToken claims = verificar(token, "app_token");
+        return claims != null ? claims.getIdUsuario() : -1;
     }
     
     // ========== MÉTODOS PARA TOKENS DE USUÁRIO DE APLICAÇÃO ==========
@@ -185,12 +187,7 @@ public class JwtUtil {
     //VALIDA E VERIFICA SE É UM TOKEN DE USUÁRIO DE APLICAÇÃO
     public static DecodedJWT validateAppUserToken(String token) {
         try {
-            JWTVerifier verifier = JWT.require(algorithm)
-                    .withIssuer(ISSUER)
-                    .withClaim("type", "app_user_token")
-                    .build();
-            
-            return verifier.verify(token);
+            return verificadorAppUsuario.verify(token);
         } catch (JWTVerificationException exception) {
             System.err.println("Token JWT de usuário de aplicação inválido: " + exception.getMessage());
             return null;
@@ -199,38 +196,26 @@ public class JwtUtil {
     
     //PEGA O NOME DO USUARIO DO TOKEN DE USUÁRIO DE APLICAÇÃO
     public static String getNomeUsuarioFromAppUserToken(String token) {
-        DecodedJWT decodedJWT = validateAppUserToken(token);
-        if (decodedJWT != null) {
-            return decodedJWT.getClaim("nome_usuario").asString();
-        }
-        return null;
+        ClaimsToken claims = verificar(token, "app_user_token");
+        return claims != null ? claims.getNomeUsuario() : null;
     }
     
     //PEGA O EMAIL DO USUARIO DO TOKEN DE USUÁRIO DE APLICAÇÃO
     public static String getEmailUsuarioFromAppUserToken(String token) {
-        DecodedJWT decodedJWT = validateAppUserToken(token);
-        if (decodedJWT != null) {
-            return decodedJWT.getClaim("email_usuario").asString();
-        }
-        return null;
+        ClaimsToken claims = verificar(token, "app_user_token");
+        return claims != null ? claims.getEmailUsuario() : null;
     }
     
     //PEGA A KEY DE ACESSO DO TOKEN DE USUÁRIO DE APLICAÇÃO
     public static String getKeyAcessoFromAppUserToken(String token) {
-        DecodedJWT decodedJWT = validateAppUserToken(token);
-        if (decodedJWT != null) {
-            return decodedJWT.getClaim("key_acesso").asString();
-        }
-        return null;
+        ClaimsToken claims = verificar(token, "app_user_token");
+        return claims != null ? claims.getKeyAcesso() : null;
     }
     
     //PEGA OS DADOS DO USUÁRIO DO TOKEN DE USUÁRIO DE APLICAÇÃO
     public static String getDadosUsuarioFromAppUserToken(String token) {
-        DecodedJWT decodedJWT = validateAppUserToken(token);
-        if (decodedJWT != null) {
-            return decodedJWT.getClaim("dados_usuario").asString();
-        }
-        return null;
+        ClaimsToken claims = verificar(token, "app_user_token");
+        return claims != null ? claims.getDadosUsuario() : null;
     }
     
     // ========== MÉTODOS AUXILIARES ==========
@@ -258,16 +243,7 @@ public class JwtUtil {
     //VALIDA QUALQUER TIPO DE TOKEN E RETORNA O TIPO DETECTADO
     public static String validateAnyToken(String token) {
         String tokenType = detectTokenType(token);
-        
-        switch (tokenType) {
-            case "app_token":
-                return validateAppToken(token) != null ? "app_token" : null;
-            case "app_user_token":
-                return validateAppUserToken(token) != null ? "app_user_token" : null;
-            case "user_token":
-                return validateToken(token) != null ? "user_token" : null;
-            default:
-                return null;
-        }
+        ClaimsToken claims = verificar(token);
+        return claims != null && claims.getTipo().equals(tokenType) ? tokenType : null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package util;
+
+import spark.Request;
+import spark.Response;
+
+import java.util.List;
+
+// PAGINAÇÃO POR CURSOR (KEYSET): ?limit=N&after=ULTIMO_ID
+// A CONSULTA FILTRA "chave > after ORDER BY chave LIMIT limit + 1"; A LINHA EXTRA SÓ INDICA QUE EXISTE PRÓXIMA PÁGINA
+public class Paginacao {
+    public static final String PARAMETRO_LIMITE = "limit";
+    public static final String PARAMETRO_APOS = "after";
+    public static final String HEADER_PROXIMO = "X-Next-Cursor";
+
+    private static final int LIMITE_PADRAO = Configuracao.getInt("paginacao.limitePadrao", 100);
+    private static final int LIMITE_MAXIMO = Configuracao.getInt("paginacao.limiteMaximo", 1000);
+
+    private final int limite;
+    private final long apos;
+
+    private Paginacao(int limite, long apos) {
+        this.limite = limite;
+        this.apos = apos;
+    }
+
+    // LANÇA IllegalArgumentException SE limit OU after NÃO FOREM NÚMEROS
+    public static Paginacao daRequisicao(Request request) {
+        int limite = LIMITE_PADRAO;
+        long apos = Long.MIN_VALUE;
+
+        String limiteTexto = request.queryParams(PARAMETRO_LIMITE);
+        String aposTexto = request.queryParams(PARAMETRO_APOS);
+        try {
+            if (limiteTexto != null && !limiteTexto.trim().isEmpty()) {
+                limite = Integer.parseInt(limiteTexto.trim());
+            }
+            if (aposTexto != null && !aposTexto.trim().isEmpty()) {
+                apos = Long.parseLong(aposTexto.trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parâmetros de paginação inválidos: limit e after devem ser números");
+        }
+
+        limite = Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+        return new Paginacao(limite, apos);
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+
+    // QUANTIDADE A BUSCAR NO BANCO (UMA A MAIS QUE A PÁGINA)
+    public int getLimiteConsulta() {
+        return limite + 1;
+    }
+
+    public long getApos() {
+        return apos;
+    }
+
+    public boolean temProxima(List<?> linhas) {
+        return linhas.size() > limite;
+    }
+
+    // REMOVE A LINHA EXTRA E RETORNA A PÁGINA
+    public <T> List<T> pagina(List<T> linhas) {
+        return temProxima(linhas) ? linhas.subList(0, limite) : linhas;
+    }
+
+    // INFORMA O CURSOR DA PRÓXIMA PÁGINA NO HEADER (LISTAGENS QUE RESPONDEM UM ARRAY)
+    public void informarProxima(Response response, List<?> linhas, long ultimaChave) {
+        if (temProxima(linhas)) {
+            response.header(HEADER_PROXIMO, String.valueOf(ultimaChave));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+// REGRAS DE UM CAMPO DO schema_banco, LIDAS UMA VEZ NA COMPILAÇÃO DO SCHEMA (VER SchemaCompilado)
+public final class RegraCampo {
+    private final String nome;
+    private final String tipo;
+    private final boolean chave;
+    private final boolean criptografado;
+    private volatile String tabelaReferenciada;
+    private volatile String campoReferenciado;
+
+    RegraCampo(JsonNode campo) {
+        this.nome = campo.path("nome").asText();
+        this.tipo = campo.path("tipo").asText();
+        // CHAVE PRIMÁRIA OU TIPO "id": RECEBE ID GERADO NA INSERÇÃO E É PRESERVADO NA ATUALIZAÇÃO
+        this.chave = campo.path("chave_primaria").asBoolean(false) || "id".equals(tipo);
+        this.criptografado = !chave && "criptografia".equals(tipo);
+    }
+
+    // LIGA O CAMPO À TABELA/CAMPO ALVO DE UM RELACIONAMENTO DO SCHEMA
+    void referenciar(String tabela, String campo) {
+        this.tabelaReferenciada = tabela;
+        this.campoReferenciado = campo;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    public boolean isChave() {
+        return chave;
+    }
+
+    public boolean isCriptografado() {
+        return criptografado;
+    }
+
+    public boolean isReferencia() {
+        return tabelaReferenciada != null;
+    }
+
+    public String getTabelaReferenciada() {
+        return tabelaReferenciada;
+    }
+
+    public String getCampoReferenciado() {
+        return campoReferenciado;
+    }
+}
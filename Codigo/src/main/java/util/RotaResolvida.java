@@ -0,0 +1,24 @@
+package util;
+
+import model.Endpoint;
+
+import java.util.Map;
+
+// RESULTADO DA RESOLUÇÃO DE UMA ROTA DINÂMICA: O ENDPOINT E OS PARÂMETROS EXTRAÍDOS DO CAMINHO
+public class RotaResolvida {
+    private final Endpoint endpoint;
+    private final Map<String, String> parametros;
+
+    public RotaResolvida(Endpoint endpoint, Map<String, String> parametros) {
+        this.endpoint = endpoint;
+        this.parametros = parametros;
+    }
+
+    public Endpoint getEndpoint() {
+        return endpoint;
+    }
+
+    public Map<String, String> getParametros() {
+        return parametros;
+    }
+}
@@ -0,0 +1,93 @@
+package util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// schema_banco DE UMA APLICAÇÃO COMPILADO UMA VEZ: TABELAS E CAMPOS POR NOME (HASH), SEM PERCORRER O JSON A CADA ESCRITA
+// ESPERA O FORMATO {"armazenamento": "jsonb" | "nativo", "tabelas": [{"nome", "campos": [...], "relacionamentos": [...]}]}
+public final class SchemaCompilado {
+    // MODOS DE ARMAZENAMENTO: DOCUMENTOS NA tb_registros (PADRÃO) OU UMA TABELA POSTGRES POR TABELA DO SCHEMA
+    public static final String ARMAZENAMENTO_JSONB = "jsonb";
+    public static final String ARMAZENAMENTO_NATIVO = "nativo";
+
+    // NA ORDEM DECLARADA NO schema_banco
+    private final Map<String, TabelaSchema> tabelas = new LinkedHashMap<>();
+    private final Set<String> referenciadas = new HashSet<>();
+    private boolean nativo;
+
+    private SchemaCompilado() {
+    }
+
+    public static SchemaCompilado compilar(JsonNode schemaBanco) {
+        SchemaCompilado schema = new SchemaCompilado();
+        schema.nativo = schemaBanco != null && ARMAZENAMENTO_NATIVO.equals(schemaBanco.path("armazenamento").asText());
+        JsonNode tabelas = schemaBanco != null ? schemaBanco.get("tabelas") : null;
+        if (tabelas == null || !tabelas.isArray()) {
+            return schema;
+        }
+
+        for (JsonNode tabela : tabelas) {
+            String nome = tabela.path("nome").asText(null);
+            if (nome == null) {
+                continue;
+            }
+            TabelaSchema tabelaSchema = new TabelaSchema(nome);
+            for (JsonNode campo : tabela.path("campos")) {
+                if (campo.hasNonNull("nome")) {
+                    tabelaSchema.adicionar(new RegraCampo(campo));
+                }
+            }
+            // A PRIMEIRA DEFINIÇÃO DA TABELA VALE, COMO NA BUSCA LINEAR ANTERIOR
+            schema.tabelas.putIfAbsent(nome, tabelaSchema);
+        }
+
+        // RELACIONAMENTOS SÓ DEPOIS DE TODAS AS TABELAS EXISTIREM
+        for (JsonNode tabela : tabelas) {
+            TabelaSchema tabelaSchema = schema.tabelas.get(tabela.path("nome").asText(""));
+            if (tabelaSchema == null) {
+                continue;
+            }
+            for (JsonNode relacionamento : tabela.path("relacionamentos")) {
+                RegraCampo campo = tabelaSchema.getCampo(relacionamento.path("campo_local").asText(""));
+                String tabelaAlvo = relacionamento.path("tabela_alvo").asText(null);
+                if (campo == null || tabelaAlvo == null) {
+                    continue;
+                }
+                String campoAlvo = relacionamento.path("campo_alvo").asText(null);
+                if (campoAlvo == null) {
+                    // SEM campo_alvo: A CHAVE DA TABELA ALVO
+                    TabelaSchema alvo = schema.tabelas.get(tabelaAlvo);
+                    campoAlvo = alvo != null && !alvo.getChaves().isEmpty() ? alvo.getChaves().get(0).getNome() : "id";
+                }
+                campo.referenciar(tabelaAlvo, campoAlvo);
+                tabelaSchema.adicionarReferencia(campo);
+                schema.referenciadas.add(tabelaAlvo);
+            }
+        }
+        return schema;
+    }
+
+    // TABELAS EM TABELAS POSTGRES PRÓPRIAS, COM TIPOS, CHAVE PRIMÁRIA E CHAVES ESTRANGEIRAS (VER dao.TabelasNativasDAO)
+    public boolean isNativo() {
+        return nativo;
+    }
+
+    public Collection<TabelaSchema> getTabelas() {
+        return Collections.unmodifiableCollection(tabelas.values());
+    }
+
+    public TabelaSchema getTabela(String nome) {
+        return nome != null ? tabelas.get(nome) : null;
+    }
+
+    // TABELA ALVO DE ALGUM RELACIONAMENTO (SUAS CHAVES SÃO CONFERIDAS NAS REFERÊNCIAS)
+    public boolean isReferenciada(String nome) {
+        return referenciadas.contains(nome);
+    }
+}
@@ -0,0 +1,176 @@
+package util;
+
+import model.Endpoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// TABELA DE ROTAS COMPILADA DOS ENDPOINTS DE UMA APLICAÇÃO
+// UMA ÁRVORE POR MÉTODO HTTP, COM UM NÓ POR SEGMENTO DO CAMINHO ("/clientes/{id}" -> "clientes" -> {id})
+// A BUSCA PERCORRE O CAMINHO UMA VEZ: SEGMENTOS FIXOS TÊM PRIORIDADE SOBRE SEGMENTOS COM PARÂMETRO
+public class TabelaRotas {
+    private static final Pattern PARAMETRO = Pattern.compile("\\{([^}]+)\\}");
+
+    private final Map<Integer, No> raizes = new HashMap<>();
+
+    public TabelaRotas(List<Endpoint> endpoints) {
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.getRota() != null) {
+                adicionar(endpoint);
+            }
+        }
+    }
+
+    // RETORNA null SE NENHUM ENDPOINT DO MÉTODO CORRESPONDER AO CAMINHO
+    public RotaResolvida resolver(int metodo, String caminho) {
+        No raiz = raizes.get(metodo);
+        if (raiz == null || caminho == null) {
+            return null;
+        }
+
+        String[] segmentos = dividir(caminho);
+        List<String> valores = new ArrayList<>();
+        RotaCompilada rota = buscar(raiz, segmentos, 0, valores);
+        if (rota == null) {
+            return null;
+        }
+
+        Map<String, String> parametros = new HashMap<>();
+        for (int i = 0; i < rota.nomesParametros.size() && i < valores.size(); i++) {
+            parametros.put(rota.nomesParametros.get(i), valores.get(i));
+        }
+        return new RotaResolvida(rota.endpoint, parametros);
+    }
+
+    private void adicionar(Endpoint endpoint) {
+        No no = raizes.computeIfAbsent(endpoint.getMetodo(), m -> new No());
+        List<String> nomesParametros = new ArrayList<>();
+
+        for (String segmento : dividir(endpoint.getRota())) {
+            Matcher matcher = PARAMETRO.matcher(segmento);
+            List<String> nomesSegmento = new ArrayList<>();
+            while (matcher.find()) {
+                nomesSegmento.add(matcher.group(1));
+            }
+
+            if (nomesSegmento.isEmpty()) {
+                no = no.fixos.computeIfAbsent(segmento, s -> new No());
+            } else if (nomesSegmento.size() == 1 && matcher.replaceAll("").isEmpty()) {
+                // SEGMENTO INTEIRO É UM PARÂMETRO: "{id}"
+                if (no.parametro == null) {
+                    no.parametro = new No();
+                }
+                no = no.parametro;
+            } else {
+                // SEGMENTO MISTO ("{id}.json", "{de}-{ate}"): REGEX COMPILADA UMA ÚNICA VEZ AQUI
+                String regex = compilarSegmentoMisto(segmento);
+                No filho = no.mistos.get(regex);
+                if (filho == null) {
+                    filho = new No();
+                    filho.padrao = Pattern.compile(regex);
+                    no.mistos.put(regex, filho);
+                }
+                no = filho;
+            }
+            nomesParametros.addAll(nomesSegmento);
+        }
+
+        // SE DUAS ROTAS FOREM IDÊNTICAS, VALE A PRIMEIRA (MESMO COMPORTAMENTO DA BUSCA LINEAR ANTERIOR)
+        if (no.rota == null) {
+            no.rota = new RotaCompilada(endpoint, Collections.unmodifiableList(nomesParametros));
+        }
+    }
+
+    private RotaCompilada buscar(No no, String[] segmentos, int indice, List<String> valores) {
+        if (indice == segmentos.length) {
+            return no.rota;
+        }
+
+        String segmento = segmentos[indice];
+
+        No fixo = no.fixos.get(segmento);
+        if (fixo != null) {
+            RotaCompilada rota = buscar(fixo, segmentos, indice + 1, valores);
+            if (rota != null) {
+                return rota;
+            }
+        }
+
+        if (segmento.isEmpty()) {
+            return null;
+        }
+
+        for (No misto : no.mistos.values()) {
+            Matcher matcher = misto.padrao.matcher(segmento);
+            if (matcher.matches()) {
+                int tamanhoAnterior = valores.size();
+                for (int g = 1; g <= matcher.groupCount(); g++) {
+                    valores.add(matcher.group(g));
+                }
+                RotaCompilada rota = buscar(misto, segmentos, indice + 1, valores);
+                if (rota != null) {
+                    return rota;
+                }
+                valores.subList(tamanhoAnterior, valores.size()).clear();
+            }
+        }
+
+        if (no.parametro != null) {
+            valores.add(segmento);
+            RotaCompilada rota = buscar(no.parametro, segmentos, indice + 1, valores);
+            if (rota != null) {
+                return rota;
+            }
+            valores.remove(valores.size() - 1);
+        }
+
+        return null;
+    }
+
+    private static String compilarSegmentoMisto(String segmento) {
+        StringBuilder regex = new StringBuilder();
+        Matcher matcher = PARAMETRO.matcher(segmento);
+        int inicio = 0;
+        while (matcher.find()) {
+            if (matcher.start() > inicio) {
+                regex.append(Pattern.quote(segmento.substring(inicio, matcher.start())));
+            }
+            regex.append("([^/]+)");
+            inicio = matcher.end();
+        }
+        if (inicio < segmento.length()) {
+            regex.append(Pattern.quote(segmento.substring(inicio)));
+        }
+        return regex.toString();
+    }
+
+    // "/clientes/5" -> ["clientes", "5"]; MANTÉM SEGMENTOS VAZIOS PARA "/clientes/" NÃO CASAR COM "/clientes"
+    private static String[] dividir(String caminho) {
+        String semBarraInicial = caminho.startsWith("/") ? caminho.substring(1) : caminho;
+        return semBarraInicial.split("/", -1);
+    }
+
+    private static class No {
+        private final Map<String, No> fixos = new HashMap<>();
+        private final Map<String, No> mistos = new LinkedHashMap<>();
+        private No parametro;
+        private Pattern padrao;
+        private RotaCompilada rota;
+    }
+
+    private static class RotaCompilada {
+        private final Endpoint endpoint;
+        private final List<String> nomesParametros;
+
+        private RotaCompilada(Endpoint endpoint, List<String> nomesParametros) {
+            this.endpoint = endpoint;
+            this.nomesParametros = nomesParametros;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// UMA TABELA DO schema_banco: CAMPOS POR NOME E AS LISTAS JÁ SEPARADAS POR REGRA
+public final class TabelaSchema {
+    private final String nome;
+    // NA ORDEM EM QUE O schema_banco DECLARA OS CAMPOS (COLUNAS DA EXPORTAÇÃO EM CSV)
+    private final Map<String, RegraCampo> campos = new LinkedHashMap<>();
+    private final List<RegraCampo> chaves = new ArrayList<>();
+    private final List<RegraCampo> criptografados = new ArrayList<>();
+    private final List<RegraCampo> referencias = new ArrayList<>();
+
+    TabelaSchema(String nome) {
+        this.nome = nome;
+    }
+
+    void adicionar(RegraCampo campo) {
+        campos.put(campo.getNome(), campo);
+        if (campo.isChave()) {
+            chaves.add(campo);
+        }
+        if (campo.isCriptografado()) {
+            criptografados.add(campo);
+        }
+    }
+
+    void adicionarReferencia(RegraCampo campo) {
+        if (!referencias.contains(campo)) {
+            referencias.add(campo);
+        }
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public RegraCampo getCampo(String nome) {
+        return campos.get(nome);
+    }
+
+    public Collection<RegraCampo> getCampos() {
+        return Collections.unmodifiableCollection(campos.values());
+    }
+
+    // CAMPOS QUE RECEBEM ID GERADO (CHAVE PRIMÁRIA OU TIPO "id")
+    public List<RegraCampo> getChaves() {
+        return Collections.unmodifiableList(chaves);
+    }
+
+    // PRIMEIRA CHAVE DECLARADA (null SE A TABELA NÃO TEM CHAVE); É A CHAVE PRIMÁRIA DA TABELA NATIVA
+    public RegraCampo getChavePrimaria() {
+        return chaves.isEmpty() ? null : chaves.get(0);
+    }
+
+    public List<RegraCampo> getCriptografados() {
+        return Collections.unmodifiableList(criptografados);
+    }
+
+    // CAMPOS LIGADOS A OUTRA TABELA PELOS relacionamentos DO SCHEMA
+    public List<RegraCampo> getReferencias() {
+        return Collections.unmodifiableList(referencias);
+    }
+}
@@ -0,0 +1,206 @@
+package util;
+
+import cache.BarramentoInvalidacao;
+import cache.CacheFiltrosReferencia;
+import cache.CacheSchemas;
+import com.fasterxml.jackson.databind.JsonNode;
+import dao.GravacaoLote;
+import dao.ReferenciaDAO;
+import model.Aplicacao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+// VALIDAÇÃO DAS REFERÊNCIAS DE UM DOCUMENTO PELOS relacionamentos DECLARADOS NO schema_banco
+// TODAS AS REFERÊNCIAS DO DOCUMENTO (OU DO BLOCO DE DOCUMENTOS) SÃO CONFERIDAS NUMA ÚNICA CONSULTA (VER ReferenciaDAO)
+// REFERÊNCIAS À CHAVE DA TABELA ALVO PASSAM ANTES PELO FILTRO DE BLOOM: ID CERTAMENTE AUSENTE É RECUSADO SEM IR AO BANCO
+public final class ValidadorReferencias {
+    private static final Pattern NUMERO_INTEIRO = Pattern.compile("-?\\d{1,18}");
+
+    private ValidadorReferencias() {
+    }
+
+    // MENSAGEM DE ERRO DA PRIMEIRA REFERÊNCIA INVÁLIDA, OU null SE TODAS EXISTEM
+    // CAMPOS AUSENTES, NULOS OU NÃO NUMÉRICOS NÃO SÃO CONFERIDOS
+    public static String validar(Aplicacao aplicacao, String tabela, JsonNode valor) {
+        return validarLote(aplicacao, tabela, Collections.singletonList(valor))[0];
+    }
+
+    // VALIDAÇÃO DE VÁRIOS DOCUMENTOS DA MESMA TABELA (CARGA EM LOTE) COM A MESMA ÚNICA CONSULTA:
+    // OS IDs DE TODOS OS DOCUMENTOS ENTRAM NO MESMO unnest POR CAMPO
+    // RETORNA UMA MENSAGEM POR DOCUMENTO, NA MESMA ORDEM (null PARA OS DOCUMENTOS VÁLIDOS)
+    public static String[] validarLote(Aplicacao aplicacao, String tabela, List<JsonNode> valores) {
+        return validarLote(aplicacao, tabela, valores, null);
+    }
+
+    // COM gravacao, A CONSULTA RODA NA CONEXÃO DA CARGA EM LOTE EM VEZ DE EMPRESTAR OUTRA DO POOL
+    public static String[] validarLote(Aplicacao aplicacao, String tabela, List<JsonNode> valores, GravacaoLote gravacao) {
+        String[] erros = new String[valores.size()];
+        if (aplicacao == null) {
+            return erros;
+        }
+        SchemaCompilado schema = CacheSchemas.obter(aplicacao);
+        // NO MODO NATIVO AS REFERÊNCIAS SÃO FOREIGN KEYS, CONFERIDAS PELO PRÓPRIO POSTGRES NA ESCRITA
+        TabelaSchema tabelaSchema = schema != null && !schema.isNativo() ? schema.getTabela(tabela) : null;
+        if (tabelaSchema == null || tabelaSchema.getReferencias().isEmpty()) {
+            return erros;
+        }
+
+        // IDs DE CADA DOCUMENTO POR CAMPO ([documento][campo]) E A UNIÃO DE TODOS POR CAMPO PARA A CONSULTA
+        List<RegraCampo> referencias = tabelaSchema.getReferencias();
+        List<List<Set<Long>>> idsPorDocumento = new ArrayList<>();
+        List<Set<Long>> idsPorCampo = new ArrayList<>();
+        for (int c = 0; c < referencias.size(); c++) {
+            idsPorCampo.add(new LinkedHashSet<>());
+        }
+        for (int d = 0; d < valores.size(); d++) {
+            JsonNode valor = valores.get(d);
+            List<Set<Long>> idsDocumento = new ArrayList<>();
+            idsPorDocumento.add(idsDocumento);
+            if (valor == null || !valor.isObject()) {
+                continue;
+            }
+            for (int c = 0; c < referencias.size() && erros[d] == null; c++) {
+                RegraCampo campo = referencias.get(c);
+                Set<Long> idsCampo = new LinkedHashSet<>();
+                coletarIds(valor.get(campo.getNome()), idsCampo);
+                if (isChaveDoAlvo(schema, campo)) {
+                    for (Long id : idsCampo) {
+                        if (CacheFiltrosReferencia.certamenteAusente(aplicacao.getId(), campo.getTabelaReferenciada(), campo.getCampoReferenciado(), id)) {
+                            erros[d] = mensagemInvalida(campo, id);
+                            break;
+                        }
+                    }
+                }
+                idsDocumento.add(idsCampo);
+            }
+            // DOCUMENTO JÁ RECUSADO PELO FILTRO NÃO PRECISA TER OS IDs CONFERIDOS NO BANCO
+            if (erros[d] == null) {
+                for (int c = 0; c < idsDocumento.size(); c++) {
+                    idsPorCampo.get(c).addAll(idsDocumento.get(c));
+                }
+            }
+        }
+
+        List<Integer> grupos = new ArrayList<>();
+        List<String> tabelasAlvo = new ArrayList<>();
+        List<String> camposAlvo = new ArrayList<>();
+        List<Long[]> ids = new ArrayList<>();
+        for (int c = 0; c < referencias.size(); c++) {
+            if (!idsPorCampo.get(c).isEmpty()) {
+                grupos.add(c);
+                tabelasAlvo.add(referencias.get(c).getTabelaReferenciada());
+                camposAlvo.add(referencias.get(c).getCampoReferenciado());
+                ids.add(idsPorCampo.get(c).toArray(new Long[0]));
+            }
+        }
+        if (ids.isEmpty()) {
+            return erros;
+        }
+
+        List<Set<Long>> inexistentesPorCampo = new ArrayList<>();
+        for (int c = 0; c < referencias.size(); c++) {
+            inexistentesPorCampo.add(new HashSet<>());
+        }
+        try {
+            List<long[]> inexistentes = gravacao != null
+                ? gravacao.buscarReferenciasInexistentes(aplicacao.getId(), tabelasAlvo, camposAlvo, ids)
+                : new ReferenciaDAO().buscarInexistentes(aplicacao.getId(), tabelasAlvo, camposAlvo, ids);
+            for (long[] inexistente : inexistentes) {
+                inexistentesPorCampo.get(grupos.get((int) inexistente[0])).add(inexistente[1]);
+            }
+        } catch (SQLException e) {
+            // EX.: VALOR NÃO NUMÉRICO GRAVADO NO CAMPO ALVO; SEM CONFIRMAR A REFERÊNCIA, A ESCRITA NÃO PASSA
+            e.printStackTrace();
+            for (int d = 0; d < erros.length; d++) {
+                if (erros[d] == null) {
+                    erros[d] = "Não foi possível validar as referências";
+                }
+            }
+            return erros;
+        }
+
+        // PRIMEIRA REFERÊNCIA INEXISTENTE DE CADA DOCUMENTO, NA ORDEM DOS CAMPOS
+        for (int d = 0; d < valores.size(); d++) {
+            List<Set<Long>> idsDocumento = idsPorDocumento.get(d);
+            for (int c = 0; c < idsDocumento.size() && erros[d] == null; c++) {
+                for (Long id : idsDocumento.get(c)) {
+                    if (inexistentesPorCampo.get(c).contains(id)) {
+                        erros[d] = mensagemInvalida(referencias.get(c), id);
+                        break;
+                    }
+                }
+            }
+        }
+        return erros;
+    }
+
+    // CHAVES DE VÁRIOS DOCUMENTOS GRAVADOS DE UMA VEZ: UM ÚNICO AVISO DESCARTA OS FILTROS DA APLICAÇÃO,
+    // EM VEZ DE UM AVISO POR CHAVE (OS FILTROS SÃO RECONSTRUÍDOS NA PRÓXIMA CONSULTA)
+    public static void registrarChavesLote(Aplicacao aplicacao, String tabela) {
+        SchemaCompilado schema = aplicacao != null ? CacheSchemas.obter(aplicacao) : null;
+        if (schema != null && !schema.isNativo() && schema.isReferenciada(tabela)) {
+            BarramentoInvalidacao.filtrosReferencia(aplicacao.getId());
+        }
+    }
+
+    // CHAVES GRAVADAS EM UMA TABELA REFERENCIADA ENTRAM NOS FILTROS DE REFERÊNCIA (DESTE NÓ E DOS DEMAIS)
+    // CHAMADO DEPOIS DE GRAVAR O DOCUMENTO COM AS CHAVES JÁ DEFINIDAS
+    public static void registrarChaves(Aplicacao aplicacao, String tabela, JsonNode valor) {
+        SchemaCompilado schema = aplicacao != null ? CacheSchemas.obter(aplicacao) : null;
+        TabelaSchema tabelaSchema = schema != null ? schema.getTabela(tabela) : null;
+        if (tabelaSchema == null || valor == null || schema.isNativo() || !schema.isReferenciada(tabela)) {
+            return;
+        }
+        for (RegraCampo campo : tabelaSchema.getChaves()) {
+            Set<Long> ids = new LinkedHashSet<>();
+            coletarIds(valor.get(campo.getNome()), ids);
+            for (Long id : ids) {
+                BarramentoInvalidacao.chaveGravada(aplicacao.getId(), tabela, id);
+            }
+        }
+    }
+
+    // CHAVE GERADA PELO AlocadorIds EM UM INSERT DE ENDPOINT DINÂMICO
+    public static void registrarChave(Aplicacao aplicacao, String tabela, long id) {
+        SchemaCompilado schema = aplicacao != null ? CacheSchemas.obter(aplicacao) : null;
+        if (schema != null && !schema.isNativo() && schema.isReferenciada(tabela)) {
+            BarramentoInvalidacao.chaveGravada(aplicacao.getId(), tabela, id);
+        }
+    }
+
+    // SÓ AS CHAVES DA TABELA ALVO SÃO ACOMPANHADAS PELOS FILTROS (VALORES DE OUTROS CAMPOS MUDAM SEM AVISO)
+    private static boolean isChaveDoAlvo(SchemaCompilado schema, RegraCampo campo) {
+        TabelaSchema alvo = schema.getTabela(campo.getTabelaReferenciada());
+        RegraCampo campoAlvo = alvo != null ? alvo.getCampo(campo.getCampoReferenciado()) : null;
+        return campoAlvo != null && campoAlvo.isChave();
+    }
+
+    private static String mensagemInvalida(RegraCampo campo, long id) {
+        return "Referência inválida: " + campo.getNome() + " = " + id + " não existe na tabela " + campo.getTabelaReferenciada();
+    }
+
+    // ACEITA UM ID (NÚMERO OU TEXTO NUMÉRICO) OU UM ARRAY DE IDs (RELACIONAMENTOS N:N)
+    private static void coletarIds(JsonNode valor, Set<Long> ids) {
+        if (valor == null || valor.isNull()) {
+            return;
+        }
+        if (valor.isArray()) {
+            for (JsonNode item : valor) {
+                if (!item.isArray()) {
+                    coletarIds(item, ids);
+                }
+            }
+        } else if (valor.isIntegralNumber() && valor.canConvertToLong()) {
+            ids.add(valor.longValue());
+        } else if (valor.isTextual() && NUMERO_INTEIRO.matcher(valor.asText()).matches()) {
+            ids.add(Long.parseLong(valor.asText()));
+        }
+    }
+}
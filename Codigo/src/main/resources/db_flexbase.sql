@@ -52,6 +52,8 @@ CREATE TABLE tb_endpoints (
     rota VARCHAR(100) NOT NULL,
     query TEXT NOT NULL,
     metodo INTEGER NOT NULL,
+    -- Criado pela geração a partir do schema_banco: só nele ${limit} e ${after} fazem a paginação por cursor
+    gerado BOOLEAN NOT NULL DEFAULT FALSE,
     CONSTRAINT fk_endpoints_aplicacao 
         FOREIGN KEY (id_aplicacao) 
         REFERENCES tb_aplicacao(id) 
@@ -62,18 +64,26 @@ CREATE TABLE tb_endpoints (
 
 --
 -- Table structure for table tb_registros
+-- Particionada por aplicação (LIST em id_aplicacao): cada aplicação tem a sua
+-- partição tb_registros_<id>, criada por fn_garantir_particao_registros.
+-- As consultas filtram por id_aplicacao e o planejador só lê a partição dela.
+-- A chave primária de uma tabela particionada precisa conter a coluna de partição.
+-- Sem partição DEFAULT: toda aplicação ganha a sua na criação (fn_create_aplicacao_with_base_key),
+-- o ATTACH de uma nova não precisa varrer uma partição padrão e a exclusão pode usar DETACH ... CONCURRENTLY
+-- (PostgreSQL 14+). Bases anteriores ao particionamento: ver db_migracao_registros.sql.
 --
 
 CREATE TABLE tb_registros (
-    id SERIAL PRIMARY KEY,
+    id SERIAL,
     tabela VARCHAR(100) NOT NULL,
     valor JSONB NOT NULL,
     id_aplicacao INTEGER NOT NULL,
+    PRIMARY KEY (id_aplicacao, id),
     CONSTRAINT fk_registros_aplicacao 
         FOREIGN KEY (id_aplicacao) 
         REFERENCES tb_aplicacao(id) 
         ON DELETE CASCADE
-);
+) PARTITION BY LIST (id_aplicacao);
 
 -- --------------------------------------------------------
 
@@ -95,6 +105,27 @@ CREATE TABLE tb_sequences (
 
 -- --------------------------------------------------------
 
+--
+-- Table structure for table tb_contadores_registros
+-- Quantidade de registros por (aplicação, tabela), mantida pelos gatilhos de tb_registros.
+-- Cada contador é dividido em fatias (uma por grupo de sessões) para que gravações
+-- simultâneas na mesma tabela não disputem a mesma linha; o total é a soma das fatias.
+--
+
+CREATE TABLE tb_contadores_registros (
+    id_aplicacao INTEGER NOT NULL,
+    tabela       VARCHAR(100) NOT NULL,
+    fatia        SMALLINT NOT NULL,
+    total        BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (id_aplicacao, tabela, fatia),
+    CONSTRAINT fk_contadores_aplicacao
+        FOREIGN KEY (id_aplicacao)
+        REFERENCES tb_aplicacao(id)
+        ON DELETE CASCADE
+);
+
+-- --------------------------------------------------------
+
 --
 -- Table structure for table tb_keys
 --
@@ -171,7 +202,10 @@ CREATE TABLE tb_usuario_aplicacao (
 CREATE INDEX idx_tb_aplicacao_id_usuario ON tb_aplicacao(id_usuario);
 CREATE INDEX idx_tb_aplicacao_id_key_base ON tb_aplicacao(id_key_base);
 CREATE INDEX idx_tb_endpoints_id_aplicacao ON tb_endpoints(id_aplicacao);
-CREATE INDEX idx_tb_registros_id_aplicacao ON tb_registros(id_aplicacao);
+-- Listagens paginadas por cursor (id > ? ORDER BY id LIMIT ?) usam a chave primária (id_aplicacao, id)
+-- Busca, atualização e exclusão por id em /api/registros/:id
+CREATE INDEX idx_tb_registros_id ON tb_registros(id);
+CREATE INDEX idx_tb_registros_tabela_id ON tb_registros(tabela, id);
 CREATE INDEX idx_tb_registros_valor ON tb_registros USING GIN(valor);
 CREATE INDEX idx_tb_aplicacao_schema_banco ON tb_aplicacao USING GIN(schema_banco);
 CREATE INDEX idx_tb_usuarios_email ON tb_usuarios(email);
@@ -210,6 +244,97 @@ $$ LANGUAGE plpgsql;
 
 -- --------------------------------------------------------
 
+--
+-- Function: fn_garantir_particao_registros
+-- Cria a partição tb_registros_<id> da aplicação, se ainda não existir (ou a anexa de novo, se estiver
+-- desanexada), e retorna o nome dela.
+--
+
+CREATE OR REPLACE FUNCTION fn_garantir_particao_registros(
+    p_id_aplicacao INTEGER
+)
+RETURNS VARCHAR AS $$
+DECLARE
+    v_particao VARCHAR := 'tb_registros_' || p_id_aplicacao;
+BEGIN
+    -- Só conta a partição anexada: a tabela pode existir desanexada (exclusão da aplicação que falhou depois do DETACH)
+    IF EXISTS (SELECT 1 FROM pg_inherits
+               WHERE inhrelid = to_regclass(v_particao) AND inhparent = 'tb_registros'::regclass) THEN
+        RETURN v_particao;
+    END IF;
+
+    -- Duas chamadas simultâneas para a mesma aplicação: a segunda espera e encontra a partição pronta
+    PERFORM pg_advisory_xact_lock(hashtext('tb_registros'), p_id_aplicacao);
+    IF EXISTS (SELECT 1 FROM pg_inherits
+               WHERE inhrelid = to_regclass(v_particao) AND inhparent = 'tb_registros'::regclass) THEN
+        RETURN v_particao;
+    END IF;
+
+    -- Criada fora da tb_registros e anexada depois: o ATTACH PARTITION trava a tb_registros só em
+    -- SHARE UPDATE EXCLUSIVE (as demais aplicações seguem lendo e gravando), ao contrário do
+    -- CREATE TABLE ... PARTITION OF; o CHECK igual ao intervalo dispensa a verificação das linhas
+    -- Tabela já existente e desanexada: volta a ser anexada com os registros (o CHECK dela continua lá)
+    IF to_regclass(v_particao) IS NULL THEN
+        EXECUTE format('CREATE TABLE %I (LIKE tb_registros INCLUDING DEFAULTS, CHECK (id_aplicacao = %s))',
+            v_particao, p_id_aplicacao);
+    END IF;
+    EXECUTE format('ALTER TABLE tb_registros ATTACH PARTITION %I FOR VALUES IN (%s)', v_particao, p_id_aplicacao);
+
+    RETURN v_particao;
+END;
+$$ LANGUAGE plpgsql;
+
+-- --------------------------------------------------------
+
+--
+-- Function: fn_contar_registros
+-- Gatilho por comando de tb_registros: soma as linhas inseridas e subtrai as excluídas em
+-- tb_contadores_registros, na mesma transação da gravação (uma atualização por tabela, não por linha).
+-- A fatia vem da sessão (8 fatias por contador).
+--
+
+CREATE OR REPLACE FUNCTION fn_contar_registros()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO tb_contadores_registros (id_aplicacao, tabela, fatia, total)
+        SELECT id_aplicacao, tabela, pg_backend_pid() % 8, COUNT(*) FROM novas
+        GROUP BY id_aplicacao, tabela
+        ON CONFLICT (id_aplicacao, tabela, fatia) DO UPDATE SET total = tb_contadores_registros.total + EXCLUDED.total;
+    ELSIF TG_OP = 'DELETE' THEN
+        -- Exclusão em cascata da aplicação: o contador sai junto com ela
+        INSERT INTO tb_contadores_registros (id_aplicacao, tabela, fatia, total)
+        SELECT id_aplicacao, tabela, pg_backend_pid() % 8, -COUNT(*) FROM antigas
+        WHERE EXISTS (SELECT 1 FROM tb_aplicacao a WHERE a.id = antigas.id_aplicacao)
+        GROUP BY id_aplicacao, tabela
+        ON CONFLICT (id_aplicacao, tabela, fatia) DO UPDATE SET total = tb_contadores_registros.total + EXCLUDED.total;
+    ELSE
+        -- Atualização que troca a tabela do registro
+        INSERT INTO tb_contadores_registros (id_aplicacao, tabela, fatia, total)
+        SELECT id_aplicacao, tabela, pg_backend_pid() % 8, SUM(delta)
+        FROM (SELECT id_aplicacao, tabela, 1 AS delta FROM novas
+              UNION ALL
+              SELECT id_aplicacao, tabela, -1 FROM antigas) d
+        GROUP BY id_aplicacao, tabela
+        HAVING SUM(delta) <> 0
+        ON CONFLICT (id_aplicacao, tabela, fatia) DO UPDATE SET total = tb_contadores_registros.total + EXCLUDED.total;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_contar_registros_insert AFTER INSERT ON tb_registros
+    REFERENCING NEW TABLE AS novas
+    FOR EACH STATEMENT EXECUTE FUNCTION fn_contar_registros();
+CREATE TRIGGER trg_contar_registros_delete AFTER DELETE ON tb_registros
+    REFERENCING OLD TABLE AS antigas
+    FOR EACH STATEMENT EXECUTE FUNCTION fn_contar_registros();
+CREATE TRIGGER trg_contar_registros_update AFTER UPDATE ON tb_registros
+    REFERENCING OLD TABLE AS antigas NEW TABLE AS novas
+    FOR EACH STATEMENT EXECUTE FUNCTION fn_contar_registros();
+
+-- --------------------------------------------------------
+
 --
 -- Function: fn_generate_key_code
 -- Gera um código único para uma key
@@ -305,6 +430,9 @@ BEGIN
     -- Atualiza a aplicação com o id correto da key base
     UPDATE tb_aplicacao SET id_key_base = v_id_key WHERE id = v_id_aplicacao;
     
+    -- Partição dos registros da aplicação
+    PERFORM fn_garantir_particao_registros(v_id_aplicacao);
+    
     RETURN QUERY SELECT v_id_aplicacao, v_id_key, v_codigo_key;
 END;
 $$ LANGUAGE plpgsql;
@@ -338,3 +466,8 @@ ON DELETE RESTRICT;
 --
 -- Retorna: id_aplicacao, id_key_base, codigo_key
 
+-- --------------------------------------------------------
+
+--
+-- Migração de uma base existente (particionamento da tb_registros, contadores de registros e tb_endpoints.gerado):
+-- db_migracao_registros.sql
@@ -0,0 +1,245 @@
+--
+-- Migração da tb_registros para o particionamento por aplicação (PostgreSQL 14+)
+--
+-- Atende as duas bases anteriores:
+--   * tb_registros ainda não particionada (uma tabela só, id SERIAL PRIMARY KEY);
+--   * tb_registros particionada com a partição DEFAULT tb_registros_padrao.
+-- Ao final toda aplicação tem a sua partição tb_registros_<id> e não existe partição DEFAULT.
+-- Pode ser executado de novo: numa base já migrada só garante as partições que faltarem.
+--
+-- Roda numa única transação e trava a tb_registros durante a cópia: executar em janela de manutenção,
+-- com o FlexBase parado.
+--
+-- Uso: psql -d db_flexbase -v ON_ERROR_STOP=1 -f db_migracao_registros.sql
+--
+-- Também cria os contadores de registros (tb_contadores_registros e gatilhos) e a coluna tb_endpoints.gerado,
+-- se ainda não existirem.
+-- As linhas são copiadas direto nas partições, sem passar pelos gatilhos da tb_registros:
+-- a reconciliação periódica do FlexBase (contadores.reconciliacao.intervaloMs) acerta os contadores.
+--
+
+BEGIN;
+
+-- --------------------------------------------------------
+
+--
+-- tb_endpoints.gerado
+-- Os endpoints já salvos ficam como personalizados (${limit} e ${after} seguem como campos da requisição);
+-- gerar os endpoints da aplicação de novo marca os gerados e troca o GET /{tabela} pelo paginado
+--
+
+ALTER TABLE tb_endpoints ADD COLUMN IF NOT EXISTS gerado BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- --------------------------------------------------------
+
+--
+-- Function: fn_garantir_particao_registros
+-- Mesma definição do db_flexbase.sql
+--
+
+CREATE OR REPLACE FUNCTION fn_garantir_particao_registros(
+    p_id_aplicacao INTEGER
+)
+RETURNS VARCHAR AS $$
+DECLARE
+    v_particao VARCHAR := 'tb_registros_' || p_id_aplicacao;
+BEGIN
+    -- Só conta a partição anexada: a tabela pode existir desanexada (exclusão da aplicação que falhou depois do DETACH)
+    IF EXISTS (SELECT 1 FROM pg_inherits
+               WHERE inhrelid = to_regclass(v_particao) AND inhparent = 'tb_registros'::regclass) THEN
+        RETURN v_particao;
+    END IF;
+
+    -- Duas chamadas simultâneas para a mesma aplicação: a segunda espera e encontra a partição pronta
+    PERFORM pg_advisory_xact_lock(hashtext('tb_registros'), p_id_aplicacao);
+    IF EXISTS (SELECT 1 FROM pg_inherits
+               WHERE inhrelid = to_regclass(v_particao) AND inhparent = 'tb_registros'::regclass) THEN
+        RETURN v_particao;
+    END IF;
+
+    -- Criada fora da tb_registros e anexada depois: o ATTACH PARTITION trava a tb_registros só em
+    -- SHARE UPDATE EXCLUSIVE (as demais aplicações seguem lendo e gravando), ao contrário do
+    -- CREATE TABLE ... PARTITION OF; o CHECK igual ao intervalo dispensa a verificação das linhas
+    -- Tabela já existente e desanexada: volta a ser anexada com os registros (o CHECK dela continua lá)
+    IF to_regclass(v_particao) IS NULL THEN
+        EXECUTE format('CREATE TABLE %I (LIKE tb_registros INCLUDING DEFAULTS, CHECK (id_aplicacao = %s))',
+            v_particao, p_id_aplicacao);
+    END IF;
+    EXECUTE format('ALTER TABLE tb_registros ATTACH PARTITION %I FOR VALUES IN (%s)', v_particao, p_id_aplicacao);
+
+    RETURN v_particao;
+END;
+$$ LANGUAGE plpgsql;
+
+-- --------------------------------------------------------
+
+--
+-- Function: fn_create_aplicacao_with_base_key
+-- Mesma definição do db_flexbase.sql (passa a criar a partição da aplicação)
+--
+
+CREATE OR REPLACE FUNCTION fn_create_aplicacao_with_base_key(
+    p_nome VARCHAR,
+    p_readme TEXT,
+    p_id_usuario INTEGER,
+    p_nome_banco VARCHAR DEFAULT NULL,
+    p_schema_banco JSONB DEFAULT NULL
+)
+RETURNS TABLE(id_aplicacao INTEGER, id_key_base INTEGER, codigo_key VARCHAR) AS $$
+DECLARE
+    v_id_aplicacao INTEGER;
+    v_id_key INTEGER;
+    v_codigo_key VARCHAR;
+BEGIN
+    -- Primeiro, cria a aplicação com id_key_base NULL temporariamente
+    INSERT INTO tb_aplicacao (nome, readme, id_usuario, nome_banco, schema_banco)
+    VALUES (p_nome, p_readme, p_id_usuario, p_nome_banco, p_schema_banco)
+    RETURNING id INTO v_id_aplicacao;
+
+    -- Depois, cria a key base com o id correto da aplicação
+    INSERT INTO tb_keys (codigo, id_aplicacao, nome, descricao)
+    VALUES (
+        fn_generate_key_code(),
+        v_id_aplicacao,
+        'Key Base - ' || p_nome,
+        'Key base para novos usuários da aplicação ' || p_nome
+    )
+    RETURNING id, codigo INTO v_id_key, v_codigo_key;
+
+    -- Atualiza a aplicação com o id correto da key base
+    UPDATE tb_aplicacao SET id_key_base = v_id_key WHERE id = v_id_aplicacao;
+
+    -- Partição dos registros da aplicação
+    PERFORM fn_garantir_particao_registros(v_id_aplicacao);
+
+    RETURN QUERY SELECT v_id_aplicacao, v_id_key, v_codigo_key;
+END;
+$$ LANGUAGE plpgsql;
+
+-- --------------------------------------------------------
+
+--
+-- Contadores de registros por (aplicação, tabela)
+-- Mesmas definições do db_flexbase.sql; os gatilhos ficam na tb_registros particionada, criados depois da migração
+--
+
+CREATE TABLE IF NOT EXISTS tb_contadores_registros (
+    id_aplicacao INTEGER NOT NULL,
+    tabela       VARCHAR(100) NOT NULL,
+    fatia        SMALLINT NOT NULL,
+    total        BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (id_aplicacao, tabela, fatia),
+    CONSTRAINT fk_contadores_aplicacao
+        FOREIGN KEY (id_aplicacao)
+        REFERENCES tb_aplicacao(id)
+        ON DELETE CASCADE
+);
+
+CREATE OR REPLACE FUNCTION fn_contar_registros()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO tb_contadores_registros (id_aplicacao, tabela, fatia, total)
+        SELECT id_aplicacao, tabela, pg_backend_pid() % 8, COUNT(*) FROM novas
+        GROUP BY id_aplicacao, tabela
+        ON CONFLICT (id_aplicacao, tabela, fatia) DO UPDATE SET total = tb_contadores_registros.total + EXCLUDED.total;
+    ELSIF TG_OP = 'DELETE' THEN
+        -- Exclusão em cascata da aplicação: o contador sai junto com ela
+        INSERT INTO tb_contadores_registros (id_aplicacao, tabela, fatia, total)
+        SELECT id_aplicacao, tabela, pg_backend_pid() % 8, -COUNT(*) FROM antigas
+        WHERE EXISTS (SELECT 1 FROM tb_aplicacao a WHERE a.id = antigas.id_aplicacao)
+        GROUP BY id_aplicacao, tabela
+        ON CONFLICT (id_aplicacao, tabela, fatia) DO UPDATE SET total = tb_contadores_registros.total + EXCLUDED.total;
+    ELSE
+        -- Atualização que troca a tabela do registro
+        INSERT INTO tb_contadores_registros (id_aplicacao, tabela, fatia, total)
+        SELECT id_aplicacao, tabela, pg_backend_pid() % 8, SUM(delta)
+        FROM (SELECT id_aplicacao, tabela, 1 AS delta FROM novas
+              UNION ALL
+              SELECT id_aplicacao, tabela, -1 FROM antigas) d
+        GROUP BY id_aplicacao, tabela
+        HAVING SUM(delta) <> 0
+        ON CONFLICT (id_aplicacao, tabela, fatia) DO UPDATE SET total = tb_contadores_registros.total + EXCLUDED.total;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- --------------------------------------------------------
+
+--
+-- Migração dos registros
+--
+
+DO $$
+DECLARE
+    v_origem VARCHAR;
+    v_aplicacao INTEGER;
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = 'tb_registros'::regclass) = 'r' THEN
+        -- Tabela ainda não particionada: vira a origem da cópia e libera os nomes para a nova
+        ALTER TABLE tb_registros RENAME TO tb_registros_antiga;
+        ALTER INDEX IF EXISTS tb_registros_pkey RENAME TO tb_registros_antiga_pkey;
+        DROP INDEX IF EXISTS idx_tb_registros_id_aplicacao_id;
+        DROP INDEX IF EXISTS idx_tb_registros_tabela_id;
+        DROP INDEX IF EXISTS idx_tb_registros_valor;
+
+        -- A sequência dos ids continua a mesma: os ids já entregues não se repetem
+        ALTER TABLE tb_registros_antiga ALTER COLUMN id DROP DEFAULT;
+        ALTER SEQUENCE tb_registros_id_seq OWNED BY NONE;
+
+        CREATE TABLE tb_registros (
+            id INTEGER NOT NULL DEFAULT nextval('tb_registros_id_seq'),
+            tabela VARCHAR(100) NOT NULL,
+            valor JSONB NOT NULL,
+            id_aplicacao INTEGER NOT NULL,
+            PRIMARY KEY (id_aplicacao, id),
+            CONSTRAINT fk_registros_aplicacao
+                FOREIGN KEY (id_aplicacao)
+                REFERENCES tb_aplicacao(id)
+                ON DELETE CASCADE
+        ) PARTITION BY LIST (id_aplicacao);
+        ALTER SEQUENCE tb_registros_id_seq OWNED BY tb_registros.id;
+
+        CREATE INDEX idx_tb_registros_id ON tb_registros(id);
+        CREATE INDEX idx_tb_registros_tabela_id ON tb_registros(tabela, id);
+        CREATE INDEX idx_tb_registros_valor ON tb_registros USING GIN(valor);
+
+        v_origem := 'tb_registros_antiga';
+    ELSIF to_regclass('tb_registros_padrao') IS NOT NULL THEN
+        -- Particionada com a partição DEFAULT: ela sai da tb_registros e vira a origem da cópia
+        ALTER TABLE tb_registros DETACH PARTITION tb_registros_padrao;
+        v_origem := 'tb_registros_padrao';
+    END IF;
+
+    -- Sem partição DEFAULT, toda aplicação precisa da sua, mesmo sem registros
+    FOR v_aplicacao IN SELECT id FROM tb_aplicacao ORDER BY id LOOP
+        PERFORM fn_garantir_particao_registros(v_aplicacao);
+        IF v_origem IS NOT NULL THEN
+            EXECUTE format(
+                'INSERT INTO %I (id, tabela, valor, id_aplicacao) '
+                'SELECT id, tabela, valor, id_aplicacao FROM %I WHERE id_aplicacao = %s',
+                'tb_registros_' || v_aplicacao, v_origem, v_aplicacao);
+        END IF;
+    END LOOP;
+
+    IF v_origem IS NOT NULL THEN
+        EXECUTE format('DROP TABLE %I', v_origem);
+    END IF;
+END;
+$$;
+
+-- Gatilhos dos contadores (a tb_registros pode ter sido recriada acima)
+CREATE OR REPLACE TRIGGER trg_contar_registros_insert AFTER INSERT ON tb_registros
+    REFERENCING NEW TABLE AS novas
+    FOR EACH STATEMENT EXECUTE FUNCTION fn_contar_registros();
+CREATE OR REPLACE TRIGGER trg_contar_registros_delete AFTER DELETE ON tb_registros
+    REFERENCING OLD TABLE AS antigas
+    FOR EACH STATEMENT EXECUTE FUNCTION fn_contar_registros();
+CREATE OR REPLACE TRIGGER trg_contar_registros_update AFTER UPDATE ON tb_registros
+    REFERENCING OLD TABLE AS antigas NEW TABLE AS novas
+    FOR EACH STATEMENT EXECUTE FUNCTION fn_contar_registros();
+
+COMMIT;
+
+ANALYZE tb_registros;
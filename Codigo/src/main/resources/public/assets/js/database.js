@@ -183,25 +183,36 @@ async function loadTableRecords(tableData) {
         const token = localStorage.getItem('token');
         if (!token) return;
         
-        const response = await fetch(`${CONFIG.API_BASE_URL}/registros/tabela/${tableData.name}`, {
-            method: 'GET',
-            headers: {
-                'Authorization': `Bearer ${token}`,
-                'Content-Type': 'application/json'
+        // A listagem é paginada: seguir o cursor do header X-Next-Cursor até a última página
+        const appRecords = [];
+        let cursor = null;
+        do {
+            let url = `${CONFIG.API_BASE_URL}/registros/tabela/${tableData.name}?limit=1000`;
+            if (cursor !== null) {
+                url += `&after=${cursor}`;
             }
-        });
-        
-        if (response.ok) {
+            
+            const response = await fetch(url, {
+                method: 'GET',
+                headers: {
+                    'Authorization': `Bearer ${token}`,
+                    'Content-Type': 'application/json'
+                }
+            });
+            
+            if (!response.ok) {
+                console.log(`Nenhum registro encontrado para a tabela ${tableData.name}`);
+                break;
+            }
+            
             const records = await response.json();
             // Filtrar apenas registros da aplicação atual
-            const appRecords = records.filter(record => record.idAplicacao == currentApplicationId);
-            tableData.records = appRecords;
-            tableData.count = appRecords.length;
-        } else {
-            console.log(`Nenhum registro encontrado para a tabela ${tableData.name}`);
-            tableData.records = [];
-            tableData.count = 0;
-        }
+            appRecords.push(...records.filter(record => record.idAplicacao == currentApplicationId));
+            cursor = response.headers.get('X-Next-Cursor');
+        } while (cursor !== null);
+        
+        tableData.records = appRecords;
+        tableData.count = appRecords.length;
     } catch (error) {
         console.error(`Erro ao carregar registros da tabela ${tableData.name}:`, error);
         tableData.records = [];